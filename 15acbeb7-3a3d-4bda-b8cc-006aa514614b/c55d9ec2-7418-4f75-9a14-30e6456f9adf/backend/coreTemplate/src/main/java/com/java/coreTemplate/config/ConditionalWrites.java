@@ -0,0 +1,207 @@
+package com.java.coreTemplate.config;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Query;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Single-statement writes for PUT/PATCH/DELETE. An update binds the entity's updatable
+// columns and runs
+//   UPDATE <Entity> e SET e.a = :a, ..., e.version = e.version + 1 WHERE e.id = :id AND e.version = :version
+// and a delete runs DELETE FROM <Entity> e WHERE e.id = :id [AND e.version = :version], so a
+// write is one round trip instead of an exists check, the SELECT inside merge and the write.
+// The version condition is dropped when no version is expected (no If-Match, or "*").
+// Zero affected rows means the row is gone or was changed concurrently; only then is its
+// version read, to tell 404 from 412.
+// Bulk statements bypass JPA lifecycle callbacks, so the entity's @PreUpdate methods are run
+// on the values before binding (keeps updated_at current). Only basic fields are written:
+// relationships and @Column(updatable = false) columns are left as they are.
+@Component
+public class ConditionalWrites {
+    public enum Outcome { APPLIED, NOT_FOUND, PRECONDITION_FAILED }
+
+    // version is the row's version after the write when known, the current one on a 412
+    public record Result(Outcome outcome, Long version) {
+        public boolean applied() {
+            return outcome == Outcome.APPLIED;
+        }
+
+        public <T> ResponseEntity<T> toResponse(Object id) {
+            return switch (outcome) {
+                case APPLIED -> version != null
+                        ? ResponseEntity.noContent().eTag(EntityTags.of(id, version)).build()
+                        : ResponseEntity.noContent().build();
+                case NOT_FOUND -> ResponseEntity.notFound().build();
+                case PRECONDITION_FAILED -> version != null
+                        ? ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(EntityTags.of(id, version)).build()
+                        : ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            };
+        }
+    }
+
+    private final EntityManager entityManager;
+    private final Map<Class<?>, Mapping> mappings = new ConcurrentHashMap<>();
+
+    public ConditionalWrites(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Replaces every updatable column with the value in values
+    @Transactional
+    public <T> Result update(Class<T> type, Object id, Long expectedVersion, T values) {
+        return write(type, id, expectedVersion, values, false);
+    }
+
+    // Only the columns whose value is non-null; primitive fields cannot say "absent" and are skipped
+    @Transactional
+    public <T> Result patch(Class<T> type, Object id, Long expectedVersion, T values) {
+        return write(type, id, expectedVersion, values, true);
+    }
+
+    @Transactional
+    public Result delete(Class<?> type, Object id, Long expectedVersion) {
+        Mapping mapping = mapping(type);
+        StringBuilder jpql = new StringBuilder("DELETE FROM ").append(mapping.entityName).append(" e WHERE e.")
+                .append(mapping.id.getName()).append(" = :id");
+        if (expectedVersion != null) {
+            jpql.append(" AND e.").append(mapping.version.getName()).append(" = :version");
+        }
+        Query query = entityManager.createQuery(jpql.toString()).setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.executeUpdate() > 0 ? new Result(Outcome.APPLIED, null) : missed(mapping, id);
+    }
+
+    private <T> Result write(Class<T> type, Object id, Long expectedVersion, T values, boolean onlyPresent) {
+        Mapping mapping = mapping(type);
+        mapping.runPreUpdate(values);
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(mapping.entityName).append(" e SET ");
+        List<Field> bound = new ArrayList<>();
+        for (Field column : mapping.columns) {
+            if (onlyPresent && (column.getType().isPrimitive() || read(column, values) == null)) {
+                continue;
+            }
+            jpql.append("e.").append(column.getName()).append(" = :").append(column.getName()).append(", ");
+            bound.add(column);
+        }
+        String versionName = mapping.version.getName();
+        jpql.append("e.").append(versionName).append(" = e.").append(versionName).append(" + 1")
+                .append(" WHERE e.").append(mapping.id.getName()).append(" = :id");
+        if (expectedVersion != null) {
+            jpql.append(" AND e.").append(versionName).append(" = :version");
+        }
+        Query query = entityManager.createQuery(jpql.toString()).setParameter("id", id);
+        for (Field column : bound) {
+            query.setParameter(column.getName(), read(column, values));
+        }
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        if (query.executeUpdate() == 0) {
+            return missed(mapping, id);
+        }
+        return new Result(Outcome.APPLIED, expectedVersion != null ? expectedVersion + 1 : null);
+    }
+
+    private Result missed(Mapping mapping, Object id) {
+        List<?> current = entityManager.createQuery("SELECT e." + mapping.version.getName() + " FROM "
+                        + mapping.entityName + " e WHERE e." + mapping.id.getName() + " = :id")
+                .setParameter("id", id)
+                .getResultList();
+        if (current.isEmpty()) {
+            return new Result(Outcome.NOT_FOUND, null);
+        }
+        return new Result(Outcome.PRECONDITION_FAILED, (Long) current.get(0));
+    }
+
+    Mapping mapping(Class<?> type) {
+        return mappings.computeIfAbsent(type, Mapping::of);
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+
+    record Mapping(String entityName, Field id, Field version, List<Field> columns, List<Method> preUpdate) {
+        static Mapping of(Class<?> type) {
+            Entity entity = type.getAnnotation(Entity.class);
+            if (entity == null) {
+                throw new IllegalArgumentException(type.getName() + " is not an @Entity");
+            }
+            Field id = null;
+            Field version = null;
+            List<Field> columns = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(Transient.class)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                if (field.isAnnotationPresent(Id.class)) {
+                    id = field;
+                } else if (field.isAnnotationPresent(Version.class)) {
+                    version = field;
+                } else if (isUpdatableColumn(field)) {
+                    columns.add(field);
+                }
+            }
+            if (id == null || version == null) {
+                throw new IllegalArgumentException(type.getName() + " needs an @Id and a @Version field");
+            }
+            List<Method> preUpdate = new ArrayList<>();
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(PreUpdate.class)) {
+                    method.setAccessible(true);
+                    preUpdate.add(method);
+                }
+            }
+            String entityName = entity.name().isEmpty() ? type.getSimpleName() : entity.name();
+            return new Mapping(entityName, id, version, List.copyOf(columns), List.copyOf(preUpdate));
+        }
+
+        private static boolean isUpdatableColumn(Field field) {
+            if (field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToMany.class)
+                    || field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)) {
+                return false;
+            }
+            Column column = field.getAnnotation(Column.class);
+            return column == null || column.updatable();
+        }
+
+        void runPreUpdate(Object values) {
+            for (Method method : preUpdate) {
+                try {
+                    method.invoke(values);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("@PreUpdate " + method + " failed", e);
+                }
+            }
+        }
+    }
+}
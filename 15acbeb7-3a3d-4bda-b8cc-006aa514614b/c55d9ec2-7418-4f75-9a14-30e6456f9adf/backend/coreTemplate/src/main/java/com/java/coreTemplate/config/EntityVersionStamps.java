@@ -0,0 +1,72 @@
+package com.java.coreTemplate.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Per-entity modification counters. List-shaped cache keys (active lists, counts, pages)
+// embed the current stamp, e.g. key = "'active:' + @entityVersionStamps.current('storagepy')",
+// so a write invalidates them by bumping the stamp instead of scanning the cache; the
+// orphaned entries age out through the region's own size and TTL limits.
+// Stamps are per node; bumps are handed to the invalidation publisher and other nodes apply
+// them with advance(). Remote-change listeners hear about those, for state that is kept up
+// to date from this node's own writes and has to catch up on the others'.
+@Component("entityVersionStamps")
+public class EntityVersionStamps {
+    private final Map<String, AtomicLong> stamps = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> remoteChangeListeners = new CopyOnWriteArrayList<>();
+    private volatile CacheInvalidationPublisher invalidationPublisher = CacheInvalidationPublisher.NONE;
+
+    public void setInvalidationPublisher(CacheInvalidationPublisher invalidationPublisher) {
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    // Called with the entity after a bump from another node, with null when every entity may
+    // have changed (missed notifications)
+    public void onRemoteChange(Consumer<String> listener) {
+        remoteChangeListeners.add(listener);
+    }
+
+    public long current(String entity) {
+        return counter(entity).get();
+    }
+
+    // Deferred to after commit inside a transaction, so a concurrent reader cannot cache
+    // pre-commit rows under the new stamp
+    public void bump(String entity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter(entity).incrementAndGet();
+                }
+            });
+        } else {
+            counter(entity).incrementAndGet();
+        }
+        invalidationPublisher.stampBumped(entity);
+    }
+
+    // Applies a bump made on another node; never re-published
+    public void advance(String entity) {
+        counter(entity).incrementAndGet();
+        remoteChangeListeners.forEach(listener -> listener.accept(entity));
+    }
+
+    // After missed notifications every stamp-keyed entry has to be treated as stale
+    public void advanceAll() {
+        stamps.values().forEach(AtomicLong::incrementAndGet);
+        remoteChangeListeners.forEach(listener -> listener.accept(null));
+    }
+
+    private AtomicLong counter(String entity) {
+        return stamps.computeIfAbsent(entity, name -> new AtomicLong());
+    }
+}
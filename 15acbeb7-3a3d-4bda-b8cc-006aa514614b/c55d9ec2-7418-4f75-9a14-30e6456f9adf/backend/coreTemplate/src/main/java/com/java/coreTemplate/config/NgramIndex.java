@@ -0,0 +1,198 @@
+package com.java.coreTemplate.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The rows of one small table with their searchable text, for InMemorySearch. Text is split
+// into lower-case words of letters and digits, like TextSearch.prefixQuery does, and every
+// word is posted under its pg_trgm-style trigrams ("  w", " wo", "wor", ..., "rd "). A query word
+// takes its candidates from its own trigrams, so both prefixes and misspellings find them.
+// Per query word and row the best of
+//   1                               the word itself
+//   0.5 + 0.5 * length / wordLength  a prefix of a word
+//   trigram similarity              when at least SIMILARITY_THRESHOLD (typos)
+// counts, times 0.8 for columns after the first (TextSearch weighs them B). A row needs every
+// query word to match; its score is the mean, in 0..1. Reads share a lock, writes take it alone.
+// This only approximates TextSearch's rank (ts_rank_cd, or word_similarity above 0.6), so
+// the two order, and at the edges match, rows differently; InMemorySearch keeps a cursor on
+// the source that issued it.
+final class NgramIndex {
+    static final float SIMILARITY_THRESHOLD = 0.4f;
+    private static final float SECONDARY_WEIGHT = 0.8f;
+
+    record Hit(Object id, float score, Object row) {
+    }
+
+    private record Document(Object row, Long version, List<String[]> columns) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparing(Hit::score).reversed()
+            .thenComparing(Hit::id, NgramIndex::compareIds);
+
+    private final Map<Object, Document> documents = new HashMap<>();
+    private final Map<String, Set<Object>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Keeps the current entry when it carries a newer version than row
+    void put(Object id, Object row, Long version, List<String> texts) {
+        List<String[]> columns = texts.stream().map(NgramIndex::words).toList();
+        lock.writeLock().lock();
+        try {
+            Document current = documents.get(id);
+            if (current != null) {
+                if (current.version() != null && version != null && current.version() > version) {
+                    return;
+                }
+                unpost(id, current);
+            }
+            Document document = new Document(row, version, columns);
+            documents.put(id, document);
+            for (String[] words : columns) {
+                for (String word : words) {
+                    for (String trigram : trigrams(word)) {
+                        postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Object id) {
+        lock.writeLock().lock();
+        try {
+            Document current = documents.remove(id);
+            if (current != null) {
+                unpost(id, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every matching row, best first, ties by id
+    List<Hit> search(String query) {
+        String[] queryWords = words(query);
+        if (queryWords.length == 0) {
+            return List.of();
+        }
+        queryWords = Arrays.copyOf(queryWords, Math.min(queryWords.length, TextSearch.MAX_WORDS));
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Object> candidates = new LinkedHashSet<>();
+            for (String trigram : trigrams(queryWords[0])) {
+                candidates.addAll(postings.getOrDefault(trigram, Set.of()));
+            }
+            for (Object id : candidates) {
+                Document document = documents.get(id);
+                float score = score(queryWords, document);
+                if (score > 0) {
+                    hits.add(new Hit(id, score, document.row()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private void unpost(Object id, Document document) {
+        for (String[] words : document.columns()) {
+            for (String word : words) {
+                for (String trigram : trigrams(word)) {
+                    Set<Object> ids = postings.get(trigram);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static float score(String[] queryWords, Document document) {
+        float total = 0;
+        for (String queryWord : queryWords) {
+            Set<String> queryTrigrams = trigrams(queryWord);
+            float best = 0;
+            for (int column = 0; column < document.columns().size(); column++) {
+                float weight = column == 0 ? 1 : SECONDARY_WEIGHT;
+                for (String word : document.columns().get(column)) {
+                    best = Math.max(best, weight * wordScore(queryWord, queryTrigrams, word));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total / queryWords.length;
+    }
+
+    private static float wordScore(String queryWord, Set<String> queryTrigrams, String word) {
+        if (word.equals(queryWord)) {
+            return 1;
+        }
+        if (word.startsWith(queryWord)) {
+            return 0.5f + 0.5f * queryWord.length() / word.length();
+        }
+        Set<String> wordTrigrams = trigrams(word);
+        int shared = 0;
+        for (String trigram : queryTrigrams) {
+            if (wordTrigrams.contains(trigram)) {
+                shared++;
+            }
+        }
+        float similarity = (float) shared / (queryTrigrams.size() + wordTrigrams.size() - shared);
+        return similarity >= SIMILARITY_THRESHOLD ? similarity : 0;
+    }
+
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    // As pg_trgm: two blanks before the word, one after
+    static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareIds(Object a, Object b) {
+        if (a instanceof Comparable<?> && a.getClass() == b.getClass()) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return Objects.toString(a).compareTo(Objects.toString(b));
+    }
+}
@@ -2,22 +2,46 @@ package com.java.coreTemplate.config;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.concurrent.ConcurrentHashMap;
+
+import java.time.Duration;
 
 @Service
 public class SessionAuthService {
-    private final ConcurrentHashMap<String, String> activeSessions = new ConcurrentHashMap<>();
+    private final SessionStore activeSessions;
+    private final int idleTimeoutSeconds;
+
+    public SessionAuthService(SessionStore activeSessions,
+                              @Value("${session.idle-timeout:30m}") Duration idleTimeout) {
+        this.activeSessions = activeSessions;
+        this.idleTimeoutSeconds = (int) idleTimeout.toSeconds();
+    }
 
     public String createSession(String userId, HttpServletRequest request) {
+        String sessionId = openSession(request);
+        request.getSession().setAttribute("userId", userId);
+        bindSession(sessionId, userId);
+        return sessionId;
+    }
+
+    // The container session and its cookie, for a login that completes later off the request
+    // thread (see bindSession). Until it is bound the id is not in the store, so AuthFilter
+    // rejects it. Must be called on the request thread, before the response is committed.
+    public String openSession(HttpServletRequest request) {
         HttpSession session = request.getSession(true);
-        session.setAttribute("userId", userId);
-        activeSessions.put(session.getId(), userId);
+        // Let the container drop its copy on the same idle timeout
+        session.setMaxInactiveInterval(idleTimeoutSeconds);
         return session.getId();
     }
 
+    // Only touches the store, so any thread may call it
+    public void bindSession(String sessionId, String userId) {
+        activeSessions.put(sessionId, userId);
+    }
+
     public boolean isValidSession(String sessionId) {
-        return activeSessions.containsKey(sessionId);
+        return activeSessions.touch(sessionId) != null;
     }
 
     public void invalidateSession(String sessionId, HttpServletRequest request) {
@@ -29,6 +53,6 @@ public class SessionAuthService {
     }
 
     public String getUserIdFromSession(String sessionId) {
-        return activeSessions.get(sessionId);
+        return activeSessions.touch(sessionId);
     }
 }
\ No newline at end of file
@@ -16,7 +16,10 @@ import java.util.Optional;
 @AllArgsConstructor
 public class ProjectConfigurationModuleProject1vbp_ {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: one nextval per 50 ids, so inserts can be sent in JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_configuration_module_seq")
+    @SequenceGenerator(name = "project_configuration_module_seq", sequenceName = "project_configuration_module_seq",
+            allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
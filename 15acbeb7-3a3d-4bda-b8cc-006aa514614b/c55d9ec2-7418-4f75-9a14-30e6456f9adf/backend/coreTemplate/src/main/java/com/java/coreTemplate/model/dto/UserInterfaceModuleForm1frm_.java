@@ -13,7 +13,10 @@ import lombok.*;
 @AllArgsConstructor
 public class UserInterfaceModuleForm1frm_ {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: one nextval per 50 ids, so inserts can be sent in JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_interface_module_seq")
+    @SequenceGenerator(name = "user_interface_module_seq", sequenceName = "user_interface_module_seq",
+            allocationSize = 50)
     private Long id;
 
     @Column(name = "module_name", nullable = false, length = 100)
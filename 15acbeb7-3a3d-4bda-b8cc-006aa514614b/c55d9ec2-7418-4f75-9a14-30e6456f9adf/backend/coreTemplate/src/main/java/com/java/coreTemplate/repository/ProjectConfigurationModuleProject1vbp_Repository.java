@@ -17,9 +17,6 @@ public interface ProjectConfigurationModuleProject1vbp_Repository extends
     // Find all active configurations
     List<ProjectConfigurationModuleProject1vbp_> findAllByIsActiveTrue();
     
-    // Find by name containing (case-insensitive)
-    List<ProjectConfigurationModuleProject1vbp_> findByNameContainingIgnoreCase(String namePart);
-    
     // Custom query with JPQL
     @Query("SELECT p FROM ProjectConfigurationModuleProject1vbp_ p WHERE p.version = :version AND p.isActive = true")
     List<ProjectConfigurationModuleProject1vbp_> findActiveByVersion(@Param("version") String version);
@@ -35,9 +32,10 @@ public interface ProjectConfigurationModuleProject1vbp_Repository extends
     // Exists check
     boolean existsByNameAndVersion(String name, String version);
     
-    // Delete by status
-    long deleteByIsActiveFalse();
-    
     // Count by version
     long countByVersion(String version);
+
+    // Version only, for conditional requests; leaves the rest of the row unread
+    @Query("SELECT p.version FROM ProjectConfigurationModuleProject1vbp_ p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -14,9 +14,6 @@ public interface UserInterfaceModuleForm1frm_Repository extends
     // Find by exact name match
     Optional<UserInterfaceModuleForm1frm_> findByName(String name);
     
-    // Find all records where name contains the given string (case-insensitive)
-    List<UserInterfaceModuleForm1frm_> findByNameContainingIgnoreCase(String namePart);
-    
     // Find all active records
     List<UserInterfaceModuleForm1frm_> findByIsActiveTrue();
     
@@ -32,14 +29,13 @@ public interface UserInterfaceModuleForm1frm_Repository extends
     @Query("SELECT new com.java.coreTemplate.model.dto.UserInterfaceModuleForm1frm_(f.id, f.name) FROM UserInterfaceModuleForm1frm_ f WHERE f.isActive = true")
     List<UserInterfaceModuleForm1frm_> findActiveFormsWithLimitedFields();
     
-    // Update query using @Modifying
-    @Modifying
-    @Query("UPDATE UserInterfaceModuleForm1frm_ f SET f.isActive = false WHERE f.createdDate < :cutoffDate")
-    int deactivateOldForms(@Param("cutoffDate") LocalDate cutoffDate);
-    
     // Exists query
     boolean existsByNameAndIsActiveTrue(String name);
     
     // Count query
     long countByIsActiveTrue();
+
+    // Version only, for conditional requests; leaves the rest of the row unread
+    @Query("SELECT f.version FROM UserInterfaceModuleForm1frm_ f WHERE f.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
\ No newline at end of file
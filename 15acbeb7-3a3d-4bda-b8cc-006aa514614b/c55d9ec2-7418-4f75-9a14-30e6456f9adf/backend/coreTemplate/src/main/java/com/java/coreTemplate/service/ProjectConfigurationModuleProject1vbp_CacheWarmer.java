@@ -0,0 +1,53 @@
+package com.java.coreTemplate.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import com.java.coreTemplate.config.CacheWarmer;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.model.dto.ProjectConfigurationModuleProject1vbp_;
+import com.java.coreTemplate.repository.ProjectConfigurationModuleProject1vbp_Repository;
+
+import java.util.List;
+
+// Startup warm-up: active and recently updated rows go into projectConfigs and the cached
+// findAll() list is filled; the list endpoint itself is replayed to warm up its code path.
+@Component
+public class ProjectConfigurationModuleProject1vbp_CacheWarmer implements CacheWarmer {
+    private final ProjectConfigurationModuleProject1vbp_Service service;
+    private final ProjectConfigurationModuleProject1vbp_Repository repository;
+    private final ModuleCacheManager cacheManager;
+
+    public ProjectConfigurationModuleProject1vbp_CacheWarmer(ProjectConfigurationModuleProject1vbp_Service service,
+                                                             ProjectConfigurationModuleProject1vbp_Repository repository,
+                                                             ModuleCacheManager cacheManager) {
+        this.service = service;
+        this.repository = repository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String name() {
+        return "projectConfigs";
+    }
+
+    @Override
+    public int warmUp(int recentRows) {
+        Cache cache = cacheManager.getCache("projectConfigs");
+        int loaded = CacheWarmer.putAll(cache, service.findAllActive(), ProjectConfigurationModuleProject1vbp_::getId);
+        if (recentRows > 0) {
+            List<ProjectConfigurationModuleProject1vbp_> recent = repository
+                    .findAll(PageRequest.of(0, recentRows, Sort.by(Sort.Direction.DESC, "updatedAt")))
+                    .getContent();
+            loaded += CacheWarmer.putAll(cache, recent, ProjectConfigurationModuleProject1vbp_::getId);
+        }
+        loaded += service.findAll().size();
+        return loaded;
+    }
+
+    @Override
+    public List<String> warmUpRequests() {
+        return List.of("/api/v1/project-configurations?page=0&size=20&sort=id");
+    }
+}
\ No newline at end of file
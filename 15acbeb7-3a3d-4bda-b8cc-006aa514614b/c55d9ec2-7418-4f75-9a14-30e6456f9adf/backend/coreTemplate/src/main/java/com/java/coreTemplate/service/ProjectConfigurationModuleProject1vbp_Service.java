@@ -1,30 +1,82 @@
 package com.java.coreTemplate.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.java.coreTemplate.repository.ProjectConfigurationModuleProject1vbp_Repository;
 import com.java.coreTemplate.model.dto.ProjectConfigurationModuleProject1vbp_;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.SparseFields;
+import com.java.coreTemplate.config.BulkMaintenance;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.ConditionalWrites;
+import com.java.coreTemplate.config.EntityVersionStamps;
+import com.java.coreTemplate.config.KeysetPager;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.config.TextSearch;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+// Cache regions: projectConfigs (by id) and projectConfigLists (findAll, keyed with the
+// entity's version stamp). Writes evict only the touched ids and bump the stamp.
 @Service
 @Transactional(readOnly = true)
 public class ProjectConfigurationModuleProject1vbp_Service {
+    private static final String ENTITY = "projectConfigs";
+    // Sort fields the cursor mode accepts besides the id; non-null columns only
+    private static final Set<String> SORTABLE = Set.of("name", "createdAt", "updatedAt");
+    // Columns indexed by db/search/*.sql for the /search endpoint
+    private static final TextSearch.Index SEARCH = new TextSearch.Index(ProjectConfigurationModuleProject1vbp_.class,
+            "project configuration module (project1.vbp)_", List.of("name", "description"));
 
     private final ProjectConfigurationModuleProject1vbp_Repository repository;
+    private final ModuleCacheManager cacheManager;
+    private final EntityVersionStamps versionStamps;
+    private final ConditionalWrites writes;
+    private final KeysetPager pager;
+    private final BulkWriter bulk;
+    private final BulkMaintenance maintenance;
+    private final TextSearch textSearch;
+    private final SparseFields sparseFields;
+    private final EntityImporter importer;
 
-    public ProjectConfigurationModuleProject1vbp_Service(ProjectConfigurationModuleProject1vbp_Repository repository) {
+    public ProjectConfigurationModuleProject1vbp_Service(ProjectConfigurationModuleProject1vbp_Repository repository,
+                                                         ModuleCacheManager cacheManager,
+                                                         EntityVersionStamps versionStamps,
+                                                         ConditionalWrites writes,
+                                                         KeysetPager pager,
+                                                         BulkWriter bulk,
+                                                         BulkMaintenance maintenance,
+                                                         TextSearch textSearch,
+                                                         SparseFields sparseFields,
+                                                         EntityImporter importer) {
         this.repository = repository;
+        this.cacheManager = cacheManager;
+        this.versionStamps = versionStamps;
+        this.writes = writes;
+        this.pager = pager;
+        this.bulk = bulk;
+        this.maintenance = maintenance;
+        this.textSearch = textSearch;
+        this.sparseFields = sparseFields;
+        this.importer = importer;
     }
 
     @Transactional
-    @CacheEvict(value = "projectConfigs", allEntries = true)
     public ProjectConfigurationModuleProject1vbp_ save(ProjectConfigurationModuleProject1vbp_ entity) {
-        return repository.save(entity);
+        ProjectConfigurationModuleProject1vbp_ saved = repository.save(entity);
+        cacheManager.evict("projectConfigs", saved.getId());
+        versionStamps.bump(ENTITY);
+        return saved;
     }
 
     @Cacheable(value = "projectConfigs", key = "#id")
@@ -32,7 +84,7 @@ public class ProjectConfigurationModuleProject1vbp_Service {
         return repository.findById(id);
     }
 
-    @Cacheable("projectConfigs")
+    @Cacheable(value = "projectConfigLists", key = "'all:' + @entityVersionStamps.current('projectConfigs')")
     public List<ProjectConfigurationModuleProject1vbp_> findAll() {
         return repository.findAll();
     }
@@ -41,23 +93,123 @@ public class ProjectConfigurationModuleProject1vbp_Service {
         return repository.findAll(pageable);
     }
 
+    // Cursor mode of the list endpoint: a keyset query without COUNT(*), see KeysetPager
+    public CursorPage<ProjectConfigurationModuleProject1vbp_> findPage(String after, int limit, Sort sort) {
+        return pager.page(ProjectConfigurationModuleProject1vbp_.class, after, limit, sort, SORTABLE);
+    }
+
+    // Prefix and fuzzy matches ranked by relevance, keyset paged; see TextSearch
+    public CursorPage<ProjectConfigurationModuleProject1vbp_> search(String query, String after, int limit) {
+        return textSearch.search(SEARCH, query, after, limit);
+    }
+
+    // ?fields= variants of findAll, findPage and search: only the selected columns are read and
+    // returned, see SparseFields
+    public Page<SparseFields.Row> findAll(Pageable pageable, String fields) {
+        return sparseFields.page(sparseFields.select(ProjectConfigurationModuleProject1vbp_.class, fields), pageable);
+    }
+
+    public CursorPage<SparseFields.Row> findPage(String after, int limit, Sort sort, String fields) {
+        return pager.page(ProjectConfigurationModuleProject1vbp_.class, after, limit, sort, SORTABLE,
+                sparseFields.select(ProjectConfigurationModuleProject1vbp_.class, fields));
+    }
+
+    public CursorPage<SparseFields.Row> search(String query, String after, int limit, String fields) {
+        return textSearch.search(SEARCH, query, after, limit,
+                sparseFields.select(ProjectConfigurationModuleProject1vbp_.class, fields));
+    }
+
     public List<ProjectConfigurationModuleProject1vbp_> findAllActive() {
         return repository.findByIsActiveTrue();
     }
 
     @Transactional
-    @CacheEvict(value = "projectConfigs", key = "#id")
     public void deleteById(Long id) {
         repository.deleteById(id);
+        cacheManager.evict("projectConfigs", id);
+        versionStamps.bump(ENTITY);
     }
 
     @Transactional
-    @CacheEvict(value = "projectConfigs", allEntries = true)
     public List<ProjectConfigurationModuleProject1vbp_> saveAll(List<ProjectConfigurationModuleProject1vbp_> entities) {
-        return repository.saveAll(entities);
+        List<ProjectConfigurationModuleProject1vbp_> saved = repository.saveAll(entities);
+        saved.forEach(entity -> cacheManager.evict("projectConfigs", entity.getId()));
+        versionStamps.bump(ENTITY);
+        return saved;
     }
 
     public boolean existsById(Long id) {
         return repository.existsById(id);
     }
+
+    // Version for conditional requests: taken from projectConfigs when the row is cached there,
+    // otherwise from a single-column query
+    public Optional<Long> findVersion(Long id) {
+        ProjectConfigurationModuleProject1vbp_ cached = cacheManager.peek("projectConfigs", id, ProjectConfigurationModuleProject1vbp_.class);
+        return cached != null ? Optional.ofNullable(cached.getVersion()) : repository.findVersionById(id);
+    }
+
+    // PUT/PATCH/DELETE as one conditional statement, see ConditionalWrites. expectedVersion
+    // comes from If-Match; null accepts any version. Evictions apply once the transaction commits.
+    @Transactional
+    public ConditionalWrites.Result conditionalUpdate(Long id, Long expectedVersion, ProjectConfigurationModuleProject1vbp_ values) {
+        return invalidated(id, writes.update(ProjectConfigurationModuleProject1vbp_.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalPatch(Long id, Long expectedVersion, ProjectConfigurationModuleProject1vbp_ values) {
+        return invalidated(id, writes.patch(ProjectConfigurationModuleProject1vbp_.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalDelete(Long id, Long expectedVersion) {
+        return invalidated(id, writes.delete(ProjectConfigurationModuleProject1vbp_.class, id, expectedVersion));
+    }
+
+    // Array POST/PUT in chunked transactions, see BulkWriter. Not run inside the class's
+    // read-only transaction, so every chunk commits on its own; caches are invalidated after
+    // each commit
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result createAll(List<ProjectConfigurationModuleProject1vbp_> entities) {
+        return bulk.insert(ProjectConfigurationModuleProject1vbp_.class, entities,
+                rows -> versionStamps.bump(ENTITY));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result updateAll(List<ProjectConfigurationModuleProject1vbp_> entities) {
+        return bulk.update(ProjectConfigurationModuleProject1vbp_.class, entities, rows -> {
+            cacheManager.evictAll("projectConfigs",
+                    rows.stream().map(ProjectConfigurationModuleProject1vbp_::getId).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    // See EntityImporter; every committed batch is handled as a createAll() chunk
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EntityImporter.Report importRows(String format, InputStream body) throws IOException {
+        return importer.importRows(ProjectConfigurationModuleProject1vbp_.class, "projectConfigs", format, body,
+                rows -> versionStamps.bump(ENTITY));
+    }
+
+    // Deletes inactive rows in chunks on the maintenance thread, see BulkMaintenance
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkMaintenance.Progress purgeInactive() {
+        return maintenance.start("projectConfigs.purgeInactive", ProjectConfigurationModuleProject1vbp_.class,
+                BulkMaintenance.Operation.delete("e.isActive = false", Map.of()),
+                this::chunkCommitted);
+    }
+
+    private ConditionalWrites.Result invalidated(Long id, ConditionalWrites.Result result) {
+        if (result.applied()) {
+            cacheManager.evict("projectConfigs", id, result.version());
+            versionStamps.bump(ENTITY);
+        }
+        return result;
+    }
+
+    // After every committed maintenance chunk
+    private void chunkCommitted(List<Object> ids) {
+        cacheManager.evictAll("projectConfigs", ids);
+        versionStamps.bump(ENTITY);
+    }
 }
\ No newline at end of file
@@ -1,23 +1,68 @@
 package com.java.coreTemplate.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.java.coreTemplate.repository.UserInterfaceModuleForm1frm_Repository;
 import com.java.coreTemplate.model.dto.UserInterfaceModuleForm1frm_;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.SparseFields;
+import com.java.coreTemplate.config.BulkMaintenance;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.ConditionalWrites;
+import com.java.coreTemplate.config.KeysetPager;
+import com.java.coreTemplate.config.InMemorySearch;
+import com.java.coreTemplate.config.TextSearch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
 public class UserInterfaceModuleForm1frm_Service {
 
+    // Sort fields the cursor mode accepts besides the id; non-null columns only
+    private static final Set<String> SORTABLE = Set.of("moduleName", "createdAt");
+    // Columns indexed by db/search/*.sql for the /search endpoint
+    private static final TextSearch.Index SEARCH = new TextSearch.Index(UserInterfaceModuleForm1frm_.class,
+            "user interface module (form1.frm)_", List.of("module_name", "description"));
+
     private final UserInterfaceModuleForm1frm_Repository repository;
+    private final ConditionalWrites writes;
+    private final KeysetPager pager;
+    private final BulkWriter bulk;
+    private final BulkMaintenance maintenance;
+    private final InMemorySearch inMemorySearch;
+    private final SparseFields sparseFields;
+    private final EntityImporter importer;
 
     // Constructor injection (recommended over field injection)
-    public UserInterfaceModuleForm1frm_Service(UserInterfaceModuleForm1frm_Repository repository) {
+    public UserInterfaceModuleForm1frm_Service(UserInterfaceModuleForm1frm_Repository repository,
+                                               ConditionalWrites writes,
+                                               KeysetPager pager,
+                                               BulkWriter bulk,
+                                               BulkMaintenance maintenance,
+                                               InMemorySearch inMemorySearch,
+                                               SparseFields sparseFields,
+                                               EntityImporter importer) {
         this.repository = repository;
+        this.writes = writes;
+        this.pager = pager;
+        this.bulk = bulk;
+        this.maintenance = maintenance;
+        this.inMemorySearch = inMemorySearch;
+        this.sparseFields = sparseFields;
+        this.importer = importer;
+        // No version stamp: other nodes' writes reach the index with the periodic rebuild
+        inMemorySearch.register(SEARCH, null);
     }
 
     @Transactional
@@ -42,6 +87,33 @@ public class UserInterfaceModuleForm1frm_Service {
         return repository.findAll(pageable);
     }
 
+    // Cursor mode of the list endpoint: a keyset query without COUNT(*), see KeysetPager
+    public CursorPage<UserInterfaceModuleForm1frm_> findPage(String after, int limit, Sort sort) {
+        return pager.page(UserInterfaceModuleForm1frm_.class, after, limit, sort, SORTABLE);
+    }
+
+    // Prefix and fuzzy matches ranked by relevance, keyset paged; from memory when the table is
+    // opted in to InMemorySearch, otherwise see TextSearch
+    public CursorPage<UserInterfaceModuleForm1frm_> search(String query, String after, int limit) {
+        return inMemorySearch.search(SEARCH, query, after, limit);
+    }
+
+    // ?fields= variants of findAll, findPage and search: only the selected columns are read and
+    // returned, see SparseFields
+    public Page<SparseFields.Row> findAll(Pageable pageable, String fields) {
+        return sparseFields.page(sparseFields.select(UserInterfaceModuleForm1frm_.class, fields), pageable);
+    }
+
+    public CursorPage<SparseFields.Row> findPage(String after, int limit, Sort sort, String fields) {
+        return pager.page(UserInterfaceModuleForm1frm_.class, after, limit, sort, SORTABLE,
+                sparseFields.select(UserInterfaceModuleForm1frm_.class, fields));
+    }
+
+    public CursorPage<SparseFields.Row> search(String query, String after, int limit, String fields) {
+        return inMemorySearch.search(SEARCH, query, after, limit,
+                sparseFields.select(UserInterfaceModuleForm1frm_.class, fields));
+    }
+
     @Transactional
     public void deleteById(Long id) {
         repository.deleteById(id);
@@ -70,4 +142,62 @@ public class UserInterfaceModuleForm1frm_Service {
     public boolean existsById(Long id) {
         return repository.existsById(id);
     }
+
+    // Version for conditional requests, without loading the row
+    public Optional<Long> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    // PUT/PATCH/DELETE as one conditional statement, see ConditionalWrites. expectedVersion
+    // comes from If-Match; null accepts any version. The search index reloads the row once the
+    // transaction commits.
+    @Transactional
+    public ConditionalWrites.Result conditionalUpdate(Long id, Long expectedVersion, UserInterfaceModuleForm1frm_ values) {
+        return refreshed(id, writes.update(UserInterfaceModuleForm1frm_.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalPatch(Long id, Long expectedVersion, UserInterfaceModuleForm1frm_ values) {
+        return refreshed(id, writes.patch(UserInterfaceModuleForm1frm_.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalDelete(Long id, Long expectedVersion) {
+        return refreshed(id, writes.delete(UserInterfaceModuleForm1frm_.class, id, expectedVersion));
+    }
+
+    // Array POST/PUT in chunked transactions, see BulkWriter. Not run inside the class's
+    // read-only transaction, so every chunk commits on its own. Nothing of this module is
+    // cached, so there is nothing to invalidate
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result createAll(List<UserInterfaceModuleForm1frm_> entities) {
+        return bulk.insert(UserInterfaceModuleForm1frm_.class, entities, rows -> { });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result updateAll(List<UserInterfaceModuleForm1frm_> entities) {
+        return bulk.update(UserInterfaceModuleForm1frm_.class, entities, rows -> { });
+    }
+
+    // See EntityImporter; every committed batch is handled as a createAll() chunk
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EntityImporter.Report importRows(String format, InputStream body) throws IOException {
+        return importer.importRows(UserInterfaceModuleForm1frm_.class, "userInterfaceForms", format, body, rows -> { });
+    }
+
+    // Deactivates active rows last created before cutoff, in chunks on the maintenance thread
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkMaintenance.Progress deactivateStale(Instant cutoff) {
+        return maintenance.start("userInterfaceForms.deactivateStale", UserInterfaceModuleForm1frm_.class,
+                BulkMaintenance.Operation.update("e.isActive = false, e.updatedAt = :now",
+                        "e.isActive = true AND e.createdAt < :cutoff", Map.of("cutoff", cutoff, "now", Instant.now())),
+                ids -> inMemorySearch.refresh(UserInterfaceModuleForm1frm_.class, ids));
+    }
+
+    private ConditionalWrites.Result refreshed(Long id, ConditionalWrites.Result result) {
+        if (result.applied()) {
+            inMemorySearch.refresh(UserInterfaceModuleForm1frm_.class, List.of(id));
+        }
+        return result;
+    }
 }
\ No newline at end of file
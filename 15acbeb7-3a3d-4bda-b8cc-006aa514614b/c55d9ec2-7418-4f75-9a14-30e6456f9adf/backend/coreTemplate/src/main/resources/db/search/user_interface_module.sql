@@ -0,0 +1,17 @@
+-- Search indexes of UserInterfaceModuleForm1frm_ (see TextSearch). Adding the generated column rewrites the
+-- table once; on large tables run this script by hand in a maintenance window first, after
+-- which every start finds everything in place. CREATE EXTENSION needs a role allowed to
+-- create it (pg_trgm is a trusted extension from PostgreSQL 13 on).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Word prefixes: to_tsquery('simple', 'w1:* & w2:*') against the GIN index
+ALTER TABLE "user interface module (form1.frm)_" ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(module_name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS user_interface_module_search_vector_idx ON "user interface module (form1.frm)_" USING gin (search_vector);
+
+-- Typo-tolerant matches: lower(:term) <% lower(column)
+CREATE INDEX IF NOT EXISTS user_interface_module_module_name_trgm_idx ON "user interface module (form1.frm)_" USING gin (lower(module_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS user_interface_module_description_trgm_idx ON "user interface module (form1.frm)_" USING gin (lower(description) gin_trgm_ops);
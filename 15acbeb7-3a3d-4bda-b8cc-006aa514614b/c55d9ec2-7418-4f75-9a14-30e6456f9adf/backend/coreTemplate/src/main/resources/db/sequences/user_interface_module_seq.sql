@@ -0,0 +1,8 @@
+-- Id sequence of UserInterfaceModuleForm1frm_. INCREMENT BY must equal the entity's allocationSize:
+-- Hibernate's pooled optimizer hands out the 50 ids up to each value nextval returns.
+CREATE SEQUENCE IF NOT EXISTS user_interface_module_seq START WITH 1 INCREMENT BY 50;
+
+-- Moves the sequence past ids the former identity column already handed out. It only ever
+-- moves forward, so running this on every start is safe while other nodes hold id blocks.
+SELECT setval('user_interface_module_seq', (SELECT MAX(id) FROM "user interface module (form1.frm)_"))
+WHERE (SELECT MAX(id) FROM "user interface module (form1.frm)_") >= (SELECT last_value FROM user_interface_module_seq);
@@ -0,0 +1,93 @@
+package com.java.coreTemplate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.coreTemplate.config.JsonResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// GET /{id} of an unchanged row through the MVC stack: "full" is a client without a copy
+// (200 with the body from JsonResponseCache), "notModified" revalidates with If-None-Match
+// (304, no body). The row carries a 20 KB configurationJson like the project configurations
+// the mobile clients poll; setUp prints the bytes each variant puts on the wire. Database
+// time is not included: in production "full" also reads the row, "notModified" only its version.
+// Run main() from the IDE, or org.openjdk.jmh.Main ConditionalGetBenchmark on the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionalGetBenchmark {
+	private MockMvc mockMvc;
+	private String etag;
+
+	public record Config(Long id, String name, String configurationJson, Long version) {
+	}
+
+	@RestController
+	public static class ConfigController {
+		private final JsonResponseCache responseCache;
+		private final Config row;
+
+		ConfigController(JsonResponseCache responseCache, Config row) {
+			this.responseCache = responseCache;
+			this.row = row;
+		}
+
+		@GetMapping("/configs/{id}")
+		public ResponseEntity<byte[]> getById(@PathVariable Long id,
+				@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+			return responseCache.get("configs", id, ifNoneMatch,
+					() -> Optional.of(row.version()), () -> Optional.of(row), Config::version);
+		}
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		JsonResponseCache responseCache = new JsonResponseCache(new ObjectMapper(), new SimpleMeterRegistry(),
+				true, DataSize.ofMegabytes(16), Duration.ofMinutes(30));
+		Config row = new Config(1L, "mobile", "{\"setting\":\"" + "x".repeat(20_000) + "\"}", 4L);
+		mockMvc = MockMvcBuilders.standaloneSetup(new ConfigController(responseCache, row)).build();
+
+		MvcResult full = mockMvc.perform(get("/configs/1")).andReturn();
+		etag = full.getResponse().getHeader(HttpHeaders.ETAG);
+		MvcResult notModified = mockMvc.perform(get("/configs/1").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+		System.out.printf("full: %d, %d body bytes; notModified: %d, %d body bytes%n",
+				full.getResponse().getStatus(), full.getResponse().getContentAsByteArray().length,
+				notModified.getResponse().getStatus(), notModified.getResponse().getContentAsByteArray().length);
+	}
+
+	@Benchmark
+	public int full() throws Exception {
+		return mockMvc.perform(get("/configs/1")).andReturn().getResponse().getContentLength();
+	}
+
+	@Benchmark
+	public int notModified() throws Exception {
+		return mockMvc.perform(get("/configs/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andReturn().getResponse().getStatus();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ConditionalGetBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,55 @@
+package com.java.coreTemplate.benchmark;
+
+import com.java.coreTemplate.config.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Logins per second one node can verify at each bcrypt cost, with the hashing pool
+// sized to the CPU count and one caller per core keeping it busy.
+// Run main() from the IDE, or org.openjdk.jmh.Main PasswordHashBenchmark on the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(Threads.MAX)
+public class PasswordHashBenchmark {
+	@Param({"8", "10", "12"})
+	private int cost;
+
+	private PasswordHasher hasher;
+	private String storedHash;
+
+	@Setup
+	public void setUp() {
+		int cpus = Runtime.getRuntime().availableProcessors();
+		hasher = new PasswordHasher(cost, cpus, cpus * 4, Duration.ofMinutes(1), new SimpleMeterRegistry());
+		storedHash = hasher.hash("correct horse battery staple");
+	}
+
+	@TearDown
+	public void tearDown() {
+		hasher.shutdown();
+	}
+
+	@Benchmark
+	public boolean verify() {
+		return hasher.matches("correct horse battery staple", storedHash);
+	}
+
+	@Benchmark
+	public String hash() {
+		return hasher.hash("correct horse battery staple");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PasswordHashBenchmark.class.getSimpleName()).build()).run();
+	}
+}
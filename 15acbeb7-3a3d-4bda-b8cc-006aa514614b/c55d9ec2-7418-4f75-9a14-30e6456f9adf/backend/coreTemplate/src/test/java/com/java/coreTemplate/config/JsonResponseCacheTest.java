@@ -0,0 +1,136 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonResponseCacheTest {
+	private final AtomicInteger serializations = new AtomicInteger();
+	private final ObjectMapper objectMapper = new ObjectMapper() {
+		@Override
+		public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+			serializations.incrementAndGet();
+			return super.writeValueAsBytes(value);
+		}
+	};
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	record Row(Long id, String name, Long version) {
+	}
+
+	private JsonResponseCache cache(DataSize maxSize) {
+		return new JsonResponseCache(objectMapper, registry, true, maxSize, Duration.ofMinutes(30));
+	}
+
+	@Test
+	void aVersionIsSerializedOnceAndServedAsJson() {
+		JsonResponseCache cache = cache(DataSize.ofMegabytes(1));
+		Row row = new Row(1L, "acme", 3L);
+
+		ResponseEntity<byte[]> first = cache.ok("billing", 1L, 3L, row);
+		ResponseEntity<byte[]> second = cache.ok("billing", 1L, 3L, row);
+
+		assertEquals(1, serializations.get());
+		assertSame(first.getBody(), second.getBody());
+		assertEquals(MediaType.APPLICATION_JSON, second.getHeaders().getContentType());
+		assertEquals("{\"id\":1,\"name\":\"acme\",\"version\":3}", new String(second.getBody(), StandardCharsets.UTF_8));
+		assertEquals(second.getBody().length, registry.get("response.cache.bytes.served").counter().count());
+	}
+
+	@Test
+	void aNewVersionOrAnotherEntityIsSerializedAgain() {
+		JsonResponseCache cache = cache(DataSize.ofMegabytes(1));
+
+		cache.bytes("billing", 1L, 3L, new Row(1L, "acme", 3L));
+		byte[] updated = cache.bytes("billing", 1L, 4L, new Row(1L, "acme corp", 4L));
+		cache.bytes("modules", 1L, 3L, new Row(1L, "acme", 3L));
+
+		assertEquals(3, serializations.get());
+		assertTrue(new String(updated, StandardCharsets.UTF_8).contains("acme corp"));
+	}
+
+	@Test
+	void rowsWithoutAVersionAreNeverCached() {
+		JsonResponseCache cache = cache(DataSize.ofMegabytes(1));
+
+		cache.bytes("billing", 1L, null, new Row(1L, "acme", null));
+		cache.bytes("billing", 1L, null, new Row(1L, "acme", null));
+
+		assertEquals(2, serializations.get());
+		assertEquals(0, cache.weightedSize());
+	}
+
+	@Test
+	void theMemoryBudgetBoundsTheBytesHeld() {
+		JsonResponseCache cache = cache(DataSize.ofKilobytes(8));
+		String large = "x".repeat(1000);
+
+		for (long id = 0; id < 100; id++) {
+			cache.bytes("projectConfigs", id, 1L, new Row(id, large, 1L));
+		}
+
+		assertTrue(cache.weightedSize() <= DataSize.ofKilobytes(8).toBytes(), "held " + cache.weightedSize());
+		assertTrue(registry.get("response.cache.bytes").gauge().value() > 0);
+	}
+
+	@Test
+	void aMatchingIfNoneMatchIsAnsweredWithoutLoadingTheRow() {
+		JsonResponseCache cache = cache(DataSize.ofMegabytes(1));
+		AtomicInteger rowLoads = new AtomicInteger();
+		Supplier<Optional<Row>> row = () -> {
+			rowLoads.incrementAndGet();
+			return Optional.of(new Row(7L, "acme", 3L));
+		};
+
+		ResponseEntity<byte[]> first = cache.get("billing", 7L, null, () -> Optional.of(3L), row, Row::version);
+		ResponseEntity<byte[]> unchanged = cache.get("billing", 7L, "W/\"1-1\", " + first.getHeaders().getETag(),
+				() -> Optional.of(3L), row, Row::version);
+
+		assertEquals("\"7-3\"", first.getHeaders().getETag());
+		assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+		assertEquals("\"7-3\"", unchanged.getHeaders().getETag());
+		assertNull(unchanged.getBody());
+		assertEquals(1, rowLoads.get());
+		assertEquals(1, registry.get("response.not.modified").counter().count());
+	}
+
+	@Test
+	void aStaleOrMissingTagGetsTheCurrentBody() {
+		JsonResponseCache cache = cache(DataSize.ofMegabytes(1));
+
+		ResponseEntity<byte[]> stale = cache.get("billing", 7L, "\"7-2\"", () -> Optional.of(3L),
+				() -> Optional.of(new Row(7L, "acme", 3L)), Row::version);
+		ResponseEntity<byte[]> gone = cache.get("billing", 8L, "\"8-1\"", Optional::empty,
+				Optional::<Row>empty, Row::version);
+
+		assertEquals(HttpStatus.OK, stale.getStatusCode());
+		assertEquals("\"7-3\"", stale.getHeaders().getETag());
+		assertEquals(HttpStatus.NOT_FOUND, gone.getStatusCode());
+	}
+
+	@Test
+	void ifNoneMatchComparesTagsWeakly() {
+		String tag = EntityTags.of(7L, 3L);
+
+		assertTrue(EntityTags.matches("\"7-3\"", tag));
+		assertTrue(EntityTags.matches("W/\"7-3\"", tag));
+		assertTrue(EntityTags.matches("\"7-2\", \"7-3\"", tag));
+		assertTrue(EntityTags.matches("*", tag));
+		assertFalse(EntityTags.matches("\"7-2\"", tag));
+		assertFalse(EntityTags.matches("\"17-3\"", tag));
+		assertFalse(EntityTags.matches(null, tag));
+	}
+}
@@ -7,9 +7,11 @@ import java.io.IOException;
 
 public class AuthFilter implements Filter {
     private final SessionAuthService sessionAuthService;
+    private final VerifiedTokenCache tokenCache;
 
-    public AuthFilter(SessionAuthService sessionAuthService) {
+    public AuthFilter(SessionAuthService sessionAuthService, VerifiedTokenCache tokenCache) {
         this.sessionAuthService = sessionAuthService;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -21,14 +23,14 @@ public class AuthFilter implements Filter {
         // Check for JWT token in header
         String jwtToken = httpRequest.getHeader("Authorization");
 
-        // Check for session cookie
-        String sessionId = httpRequest.getSession(false) != null ?
-                httpRequest.getSession(false).getId() : null;
+        // Check for session cookie. The id the client sent, not the container's session: on a node
+        // other than the one that created it there is no local HttpSession, only the shared store
+        String sessionId = httpRequest.getRequestedSessionId();
 
         if (jwtToken != null && jwtToken.startsWith("Bearer ")) {
             // JWT-based authentication
             String token = jwtToken.substring(7);
-            if (JwtTokenUtil.validateToken(token)) {
+            if (tokenCache.verify(token) != null) {
                 chain.doFilter(request, response);
                 return;
             }
@@ -0,0 +1,8 @@
+package com.java.coreTemplate.config;
+
+import java.util.List;
+
+// One page of a keyset (cursor) listing. next is passed back as ?after= to get the following
+// page and is null on the last one; there is no total, so no COUNT(*) is ever run.
+public record CursorPage<T>(List<T> content, int limit, boolean hasNext, String next) {
+}
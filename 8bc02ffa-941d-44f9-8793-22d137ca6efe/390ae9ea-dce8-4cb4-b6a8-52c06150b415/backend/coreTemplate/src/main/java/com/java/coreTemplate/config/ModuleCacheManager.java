@@ -0,0 +1,191 @@
+package com.java.coreTemplate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Caffeine-backed manager for the module service caches. Every cache is built on first
+// use from its CacheSpecs entry (size-bounded caches get Caffeine's W-TinyLFU admission),
+// records stats and is bound to Micrometer as cache.gets{result=hit|miss},
+// cache.evictions, cache.size and cache.load.duration, tagged with the cache name.
+// refresh-after-write needs to know how to reload a key, so it is only applied to caches
+// whose owning service registered a reloader before the cache was first used. Spring also
+// asks that loader on a plain miss, so a reloader must cover every key shape stored in its
+// cache; returning null falls back to invoking the annotated method.
+// Caches are handed out transaction-aware: puts and evictions made inside a transaction
+// are applied after it commits. Misses through @Cacheable(sync = true) are coalesced per key,
+// see CoalescingCaffeineCache.
+// Regions marked shared get a second level from the sharedCacheManager bean when one is
+// defined (see TwoLevelCache). evict() and clear() are also handed to the invalidation
+// publisher so other nodes drop their L1 copy; evictLocal/clearLocal apply such remote
+// invalidations. An eviction can name the row's version after the write, so that reads which
+// started before it cannot put the old row back (see CoalescingCaffeineCache).
+@Slf4j
+public class ModuleCacheManager extends CaffeineCacheManager {
+    static final Duration DEFAULT_LOAD_WAIT_TIMEOUT = Duration.ofSeconds(2);
+    // Past this many keys evictAll() drops the region: one invalidation instead of one per key
+    static final int EVICT_ALL_LIMIT = 256;
+
+    private final CacheSpecs cacheSpecs;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Function<Object, Object>> reloaders = new ConcurrentHashMap<>();
+    private final Map<String, org.springframework.cache.Cache> transactionAwareCaches = new ConcurrentHashMap<>();
+    private CacheManager sharedCacheManager;
+    private volatile CacheInvalidationPublisher invalidationPublisher = CacheInvalidationPublisher.NONE;
+
+    public ModuleCacheManager(CacheSpecs cacheSpecs, MeterRegistry meterRegistry) {
+        this.cacheSpecs = cacheSpecs;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // reloader maps a key to its fresh value, or null when the row is gone
+    public void registerReloader(String cacheName, Function<Object, Object> reloader) {
+        reloaders.put(cacheName, reloader);
+    }
+
+    public void setSharedCacheManager(CacheManager sharedCacheManager) {
+        this.sharedCacheManager = sharedCacheManager;
+    }
+
+    public void setInvalidationPublisher(CacheInvalidationPublisher invalidationPublisher) {
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public org.springframework.cache.Cache getCache(String name) {
+        org.springframework.cache.Cache cache = transactionAwareCaches.get(name);
+        if (cache == null) {
+            org.springframework.cache.Cache local = super.getCache(name);
+            if (local == null) {
+                return null;
+            }
+            org.springframework.cache.Cache shared = Boolean.TRUE.equals(cacheSpecs.resolve(name).getShared())
+                    && sharedCacheManager != null ? sharedCacheManager.getCache(name) : null;
+            org.springframework.cache.Cache target = shared != null ? new TwoLevelCache(local, shared) : local;
+            cache = transactionAwareCaches.computeIfAbsent(name, n -> new TransactionAwareCacheDecorator(target));
+        }
+        return cache;
+    }
+
+    // Programmatic eviction for write paths that know exactly which keys they touched
+    public void evict(String cacheName, Object key) {
+        evict(cacheName, key, null);
+    }
+
+    // version is the row's @Version after the write, or null when unknown
+    public void evict(String cacheName, Object key, Long version) {
+        org.springframework.cache.Cache cache = getCache(cacheName);
+        if (cache != null && key != null) {
+            // The eviction itself waits for the commit; the floor applies at once, so a read
+            // in between cannot cache the old row either. A rollback costs a few uncached reads
+            ((CoalescingCaffeineCache) super.getCache(cacheName)).raiseFloor(key, version);
+            cache.evict(key);
+            invalidationPublisher.evicted(cacheName, key, version);
+        }
+    }
+
+    // Drops a whole region, for writes that cannot name every key they invalidate
+    public void clear(String cacheName) {
+        org.springframework.cache.Cache cache = getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+            invalidationPublisher.cleared(cacheName);
+        }
+    }
+
+    // Keys touched by a bulk write
+    public void evictAll(String cacheName, Collection<?> keys) {
+        if (keys.size() > EVICT_ALL_LIMIT) {
+            clear(cacheName);
+        } else {
+            keys.forEach(key -> evict(cacheName, key));
+        }
+    }
+
+    // Cached L1 value without loading it on a miss; null when absent. Reads the native cache
+    // with getIfPresent: Spring's lookup calls LoadingCache.get on a region with a reloader,
+    // which would load the row, and a TwoLevelCache would go on to the shared level
+    public <T> T peek(String cacheName, Object key, Class<T> type) {
+        org.springframework.cache.Cache cache = key != null ? super.getCache(cacheName) : null;
+        if (cache == null) {
+            return null;
+        }
+        Object stored = ((CaffeineCache) cache).getNativeCache().getIfPresent(key);
+        return type.isInstance(stored) ? type.cast(stored) : null;
+    }
+
+    // Drops an L1 entry right away, without touching the shared level or notifying anyone
+    public void evictLocal(String cacheName, Object key) {
+        evictLocal(cacheName, key, null);
+    }
+
+    public void evictLocal(String cacheName, Object key, Long version) {
+        if (getCacheNames().contains(cacheName)) {
+            ((CoalescingCaffeineCache) super.getCache(cacheName)).evict(key, version);
+        }
+    }
+
+    public void clearLocal(String cacheName) {
+        if (getCacheNames().contains(cacheName)) {
+            super.getCache(cacheName).clear();
+        }
+    }
+
+    public void clearLocal() {
+        getCacheNames().forEach(this::clearLocal);
+    }
+
+    @Override
+    protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+        Duration loadWaitTimeout = cacheSpecs.resolve(name).getLoadWaitTimeout();
+        return new CoalescingCaffeineCache(name, cache, isAllowNullValues(),
+                loadWaitTimeout != null ? loadWaitTimeout : DEFAULT_LOAD_WAIT_TIMEOUT, meterRegistry);
+    }
+
+    @Override
+    protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+        CacheSpecs.Spec spec = cacheSpecs.resolve(name);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+
+        Cache<Object, Object> cache;
+        Function<Object, Object> reloader = reloaders.get(name);
+        if (spec.getRefreshAfterWrite() != null && reloader != null) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+            cache = builder.build(new CacheLoader<Object, Object>() {
+                @Override
+                public Object load(Object key) {
+                    return reloader.apply(key);
+                }
+            });
+        } else {
+            if (spec.getRefreshAfterWrite() != null) {
+                log.warn("Cache '{}' has refresh-after-write configured but no reloader; entries will only expire", name);
+            }
+            cache = builder.build();
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return cache;
+    }
+}
@@ -0,0 +1,39 @@
+package com.java.coreTemplate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+// Keys for the "pages" cache region, used from @Cacheable SpEL:
+//   @Cacheable(value = "pages", key = "@pageCacheKeys.of('billing', #pageable)",
+//              condition = "@pageCacheKeys.cacheable(#pageable)")
+// A key is (entity, page, size, sort, filter, stamp); the entity's version stamp makes every
+// page cached before a write unreachable, so writes never have to scan the region.
+// Only the first max-page pages are cached, deeper pages are rarely requested twice.
+@Component("pageCacheKeys")
+public class PageCacheKeys {
+    private final EntityVersionStamps versionStamps;
+    private final int maxPage;
+
+    public PageCacheKeys(EntityVersionStamps versionStamps,
+                         @Value("${caches.page-cache.max-page:5}") int maxPage) {
+        this.versionStamps = versionStamps;
+        this.maxPage = maxPage;
+    }
+
+    public record PageKey(String entity, int page, int size, String sort, Object filter, long stamp) {
+    }
+
+    public boolean cacheable(Pageable pageable) {
+        return pageable != null && pageable.isPaged() && pageable.getPageNumber() < maxPage;
+    }
+
+    public PageKey of(String entity, Pageable pageable) {
+        return of(entity, pageable, null);
+    }
+
+    public PageKey of(String entity, Pageable pageable, Object filter) {
+        return new PageKey(entity, pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().toString(), filter, versionStamps.current(entity));
+    }
+}
@@ -0,0 +1,270 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EntityImporterTest {
+	private BulkWriter bulkWriter;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<List<Widget>> committed = new ArrayList<>();
+	private EntityImporter importer;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		@Column(nullable = false, length = 12)
+		private String name;
+		private BigDecimal price;
+		private boolean active;
+		@Version
+		private Long version;
+
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public void setPrice(BigDecimal price) {
+			this.price = price;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		bulkWriter = mock(BulkWriter.class);
+		importer = new EntityImporter(bulkWriter, new ObjectMapper(), registry, 2, 1, 1, 100);
+	}
+
+	@AfterEach
+	void tearDown() {
+		importer.shutdown();
+	}
+
+	private static InputStream body(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private EntityImporter.Report run(String format, String text) throws IOException {
+		return importer.importRows(Widget.class, "widgets", format, body(text), committed::add);
+	}
+
+	private static List<String> names(List<Widget> rows) {
+		return rows.stream().map(row -> row.name).toList();
+	}
+
+	@Test
+	void ndjsonRowsAreWrittenInBatchesAndBadRowsReportedByNumber() throws IOException {
+		EntityImporter.Report report = run("ndjson", """
+				{"name":"a","price":1.5}
+				{"name":"b"}
+				{"price":2}
+				{"name":"much too long"}
+				{"name":"c","id":9}
+				{"name":"d","price":"x"}
+				[1]
+				{"name":"e"}
+				""");
+
+		assertEquals(8, report.rows());
+		assertEquals(3, report.imported());
+		assertEquals(5, report.rejected());
+		assertEquals(List.of(3L, 4L, 5L, 6L, 7L), report.errors().stream().map(EntityImporter.RowError::row).toList());
+		assertEquals("name is required", report.errors().get(0).message());
+		assertEquals("name is longer than 12 characters", report.errors().get(1).message());
+		assertEquals(List.of(List.of("a", "b"), List.of("e")),
+				committed.stream().map(EntityImporterTest::names).toList());
+		verify(bulkWriter, times(2)).insertChunk(anyList());
+		assertEquals(3, registry.get("import.rows").tag("outcome", "imported").counter().count());
+		assertEquals(5, registry.get("import.rows").tag("outcome", "rejected").counter().count());
+	}
+
+	@Test
+	void aJsonArrayIsReadElementByElement() throws IOException {
+		EntityImporter.Report report = run("ndjson", "[{\"name\":\"a\"}, {\"name\":\"b\"}, {\"name\":\"c\"}]");
+
+		assertEquals(3, report.imported());
+		assertEquals(List.of(List.of("a", "b"), List.of("c")),
+				committed.stream().map(EntityImporterTest::names).toList());
+	}
+
+	@Test
+	void csvCellsAreConvertedByFieldAndEmptyCellsLeftUnset() throws IOException {
+		EntityImporter.Report report = run("csv", "\uFEFFname,price,active\r\n"
+				+ "\"a, \"\"quoted\"\"\",1.25,true\r\n"
+				+ "\r\n"
+				+ "\"two\nlines\",,false\n"
+				+ "c,abc,true\n"
+				+ "d,1\n");
+
+		assertEquals(4, report.rows());
+		assertEquals(2, report.imported());
+		Widget first = committed.get(0).get(0);
+		Widget second = committed.get(0).get(1);
+		assertEquals("a, \"quoted\"", first.name);
+		assertEquals(new BigDecimal("1.25"), first.price);
+		assertTrue(first.active);
+		assertEquals("two\nlines", second.name);
+		assertNull(second.price);
+		assertEquals("price: cannot read \"abc\" as BigDecimal", report.errors().get(0).message());
+		assertEquals(4L, report.errors().get(1).row());
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> run("csv", "name,secret\n"));
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+	}
+
+	@Test
+	void aRefusedBatchIsRetriedRowByRowSoOnlyTheBadRowIsLost() throws IOException {
+		doAnswer(invocation -> {
+			List<Widget> rows = invocation.getArgument(0);
+			rows.forEach(row -> row.id = 42L);
+			if (rows.stream().anyMatch(row -> row.name.equals("dup"))) {
+				throw new PersistenceException("duplicate key value violates unique constraint\nDetail: ...");
+			}
+			return null;
+		}).when(bulkWriter).insertChunk(anyList());
+
+		EntityImporter.Report report = run("ndjson", "{\"name\":\"a\"}\n{\"name\":\"dup\"}\n{\"name\":\"c\"}\n");
+
+		assertEquals(2, report.imported());
+		assertEquals(List.of(new EntityImporter.RowError(2, "Not written: duplicate key value violates unique "
+				+ "constraint")), report.errors());
+		assertEquals(List.of(List.of("a"), List.of("c")), committed.stream().map(EntityImporterTest::names).toList());
+	}
+
+	@Test
+	void aReaderFailureReleasesTheWriterForTheNextImport() {
+		// The first batch is queued, then the body fails with an unchecked exception
+		InputStream failing = new SequenceInputStream(body("{\"name\":\"a\"}\n{\"name\":\"b\"}\n{\"name\":\"c\"}\n"),
+				new InputStream() {
+					@Override
+					public int read() {
+						throw new IllegalStateException("Storage went away");
+					}
+				});
+
+		assertThrows(IllegalStateException.class,
+				() -> importer.importRows(Widget.class, "widgets", "ndjson", failing, committed::add));
+
+		// One writer slot in this test: a writer still parked on the queue would turn this away
+		await().atMost(Duration.ofSeconds(5)).ignoreException(ResponseStatusException.class)
+				.until(() -> run("ndjson", "{\"name\":\"d\"}").imported() == 1);
+	}
+
+	@Test
+	void malformedInputEndsTheImportButKeepsWhatWasRead() throws IOException {
+		EntityImporter.Report report = run("ndjson",
+				"{\"name\":\"a\"}\n{\"name\":\"b\"}\n{\"name\":\"c\"\n{\"name\":\"d\"}");
+
+		assertEquals(2, report.imported());
+		assertEquals(1, report.rejected());
+		assertEquals(3L, report.errors().get(0).row());
+		assertTrue(report.errors().get(0).message().startsWith("Malformed input"));
+
+		EntityImporter.Report csv = run("csv", "name\na\n\"open");
+		assertEquals(1, csv.imported());
+		assertEquals("Malformed input, nothing after it was read: Unterminated quoted field",
+				csv.errors().get(0).message());
+	}
+
+	@Test
+	void aFullQueueHoldsTheReaderBackAndAnotherImportIsTurnedAway() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(bulkWriter).insertChunk(anyList());
+		StringBuilder rows = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			rows.append("{\"name\":\"w").append(i).append("\"}\n");
+		}
+		CountingStream counting = new CountingStream(body(rows.toString()));
+
+		CompletableFuture<EntityImporter.Report> first = CompletableFuture.supplyAsync(() -> {
+			try {
+				return importer.importRows(Widget.class, "widgets", "ndjson", counting, committed::add);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		Thread.sleep(300);
+
+		// One batch being written, one queued, one waiting to be handed over: 6 of the 20 rows
+		assertFalse(first.isDone());
+		assertTrue(counting.read < rows.length(), "the body must not be read ahead of the writer");
+		ResponseStatusException busy = assertThrows(ResponseStatusException.class, () -> run("ndjson", "{}"));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getStatusCode());
+		release.countDown();
+		assertEquals(20, first.get(5, TimeUnit.SECONDS).imported());
+	}
+
+	// Counts the bytes handed out, a byte at a time so the parser cannot buffer ahead
+	private static final class CountingStream extends InputStream {
+		private final InputStream in;
+		volatile int read;
+
+		CountingStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int c = in.read();
+			if (c >= 0) {
+				read++;
+			}
+			return c;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			int c = read();
+			if (c < 0) {
+				return -1;
+			}
+			buffer[offset] = (byte) c;
+			return 1;
+		}
+	}
+
+	@Test
+	void theCsvReaderHandlesQuotesAndLineEnds() throws IOException {
+		EntityImporter.CsvReader reader = new EntityImporter.CsvReader(new StringReader("a,\"b\"\"c\",\r\n\"\",x"));
+
+		assertEquals(List.of("a", "b\"c", ""), reader.next());
+		assertEquals(List.of("", "x"), reader.next());
+		assertNull(reader.next());
+	}
+}
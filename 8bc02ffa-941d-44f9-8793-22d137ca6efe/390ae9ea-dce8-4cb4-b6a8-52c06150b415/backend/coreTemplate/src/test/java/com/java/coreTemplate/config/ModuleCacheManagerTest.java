@@ -0,0 +1,135 @@
+package com.java.coreTemplate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleCacheManagerTest {
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void perCacheSpecsOverrideTheDefaults() {
+		CacheSpecs specs = bind(Map.of(
+				"caches.defaults.maximum-size", "100",
+				"caches.defaults.expire-after-write", "10m",
+				"caches.specs.billingCache.maximum-size", "5"));
+		ModuleCacheManager manager = new ModuleCacheManager(specs, meterRegistry);
+
+		assertEquals(5, nativeCache(manager, "billingCache").policy().eviction().orElseThrow().getMaximum());
+		assertEquals(100, nativeCache(manager, "modules").policy().eviction().orElseThrow().getMaximum());
+		assertEquals(Duration.ofMinutes(10),
+				nativeCache(manager, "billingCache").policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+	}
+
+	@Test
+	void hitsAndMissesAreReportedPerCache() {
+		ModuleCacheManager manager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		org.springframework.cache.Cache cache = manager.getCache("projectConfigs");
+
+		cache.get(1L);
+		cache.put(1L, "config");
+		cache.get(1L);
+
+		assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "projectConfigs", "result", "hit")
+				.functionCounter().count());
+		assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "projectConfigs", "result", "miss")
+				.functionCounter().count());
+	}
+
+	@Test
+	void registeredReloaderRefreshesEntriesInTheBackground() {
+		CacheSpecs specs = bind(Map.of("caches.specs.modules.refresh-after-write", "50ms"));
+		ModuleCacheManager manager = new ModuleCacheManager(specs, meterRegistry);
+		manager.registerReloader("modules", key -> "fresh-" + key);
+		org.springframework.cache.Cache cache = manager.getCache("modules");
+		cache.put(7L, "stale");
+
+		await().atMost(5, TimeUnit.SECONDS).pollInterval(20, TimeUnit.MILLISECONDS)
+				.until(() -> "fresh-7".equals(cache.get(7L).get()));
+	}
+
+	@Test
+	void peekNeverRunsTheReloaderOrTheSecondLevel() {
+		CacheSpecs specs = bind(Map.of("caches.specs.modules.refresh-after-write", "5m",
+				"caches.specs.modules.shared", "true"));
+		ModuleCacheManager manager = new ModuleCacheManager(specs, meterRegistry);
+		ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager();
+		manager.setSharedCacheManager(shared);
+		AtomicInteger reloads = new AtomicInteger();
+		manager.registerReloader("modules", key -> "loaded-" + reloads.incrementAndGet());
+		shared.getCache("modules").put(8L, "in L2");
+
+		assertNull(manager.peek("modules", 7L, String.class));
+		assertNull(manager.peek("modules", 8L, String.class));
+		assertEquals(0, reloads.get());
+		assertNull(nativeCache(manager, "modules").getIfPresent(7L));
+
+		manager.getCache("modules").put(7L, "row");
+		assertEquals("row", manager.peek("modules", 7L, String.class));
+		assertNull(manager.peek("modules", 7L, Long.class));
+	}
+
+	@Test
+	void evictionsInsideATransactionWaitForTheCommit() {
+		ModuleCacheManager manager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		org.springframework.cache.Cache cache = manager.getCache("billingCache");
+		cache.put(1L, "row");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			manager.evict("billingCache", 1L);
+			assertNotNull(cache.get(1L));
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertNull(cache.get(1L));
+	}
+
+	@Test
+	void sharedRegionsReadThroughTheSecondLevel() {
+		CacheSpecs specs = bind(Map.of("caches.specs.billingCache.shared", "true"));
+		ModuleCacheManager manager = new ModuleCacheManager(specs, meterRegistry);
+		ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager();
+		manager.setSharedCacheManager(shared);
+		org.springframework.cache.Cache cache = manager.getCache("billingCache");
+
+		assertEquals("row", cache.get(1L, () -> "row"));
+		assertEquals("row", shared.getCache("billingCache").get(1L).get());
+
+		// another node's eviction only reaches this node's L1; the next read refills it from L2
+		manager.evictLocal("billingCache", 1L);
+		assertNull(nativeCache(manager, "billingCache").getIfPresent(1L));
+		assertEquals("row", cache.get(1L, () -> "reloaded"));
+		assertNotNull(nativeCache(manager, "billingCache").getIfPresent(1L));
+
+		manager.evict("billingCache", 1L);
+		assertNull(shared.getCache("billingCache").get(1L));
+		assertNull(cache.get(1L));
+	}
+
+	private static Cache<Object, Object> nativeCache(ModuleCacheManager manager, String name) {
+		@SuppressWarnings("unchecked")
+		Cache<Object, Object> cache = (Cache<Object, Object>) manager.getCache(name).getNativeCache();
+		return cache;
+	}
+
+	private static CacheSpecs bind(Map<String, String> properties) {
+		return new Binder(new MapConfigurationPropertySource(properties))
+				.bind("caches", CacheSpecs.class)
+				.orElseGet(CacheSpecs::new);
+	}
+}
@@ -0,0 +1,346 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs over a whole table that compute a result per row and insert the results, such as the
+// billing run. A run walks the table in id order, a page at a time:
+//   run thread   reads a keyset page of batch-run.page-size rows (WHERE id > :last ORDER BY id),
+//                splits it into work units of batch-run.unit-size rows and reads the next page
+//                while the units are processed
+//   workers      batch-run.parallelism threads (the CPU count by default) shared by all runs;
+//                each computes one unit's results and inserts them in one transaction
+// Once every unit of a page has committed, the page's last id is stored as the run's
+// checkpoint in batch_run (db/runs/batch_run.sql). A run that stopped (node crash, deploy,
+// failure) is started again with the same key and carries on after its checkpoint. Units of
+// the page that was in flight are written again, so Job.write must be idempotent, for example
+// INSERT ... ON CONFLICT DO NOTHING on the result's natural key. A finished run is not run
+// again; starting it answers its final progress.
+// Starting a run claims it in batch_run, so a run is executing on one node at a time and
+// starting it again meanwhile is a 409. While it executes, its node also holds a session-level
+// advisory lock on the run, on a connection of its own. The lock goes away with the node's
+// connection, so a run whose node crashed can be claimed again at once. A run whose node is
+// still connected but has stopped checkpointing for batch-run.lease can be taken over as well;
+// the node it was taken from stops at its next checkpoint. A run holds up to parallelism + 2
+// connections.
+// Rows are counted as batch.run.rows{run, outcome=scanned|written} and pages timed as
+// batch.run.page{run}; the last log line of a run has its throughput.
+@Slf4j
+@Component
+public class BatchRunner {
+    public enum State { RUNNING, DONE, FAILED }
+
+    // T is a row read for the run, R its result
+    public interface Job<T, R> {
+        // Kind of run, e.g. "billing"; metrics and logs use it
+        String run();
+
+        // One execution of the run, e.g. the billing date; batch_run has a row per run and key
+        String key();
+
+        // Up to limit rows with an id above after, ascending by id; runs in a read-only transaction
+        List<T> page(long after, int limit);
+
+        long id(T row);
+
+        // Called on a worker; null when the row has no result
+        R compute(T row);
+
+        // Inserts the results, returning how many were new; runs in a transaction and must be
+        // idempotent
+        int write(List<R> results);
+    }
+
+    public record Progress(String run, State state, long lastId, long scanned, long written, Instant startedAt,
+                           Instant updatedAt, Instant finishedAt, String error) {
+    }
+
+    private static final String COLUMNS =
+            "name, state, last_id, scanned, written, started_at, updated_at, finished_at, error";
+    // Inserted, or taken over when it failed, its owner is gone (the lock was free) or its lease ran
+    // out; no row when it may not be claimed
+    private static final String CLAIM = "INSERT INTO batch_run (name, state, owner, started_at, updated_at) "
+            + "VALUES (?, 'RUNNING', ?, now(), now()) ON CONFLICT (name) DO UPDATE SET state = 'RUNNING', "
+            + "owner = EXCLUDED.owner, updated_at = now(), finished_at = NULL, error = NULL "
+            + "WHERE batch_run.state = 'FAILED' OR batch_run.state = 'RUNNING' "
+            + "AND (? OR batch_run.updated_at < now() - ? * INTERVAL '1 millisecond') RETURNING " + COLUMNS;
+    private static final String LOCK = "SELECT pg_try_advisory_lock(hashtext('batch_run'), hashtext(?))";
+    private static final String ADVANCE = "UPDATE batch_run SET last_id = ?, scanned = scanned + ?, "
+            + "written = written + ?, updated_at = now() WHERE name = ? AND owner = ?";
+    private static final String FINISH = "UPDATE batch_run SET state = ?, error = ?, updated_at = now(), "
+            + "finished_at = now() WHERE name = ? AND owner = ?";
+    private static final RowMapper<Progress> PROGRESS = (rs, rowNum) -> new Progress(rs.getString("name"),
+            State.valueOf(rs.getString("state")), rs.getLong("last_id"), rs.getLong("scanned"),
+            rs.getLong("written"), instant(rs.getTimestamp("started_at")), instant(rs.getTimestamp("updated_at")),
+            instant(rs.getTimestamp("finished_at")), rs.getString("error"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnly;
+    private final MeterRegistry meterRegistry;
+    private final int pageSize;
+    private final int unitSize;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+    private final ExecutorService runs;
+    private final ExecutorService workers;
+
+    public BatchRunner(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${batch-run.page-size:10000}") int pageSize,
+                       @Value("${batch-run.unit-size:1000}") int unitSize,
+                       @Value("${batch-run.parallelism:0}") int parallelism,
+                       @Value("${batch-run.lease:5m}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.pageSize = pageSize;
+        this.unitSize = Math.min(unitSize, pageSize);
+        this.leaseMillis = lease.toMillis();
+        AtomicInteger runCount = new AtomicInteger();
+        this.runs = Executors.newCachedThreadPool(
+                runnable -> daemon(runnable, "batch-run-" + runCount.incrementAndGet()));
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                runnable -> daemon(runnable, "batch-run-worker-" + workerCount.incrementAndGet()));
+    }
+
+    // Claims the run and starts it on its own thread, answering its progress at that point.
+    // A finished run answers its final progress and does not run again
+    public <T, R> Progress start(Job<T, R> job) {
+        String name = name(job.run(), job.key());
+        Connection lock = lock(name);
+        List<Progress> claimed;
+        try {
+            claimed = transactionTemplate.execute(status ->
+                    jdbcTemplate.query(CLAIM, PROGRESS, name, owner, lock != null, leaseMillis));
+        } catch (RuntimeException e) {
+            unlock(lock);
+            throw e;
+        }
+        if (claimed == null || claimed.isEmpty()) {
+            unlock(lock);
+            Progress current = progress(job.run(), job.key());
+            if (current != null && current.state() == State.DONE) {
+                return current;
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Run " + name + " is already running");
+        }
+        Progress started = claimed.get(0);
+        try {
+            runs.execute(() -> {
+                try {
+                    run(job, started);
+                } finally {
+                    unlock(lock);
+                }
+            });
+        } catch (RuntimeException e) {
+            unlock(lock);
+            throw e;
+        }
+        return started;
+    }
+
+    // Null when the run was never started
+    public Progress progress(String run, String key) {
+        List<Progress> found = readOnly.execute(status -> jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM batch_run WHERE name = ?", PROGRESS, name(run, key)));
+        return found == null || found.isEmpty() ? null : found.get(0);
+    }
+
+    <T, R> Progress run(Job<T, R> job, Progress claimed) {
+        String name = claimed.run();
+        Counter scannedRows = rows(job.run(), "scanned");
+        Counter writtenRows = rows(job.run(), "written");
+        Timer pages = Timer.builder("batch.run.page").tag("run", job.run()).register(meterRegistry);
+        long startedNanos = System.nanoTime();
+        long after = claimed.lastId();
+        // The last id stored in batch_run; what a failed or stopped run reports and resumes from
+        long checkpoint = after;
+        long scanned = 0;
+        long written = 0;
+        if (after > 0) {
+            log.info("Run {} resumes after id {}", name, after);
+        }
+        List<Future<Integer>> units = List.of();
+        try {
+            List<T> page = read(job, after);
+            while (!page.isEmpty()) {
+                long pageStarted = System.nanoTime();
+                units = submit(job, page);
+                after = job.id(page.get(page.size() - 1));
+                // Read ahead while the workers are busy
+                List<T> next = page.size() < pageSize ? List.of() : read(job, after);
+                int pageWritten = 0;
+                for (Future<Integer> unit : units) {
+                    pageWritten += unit.get();
+                }
+                if (!advance(name, after, page.size(), pageWritten)) {
+                    log.warn("Run {} was claimed by another node, stopping after id {}", name, checkpoint);
+                    return new Progress(name, State.RUNNING, checkpoint, claimed.scanned() + scanned,
+                            claimed.written() + written, claimed.startedAt(), Instant.now(), null,
+                            "Claimed by another node");
+                }
+                checkpoint = after;
+                scanned += page.size();
+                written += pageWritten;
+                scannedRows.increment(page.size());
+                writtenRows.increment(pageWritten);
+                pages.record(System.nanoTime() - pageStarted, TimeUnit.NANOSECONDS);
+                log.debug("Run {}: checkpoint at id {}, {} rows scanned, {} written", name, after, scanned, written);
+                page = next;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            units.forEach(unit -> unit.cancel(true));
+            return finish(claimed, State.FAILED, checkpoint, scanned, written, "Interrupted");
+        } catch (ExecutionException | RuntimeException e) {
+            units.forEach(unit -> unit.cancel(true));
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Run {} failed after id {}; starting it again resumes from there", name, checkpoint, cause);
+            return finish(claimed, State.FAILED, checkpoint, scanned, written, String.valueOf(cause.getMessage()));
+        }
+        double seconds = Math.max(System.nanoTime() - startedNanos, 1) / 1e9;
+        log.info("Run {} finished: {} rows scanned, {} written in {} s ({} rows/s)", name, scanned, written,
+                String.format("%.1f", seconds), Math.round(scanned / seconds));
+        return finish(claimed, State.DONE, after, scanned, written, null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runs.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // A connection holding the run's advisory lock, or null when another live node holds it
+    private Connection lock(String name) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            try (PreparedStatement statement = connection.prepareStatement(LOCK)) {
+                statement.setString(1, name);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return connection;
+                    }
+                }
+            }
+            connection.close();
+            return null;
+        } catch (SQLException e) {
+            unlock(connection);
+            throw new CannotGetJdbcConnectionException("Could not lock run " + name, e);
+        }
+    }
+
+    // Releases the lock before the connection goes back to the pool, which would keep it otherwise
+    private static void unlock(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try (Connection held = connection; Statement statement = held.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock_all()");
+        } catch (SQLException e) {
+            log.warn("Could not release a batch run lock", e);
+        }
+    }
+
+    private <T, R> List<T> read(Job<T, R> job, long after) {
+        List<T> page = readOnly.execute(status -> job.page(after, pageSize));
+        return page == null ? List.of() : page;
+    }
+
+    private <T, R> List<Future<Integer>> submit(Job<T, R> job, List<T> page) {
+        List<Future<Integer>> units = new ArrayList<>();
+        for (int from = 0; from < page.size(); from += unitSize) {
+            List<T> unit = page.subList(from, Math.min(from + unitSize, page.size()));
+            units.add(workers.submit(() -> unit(job, unit)));
+        }
+        return units;
+    }
+
+    private <T, R> int unit(Job<T, R> job, List<T> rows) {
+        List<R> results = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            R result = job.compute(row);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        if (results.isEmpty()) {
+            return 0;
+        }
+        Integer written = transactionTemplate.execute(status -> job.write(results));
+        return written == null ? 0 : written;
+    }
+
+    // False when the run is no longer this node's
+    private boolean advance(String name, long lastId, int scanned, int written) {
+        Integer updated = transactionTemplate.execute(status ->
+                jdbcTemplate.update(ADVANCE, lastId, scanned, written, name, owner));
+        return updated != null && updated > 0;
+    }
+
+    private Progress finish(Progress claimed, State state, long lastId, long scanned, long written, String error) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update(FINISH, state.name(), error, claimed.run(), owner));
+        Instant now = Instant.now();
+        return new Progress(claimed.run(), state, lastId, claimed.scanned() + scanned, claimed.written() + written,
+                claimed.startedAt(), now, now, error);
+    }
+
+    private Counter rows(String run, String outcome) {
+        return Counter.builder("batch.run.rows").tag("run", run).tag("outcome", outcome).register(meterRegistry);
+    }
+
+    private static String name(String run, String key) {
+        return run + ":" + key;
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
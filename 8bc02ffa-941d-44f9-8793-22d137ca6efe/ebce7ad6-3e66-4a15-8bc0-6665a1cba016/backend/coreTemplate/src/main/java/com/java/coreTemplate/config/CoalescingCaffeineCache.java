@@ -0,0 +1,211 @@
+package com.java.coreTemplate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Version;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Single-flight loading for @Cacheable(sync = true) methods. The first caller to miss a key
+// runs the loader; concurrent callers for the same key wait on its future instead of
+// issuing their own query. A waiter gives up after loadWaitTimeout and loads the value
+// itself (without caching it), so one stuck query cannot park every request thread.
+// Unlike Caffeine's own compute-on-miss, other keys are never blocked behind a slow load.
+// Coalesced callers are counted as cache.loads.coalesced{cache, result=joined|timeout}.
+// An eviction (evict, evictLocal through ModuleCacheManager, clear) also drops the key's
+// in-flight load, which then returns its value without caching it: the row it read may
+// predate the write that caused the eviction. The in-flight entry is the key's generation;
+// the load's put and the eviction are serialized on it, so one of them always sees the other.
+// Plain @Cacheable reads put after their own miss, outside any in-flight entry; for those an
+// eviction that names the row's new version sets a floor for the key, and for a while
+// afterwards a put of an entity whose @Version is below it is dropped.
+@Slf4j
+class CoalescingCaffeineCache extends CaffeineCache {
+    // Longer than any read that could have started before the write
+    static final Duration FLOOR_TTL = Duration.ofMinutes(1);
+    private static final ClassValue<Optional<Field>> VERSION_FIELDS = new ClassValue<>() {
+        @Override
+        protected Optional<Field> computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(Version.class)) {
+                        field.setAccessible(true);
+                        return Optional.of(field);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    };
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<Object, Long> floors = Caffeine.newBuilder()
+            .expireAfterWrite(FLOOR_TTL)
+            .maximumSize(10_000)
+            .build();
+    private final Duration loadWaitTimeout;
+    private final Counter joined;
+    private final Counter timedOut;
+
+    CoalescingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                            Duration loadWaitTimeout, MeterRegistry meterRegistry) {
+        super(name, cache, allowNullValues);
+        this.loadWaitTimeout = loadWaitTimeout;
+        this.joined = Counter.builder("cache.loads.coalesced")
+                .description("Cache misses served by another caller's in-flight load")
+                .tags("cache", name, "result", "joined")
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("cache.loads.coalesced")
+                .description("Cache misses served by another caller's in-flight load")
+                .tags("cache", name, "result", "timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // getIfPresent never triggers a reloader registered on a loading cache
+        Object stored = getNativeCache().getIfPresent(key);
+        if (stored != null) {
+            return (T) fromStoreValue(stored);
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (leader == null) {
+            return (T) load(key, valueLoader, mine);
+        }
+        return (T) await(key, valueLoader, leader);
+    }
+
+    private Object load(Object key, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        try {
+            Object value = valueLoader.call();
+            inFlight.computeIfPresent(key, (k, current) -> {
+                if (current == future) {
+                    put(key, value);
+                }
+                return current;
+            });
+            future.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!isStale(key, value)) {
+            super.put(key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (isStale(key, value)) {
+            return get(key);
+        }
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        inFlight.remove(key);
+        super.evict(key);
+    }
+
+    // Eviction for a write that left the row at version; null when the version is not known
+    void evict(Object key, Long version) {
+        raiseFloor(key, version);
+        evict(key);
+    }
+
+    void raiseFloor(Object key, Long version) {
+        if (version != null) {
+            floors.asMap().merge(key, version, Math::max);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        inFlight.remove(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        inFlight.clear();
+        floors.invalidateAll();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        inFlight.clear();
+        floors.invalidateAll();
+        return super.invalidate();
+    }
+
+    private boolean isStale(Object key, Object value) {
+        Long floor = floors.getIfPresent(key);
+        if (floor == null) {
+            return false;
+        }
+        Long version = versionOf(value);
+        return version != null && version < floor;
+    }
+
+    // A cached null, or a value without a @Version, is never stale
+    private static Long versionOf(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return VERSION_FIELDS.get(value.getClass()).map(field -> {
+            try {
+                return field.get(value) instanceof Number number ? number.longValue() : null;
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read " + field, e);
+            }
+        }).orElse(null);
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> leader) {
+        try {
+            Object value = leader.get(loadWaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            joined.increment();
+            return value;
+        } catch (TimeoutException ex) {
+            timedOut.increment();
+            log.warn("Load of '{}' in cache '{}' still running after {}; loading independently",
+                    key, getName(), loadWaitTimeout);
+            try {
+                return valueLoader.call();
+            } catch (Throwable loadEx) {
+                throw new ValueRetrievalException(key, valueLoader, loadEx);
+            }
+        } catch (ExecutionException ex) {
+            // The leader's failure is shared rather than retried by every waiter
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+}
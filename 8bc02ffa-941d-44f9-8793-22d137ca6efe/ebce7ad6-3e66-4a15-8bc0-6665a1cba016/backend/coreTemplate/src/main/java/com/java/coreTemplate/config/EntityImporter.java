@@ -0,0 +1,577 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// POST /{module}/import: rows streamed from the request body into a table, for loads too large
+// for one /bulk array. The body is never held whole. It goes through a two-stage pipeline:
+//   request thread  reads one row at a time (Jackson's streaming parser for NDJSON or a JSON
+//                   array, a CSV reader for CSV), binds and validates it, and collects the
+//                   valid rows into batches of import.batch-size
+//   writer thread   inserts every batch in its own transaction through BulkWriter (pooled
+//                   sequence ids, JDBC batching) and then hands it to committed
+// Between the two sits a queue of import.queue-batches batches. When the database falls behind
+// the queue fills, the request thread blocks and stops reading, and TCP flow control slows the
+// upload; memory stays at a few batches whatever the size of the body.
+// A row that cannot be bound, breaks its @Column limits (nullable = false, length) or carries
+// an id (ids are assigned by the server) is rejected. A batch the database refuses, for example
+// on a unique violation, is retried row by row so only the offending rows are rejected.
+// Committed batches stay committed. Malformed input ends the import at the row it occurs in.
+// The report has the rows read, imported and rejected, and the first import.max-errors
+// rejections by row number (from 1, not counting a CSV header). CSV columns are named by field,
+// as EntityExporter writes them; empty cells leave the field unset.
+// At most import.max-concurrent imports run at a time; one more is a 503. Rows are counted as
+// import.rows{entity, outcome=imported|rejected}.
+@Slf4j
+@Component
+public class EntityImporter {
+    public record RowError(long row, String message) {
+    }
+
+    public record Report(long rows, long imported, long rejected, List<RowError> errors) {
+    }
+
+    // Valid rows and their row numbers
+    private record Batch<T>(List<T> rows, List<Long> numbers) {
+    }
+
+    // Limits of one column, from @Column or the JPA defaults
+    private record Constraint(Field field, boolean required, int maxLength) {
+    }
+
+    private static final Batch<?> END = new Batch<>(List.of(), List.of());
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BulkWriter bulkWriter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int queueBatches;
+    private final int maxErrors;
+    private final ThreadPoolExecutor writers;
+    private final Map<Class<?>, List<Constraint>> constraints = new ConcurrentHashMap<>();
+
+    public EntityImporter(BulkWriter bulkWriter,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${import.batch-size:1000}") int batchSize,
+                          @Value("${import.queue-batches:4}") int queueBatches,
+                          @Value("${import.max-concurrent:2}") int maxConcurrent,
+                          @Value("${import.max-errors:1000}") int maxErrors) {
+        this.bulkWriter = bulkWriter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.queueBatches = queueBatches;
+        this.maxErrors = maxErrors;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> Report importRows(Class<T> type, String name, String format, InputStream body,
+                                 Consumer<List<T>> committed) throws IOException {
+        EntityExporter.Format chosen = EntityExporter.Format.of(format);
+        ConditionalWrites.Mapping mapping = ConditionalWrites.Mapping.of(type);
+        // The CSV header is checked before anything is started
+        Rows<T> source;
+        try {
+            source = chosen == EntityExporter.Format.CSV
+                    ? new CsvRows<>(type, body)
+                    : new JsonRows<>(type, objectMapper.createParser(body));
+        } catch (MalformedCsvException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed CSV header: " + e.getMessage());
+        }
+        Rejections rejections = new Rejections(name);
+        BlockingQueue<Batch<T>> queue = new ArrayBlockingQueue<>(Math.max(1, queueBatches));
+        Future<Long> writer;
+        try {
+            writer = writers.submit(() -> write(mapping, queue, rejections, committed, name));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports running", e);
+        }
+
+        long rows = 0;
+        IOException failure = null;
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Long> numbers = new ArrayList<>(batchSize);
+        boolean writing = true;
+        try {
+            while (writing) {
+                T row;
+                try {
+                    row = source.next();
+                } catch (RejectedRow e) {
+                    rejections.add(++rows, e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+                String invalid = invalid(mapping, row);
+                if (invalid != null) {
+                    rejections.add(++rows, invalid);
+                    continue;
+                }
+                batch.add(row);
+                numbers.add(++rows);
+                if (batch.size() == batchSize) {
+                    writing = hand(queue, new Batch<>(batch, numbers), writer);
+                    batch = new ArrayList<>(batchSize);
+                    numbers = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (JsonProcessingException | MalformedCsvException e) {
+            rejections.add(rows + 1, "Malformed input, nothing after it was read: " + message(e));
+        } catch (IOException e) {
+            // The client went away
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (RuntimeException | Error e) {
+            // Anything else ends the request; the writer would otherwise wait on the queue for
+            // good and keep its import.max-concurrent slot. Queued batches go unwritten, and with
+            // the queue emptied END always fits
+            queue.clear();
+            queue.offer(end());
+            throw e;
+        }
+
+        long imported;
+        try {
+            // What was read before malformed input or a disconnect is still written
+            if (writing && !batch.isEmpty()) {
+                hand(queue, new Batch<>(batch, numbers), writer);
+            }
+            hand(queue, end(), writer);
+            imported = writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Import failed", e.getCause());
+        }
+        if (failure != null) {
+            log.info("Import of {} stopped after {} rows, client disconnected: {}", name, rows, failure.getMessage());
+            throw failure;
+        }
+        return new Report(rows, imported, rejections.count(), rejections.listed());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private <T> long write(ConditionalWrites.Mapping mapping, BlockingQueue<Batch<T>> queue, Rejections rejections,
+                           Consumer<List<T>> committed, String name) throws InterruptedException {
+        Counter imported = Counter.builder("import.rows").tag("entity", name).tag("outcome", "imported")
+                .register(meterRegistry);
+        long written = 0;
+        for (Batch<T> batch = queue.take(); batch != END; batch = queue.take()) {
+            List<T> done;
+            try {
+                bulkWriter.insertChunk(batch.rows());
+                done = batch.rows();
+            } catch (PersistenceException | DataAccessException e) {
+                done = rowByRow(mapping, batch, rejections);
+            }
+            if (!done.isEmpty()) {
+                committed.accept(done);
+            }
+            written += done.size();
+            imported.increment(done.size());
+        }
+        return written;
+    }
+
+    // The batch was refused as a whole; one transaction per row finds the rows at fault
+    private <T> List<T> rowByRow(ConditionalWrites.Mapping mapping, Batch<T> batch, Rejections rejections) {
+        List<T> done = new ArrayList<>();
+        for (int i = 0; i < batch.rows().size(); i++) {
+            T row = batch.rows().get(i);
+            // persist() assigned an id (and version) before the rollback
+            write(mapping.id(), row, null);
+            write(mapping.version(), row, null);
+            try {
+                bulkWriter.insertChunk(List.of(row));
+                done.add(row);
+            } catch (PersistenceException | DataAccessException e) {
+                rejections.add(batch.numbers().get(i), "Not written: " + message(e));
+            }
+        }
+        return done;
+    }
+
+    // Blocks while the queue is full, which is the back-pressure. False when the writer has
+    // ended early; its failure then comes out of Future.get()
+    private static <T> boolean hand(BlockingQueue<Batch<T>> queue, Batch<T> batch, Future<?> writer)
+            throws InterruptedException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Batch<T> end() {
+        return (Batch<T>) END;
+    }
+
+    private String invalid(ConditionalWrites.Mapping mapping, Object row) {
+        if (read(mapping.id(), row) != null) {
+            return "Has an id; ids of new rows are assigned by the server";
+        }
+        for (Constraint constraint : constraints.computeIfAbsent(row.getClass(), EntityImporter::constraints)) {
+            Object value = read(constraint.field(), row);
+            if (value == null && constraint.required()) {
+                return constraint.field().getName() + " is required";
+            }
+            if (value instanceof String text && text.length() > constraint.maxLength()) {
+                return constraint.field().getName() + " is longer than " + constraint.maxLength() + " characters";
+            }
+        }
+        return null;
+    }
+
+    private static List<Constraint> constraints(Class<?> type) {
+        List<Constraint> constraints = new ArrayList<>();
+        for (Field field : basicFields(type)) {
+            if (field.isAnnotationPresent(Id.class) || field.isAnnotationPresent(Version.class)) {
+                continue;
+            }
+            Column column = field.getAnnotation(Column.class);
+            boolean required = column != null && !column.nullable() && !field.getType().isPrimitive();
+            // A columnDefinition (TEXT) sets its own size
+            boolean sized = field.getType() == String.class && (column == null || column.columnDefinition().isEmpty());
+            int maxLength = sized ? (column != null ? column.length() : 255) : Integer.MAX_VALUE;
+            if (required || sized) {
+                constraints.add(new Constraint(field, required, maxLength));
+            }
+        }
+        return List.copyOf(constraints);
+    }
+
+    private static List<Field> basicFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                    || field.isAnnotationPresent(Transient.class)
+                    || field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToMany.class)
+                    || field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    private static String message(Exception e) {
+        String message = e instanceof JsonProcessingException json ? json.getOriginalMessage()
+                : NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        if (message == null) {
+            return e.getClass().getSimpleName();
+        }
+        int lineBreak = message.indexOf('\n');
+        return lineBreak >= 0 ? message.substring(0, lineBreak) : message;
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+
+    private static void write(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot write " + field, e);
+        }
+    }
+
+    // Rows of the body, one at a time; null at the end. A row that cannot be bound is a
+    // RejectedRow and the next call goes on after it
+    private interface Rows<T> {
+        T next() throws IOException;
+    }
+
+    private static final class RejectedRow extends RuntimeException {
+        RejectedRow(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    static final class MalformedCsvException extends IOException {
+        MalformedCsvException(String message) {
+            super(message);
+        }
+    }
+
+    // NDJSON (one object per line, or any whitespace) or a single JSON array of objects
+    private final class JsonRows<T> implements Rows<T> {
+        private final Class<T> type;
+        private final JsonParser parser;
+        private boolean array;
+        private boolean started;
+
+        JsonRows(Class<T> type, JsonParser parser) {
+            this.type = type;
+            this.parser = parser;
+        }
+
+        @Override
+        public T next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (!started) {
+                started = true;
+                array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+            }
+            if (token == null || array && token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            JsonNode node = parser.readValueAsTree();
+            if (!node.isObject()) {
+                throw new RejectedRow("Not a JSON object");
+            }
+            try {
+                return objectMapper.treeToValue(node, type);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                throw new RejectedRow(message(e));
+            }
+        }
+    }
+
+    // RFC 4180 with a header row of field names. Each cell is converted to its field's type the
+    // way Jackson reads a JSON string (numbers, booleans, ISO-8601 times, UUIDs)
+    private final class CsvRows<T> implements Rows<T> {
+        private final Class<T> type;
+        private final CsvReader reader;
+        private final List<Field> columns = new ArrayList<>();
+
+        CsvRows(Class<T> type, InputStream body) throws IOException {
+            this.type = type;
+            this.reader = new CsvReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            Map<String, Field> fields = new HashMap<>();
+            basicFields(type).forEach(field -> fields.put(field.getName(), field));
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No CSV header");
+            }
+            for (String name : header) {
+                Field field = fields.get(name.strip());
+                if (field == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown CSV column: " + name);
+                }
+                columns.add(field);
+            }
+        }
+
+        @Override
+        public T next() throws IOException {
+            List<String> cells = reader.next();
+            while (cells != null && cells.size() == 1 && cells.get(0).isEmpty()) {
+                cells = reader.next();
+            }
+            if (cells == null) {
+                return null;
+            }
+            if (cells.size() != columns.size()) {
+                throw new RejectedRow(cells.size() + " cells, the header has " + columns.size());
+            }
+            T row;
+            try {
+                row = type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(type.getName() + " needs a no-arguments constructor", e);
+            }
+            for (int i = 0; i < cells.size(); i++) {
+                String cell = cells.get(i);
+                if (cell.isEmpty()) {
+                    continue;
+                }
+                Field field = columns.get(i);
+                try {
+                    write(field, row, objectMapper.convertValue(cell, field.getType()));
+                } catch (IllegalArgumentException e) {
+                    throw new RejectedRow(field.getName() + ": cannot read \"" + cell + "\" as "
+                            + field.getType().getSimpleName());
+                }
+            }
+            return row;
+        }
+    }
+
+    // RFC 4180 records, one at a time: separators, doubled quotes and line breaks inside quoted
+    // fields, CRLF or LF line ends, an optional UTF-8 BOM
+    static final class CsvReader {
+        private final Reader reader;
+        private int peeked = -2;
+        private boolean first = true;
+
+        CsvReader(Reader reader) {
+            this.reader = new BufferedReader(reader, BUFFER_SIZE);
+        }
+
+        // The fields of the next record; null at the end
+        List<String> next() throws IOException {
+            int c = read();
+            if (first) {
+                first = false;
+                if (c == '\uFEFF') {
+                    c = read();
+                }
+            }
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new MalformedCsvException("Unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following != '"') {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            peeked = following;
+                        }
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+
+    // Rejected rows of one import, from both threads: all are counted, the first maxErrors kept
+    private final class Rejections {
+        private final Counter counter;
+        // Latest row on top, so it is the one dropped when over maxErrors
+        private final PriorityQueue<RowError> errors =
+                new PriorityQueue<>(Comparator.comparingLong(RowError::row).reversed());
+        private long count;
+
+        Rejections(String name) {
+            this.counter = Counter.builder("import.rows").tag("entity", name).tag("outcome", "rejected")
+                    .register(meterRegistry);
+        }
+
+        synchronized void add(long row, String message) {
+            count++;
+            counter.increment();
+            errors.add(new RowError(row, message));
+            if (errors.size() > maxErrors) {
+                errors.poll();
+            }
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized List<RowError> listed() {
+            return errors.stream().sorted(Comparator.comparingLong(RowError::row)).toList();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keyset pagination for the list endpoints' cursor mode (?limit=, then ?after=<next>&limit=).
+// A page is
+//   SELECT e FROM <Entity> e WHERE (e.<sort>, e.id) > (:key, :id) ORDER BY e.<sort>, e.id
+// with LIMIT limit + 1 (the extra row only tells whether there is a next page), so deep
+// pages cost the same as the first and no COUNT(*) runs. Descending sorts use < and DESC.
+// The cursor is the sort field, direction and the last row's (key, id), as base64url JSON;
+// it is opaque to clients and only bound as query parameters.
+// One sort field is used, with the id as tie-breaker; a sort naming further fields is a 400
+// rather than a page in another order than asked (a trailing id in the same direction is the
+// tie-breaker and is accepted). Sort fields must be non-null columns (a row with a null key
+// cannot be positioned) and are limited to the ones the caller allows.
+// With ?fields= the same query selects only those columns, see SparseFields.
+@Component
+public class KeysetPager {
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int maxLimit;
+
+    public KeysetPager(EntityManager entityManager,
+                       ObjectMapper objectMapper,
+                       @Value("${pagination.cursor.max-limit:200}") int maxLimit) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.maxLimit = maxLimit;
+    }
+
+    record Cursor(String sort, boolean desc, JsonNode key, JsonNode id) {
+    }
+
+    public <T> CursorPage<T> page(Class<T> type, String after, int limit, Sort sort, Set<String> sortable) {
+        Plan plan = new Plan(type, after, limit, sort, sortable);
+        List<T> rows = plan.bind(entityManager.createQuery("SELECT e" + plan.from, type)).getResultList();
+        return plan.page(rows, row -> read(plan.sortField, row), row -> read(plan.id, row));
+    }
+
+    // The same page with only the selected columns, read as tuples; the sort key and id are
+    // selected as well when not asked for, to build the cursor
+    public CursorPage<SparseFields.Row> page(Class<?> type, String after, int limit, Sort sort, Set<String> sortable,
+                                             SparseFields.Selection fields) {
+        Plan plan = new Plan(type, after, limit, sort, sortable);
+        List<String> columns = fields.columns(plan.sortField.getName(), plan.id.getName());
+        int key = columns.indexOf(plan.sortField.getName());
+        int id = columns.indexOf(plan.id.getName());
+        List<Object[]> rows = plan.bind(entityManager.createQuery(
+                "SELECT " + SparseFields.select(columns) + plan.from, Object[].class)).getResultList();
+        CursorPage<Object[]> page = plan.page(rows, row -> row[key], row -> row[id]);
+        return new CursorPage<>(page.content().stream().map(fields::row).toList(), page.limit(), page.hasNext(),
+                page.next());
+    }
+
+    // Everything of a page but the select list: order, cursor condition, parameters and size
+    private final class Plan {
+        final Cursor cursor;
+        final int size;
+        final String sortName;
+        final boolean desc;
+        final Field id;
+        final Field sortField;
+        final String from;
+
+        Plan(Class<?> type, String after, int limit, Sort sort, Set<String> sortable) {
+            size = Math.max(1, Math.min(limit, maxLimit));
+            id = idField(type);
+            cursor = after != null && !after.isBlank() ? decode(after) : null;
+            if (cursor != null) {
+                sortName = cursor.sort();
+                desc = cursor.desc();
+            } else {
+                List<Sort.Order> orders = sort != null ? sort.toList() : List.of();
+                Sort.Order order = orders.isEmpty() ? Sort.Order.asc(id.getName()) : orders.get(0);
+                sortName = order.getProperty();
+                desc = order.isDescending();
+                boolean tieBreaker = orders.size() == 2 && orders.get(1).getProperty().equals(id.getName())
+                        && orders.get(1).isDescending() == desc;
+                if (orders.size() > 1 && !tieBreaker) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Cursor pages are sorted by one field, not " + orders.stream()
+                                    .map(Sort.Order::getProperty).collect(Collectors.joining(", ")));
+                }
+            }
+            if (!sortName.equals(id.getName()) && !sortable.contains(sortName)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot page by " + sortName);
+            }
+            sortField = field(type, sortName);
+
+            String direction = desc ? " DESC" : " ASC";
+            StringBuilder jpql = new StringBuilder(" FROM ").append(entityName(type)).append(" e");
+            if (cursor != null) {
+                String comparison = desc ? " < " : " > ";
+                jpql.append(byId()
+                        ? " WHERE e." + id.getName() + comparison + ":id"
+                        : " WHERE (e." + sortName + ", e." + id.getName() + ")" + comparison + "(:key, :id)");
+            }
+            jpql.append(" ORDER BY e.").append(sortName).append(direction);
+            if (!byId()) {
+                jpql.append(", e.").append(id.getName()).append(direction);
+            }
+            from = jpql.toString();
+        }
+
+        boolean byId() {
+            return sortField.equals(id);
+        }
+
+        <Q extends TypedQuery<?>> Q bind(Q query) {
+            query.setMaxResults(size + 1);
+            if (cursor != null) {
+                query.setParameter("id", convert(cursor.id(), id.getType()));
+                if (!byId()) {
+                    query.setParameter("key", convert(cursor.key(), sortField.getType()));
+                }
+            }
+            return query;
+        }
+
+        <R> CursorPage<R> page(List<R> rows, Function<R, Object> key, Function<R, Object> idOf) {
+            boolean hasNext = rows.size() > size;
+            List<R> content = hasNext ? List.copyOf(rows.subList(0, size)) : rows;
+            String next = null;
+            if (hasNext) {
+                R last = content.get(content.size() - 1);
+                next = encode(new Cursor(sortName, desc,
+                        objectMapper.valueToTree(key.apply(last)), objectMapper.valueToTree(idOf.apply(last))));
+            }
+            return new CursorPage<>(content, size, hasNext, next);
+        }
+    }
+
+    String encode(Cursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    Cursor decode(String after) {
+        try {
+            Cursor cursor = objectMapper.readValue(Base64.getUrlDecoder().decode(after), Cursor.class);
+            if (cursor.sort() == null || cursor.id() == null) {
+                throw new IllegalArgumentException("incomplete cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    private Object convert(JsonNode value, Class<?> type) {
+        try {
+            return objectMapper.treeToValue(value, type);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    private static String entityName(Class<?> type) {
+        Entity entity = type.getAnnotation(Entity.class);
+        if (entity == null) {
+            throw new IllegalArgumentException(type.getName() + " is not an @Entity");
+        }
+        return entity.name().isEmpty() ? type.getSimpleName() : entity.name();
+    }
+
+    private static Field idField(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Id.class)) {
+                field.setAccessible(true);
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " has no @Id field");
+    }
+
+    private static Field field(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot page by " + name);
+        }
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+}
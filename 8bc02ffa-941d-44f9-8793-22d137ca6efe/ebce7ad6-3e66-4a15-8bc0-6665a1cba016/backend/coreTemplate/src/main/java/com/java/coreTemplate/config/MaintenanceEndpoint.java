@@ -0,0 +1,30 @@
+package com.java.coreTemplate.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+// /actuator/maintenance lists the last run of every BulkMaintenance job on this node,
+// /actuator/maintenance/{job} one of them (404 when it never ran)
+@Component
+@Endpoint(id = "maintenance")
+public class MaintenanceEndpoint {
+    private final BulkMaintenance maintenance;
+
+    public MaintenanceEndpoint(BulkMaintenance maintenance) {
+        this.maintenance = maintenance;
+    }
+
+    @ReadOperation
+    public Collection<BulkMaintenance.Progress> jobs() {
+        return maintenance.progress();
+    }
+
+    @ReadOperation
+    public BulkMaintenance.Progress job(@Selector String job) {
+        return maintenance.progress(job);
+    }
+}
@@ -0,0 +1,247 @@
+package com.java.coreTemplate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.coreTemplate.config.PasswordHasher;
+import com.java.coreTemplate.model.dto.UserImportResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Streams users from CSV (header row required) or NDJSON into the users table.
+// Rows are inserted in multi-row INSERT ... ON CONFLICT DO NOTHING statements, one
+// transaction per batch, so a duplicate only rejects its own row. Passwords that are
+// already bcrypt hashes are stored as given; plaintext ones are hashed on the way in, a
+// batch at a time on the PasswordHasher pool, which is still far slower, so large
+// migrations should export hashes.
+@Slf4j
+@Service
+public class UserImportService {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    // Postgres allows at most 32767 bind parameters per statement
+    private static final int MAX_BATCH_SIZE = 32767 / 3;
+
+    public enum Format { CSV, NDJSON }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHasher passwordHasher;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             PasswordHasher passwordHasher,
+                             ObjectMapper objectMapper,
+                             @Value("${user-import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordHasher = passwordHasher;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+    }
+
+    public UserImportResult importUsers(InputStream body, Format format) throws IOException {
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            List<Row> batch = new ArrayList<>(batchSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = Arrays.asList(splitCsv(line));
+                    continue;
+                }
+                run.received++;
+                try {
+                    batch.add(format == Format.CSV ? csvRow(header, line, lineNumber) : jsonRow(line, lineNumber));
+                } catch (IllegalArgumentException e) {
+                    run.reject(lineNumber, e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    insert(batch, run);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insert(batch, run);
+            }
+        }
+        log.info("User import finished: {} received, {} imported, {} rejected", run.received, run.imported, run.failed);
+        return new UserImportResult(run.received, run.imported, run.failed, run.errors);
+    }
+
+    private void insert(List<Row> rows, ImportRun run) {
+        // Plaintext passwords of the whole batch are hashed on the PasswordHasher pool in parallel
+        List<Integer> plaintext = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (!passwordHasher.isHash(rows.get(i).password())) {
+                plaintext.add(i);
+            }
+        }
+        String[] hashes = passwordHasher.hashAll(plaintext.stream().map(i -> rows.get(i).password()).toList());
+        Row[] hashed = rows.toArray(Row[]::new);
+        for (int j = 0; j < hashes.length; j++) {
+            Row row = hashed[plaintext.get(j)];
+            hashed[plaintext.get(j)] = hashes[j] == null ? null
+                    : new Row(row.line(), row.username(), hashes[j], row.email());
+        }
+        List<Row> ready = new ArrayList<>(rows.size());
+        for (int i = 0; i < hashed.length; i++) {
+            if (hashed[i] != null) {
+                ready.add(hashed[i]);
+            } else {
+                run.reject(rows.get(i).line(), "Server busy, password not hashed");
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO users (username, password, email) VALUES ");
+        Object[] args = new Object[ready.size() * 3];
+        for (int i = 0; i < ready.size(); i++) {
+            Row row = ready.get(i);
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            args[i * 3] = row.username();
+            args[i * 3 + 1] = row.password();
+            args[i * 3 + 2] = row.email();
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING username, email");
+        Set<List<String>> inserted = new HashSet<>(transactionTemplate.execute(status -> jdbcTemplate.query(
+                sql.toString(), (rs, rowNum) -> List.of(rs.getString("username"), rs.getString("email")), args)));
+
+        // Matched on username and email, so a row skipped for its email is not credited with a later
+        // row's insert of the same username. Postgres inserts VALUES in order, so of two identical
+        // rows the first is the one that went in
+        Map<String, Integer> insertedUsernameAt = new HashMap<>();
+        List<Integer> skipped = new ArrayList<>();
+        for (int i = 0; i < ready.size(); i++) {
+            Row row = ready.get(i);
+            if (inserted.remove(List.of(row.username(), row.email()))) {
+                run.imported++;
+                insertedUsernameAt.put(row.username(), i);
+            } else {
+                skipped.add(i);
+            }
+        }
+        if (skipped.isEmpty()) {
+            return;
+        }
+        // A skipped row hit an existing username if the name was taken before the batch or by an
+        // earlier row of it; otherwise its email was the conflict
+        Set<String> takenUsernames = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT username FROM users WHERE username = ANY (?)", String.class,
+                (Object) skipped.stream().map(i -> ready.get(i).username()).toArray(String[]::new)));
+        for (int i : skipped) {
+            Row row = ready.get(i);
+            Integer insertedAt = insertedUsernameAt.get(row.username());
+            boolean usernameTaken = insertedAt != null ? insertedAt < i : takenUsernames.contains(row.username());
+            run.reject(row.line(), usernameTaken ? "Username already exists" : "Email already exists");
+        }
+    }
+
+    private Row csvRow(List<String> header, String line, long lineNumber) {
+        String[] fields = splitCsv(line);
+        return row(lineNumber, field(header, fields, "username"), field(header, fields, "password"),
+                field(header, fields, "email"));
+    }
+
+    private Row jsonRow(String line, long lineNumber) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        return row(lineNumber, node.path("username").asText(null), node.path("password").asText(null),
+                node.path("email").asText(null));
+    }
+
+    private static Row row(long lineNumber, String username, String password, String email) {
+        if (isBlank(username) || isBlank(password) || isBlank(email)) {
+            throw new IllegalArgumentException("username, password and email are required");
+        }
+        return new Row(lineNumber, username.trim(), password, email.trim());
+    }
+
+    private static String field(List<String> header, String[] fields, String name) {
+        int index = header.indexOf(name);
+        return index >= 0 && index < fields.length ? fields[index] : null;
+    }
+
+    // RFC 4180 fields on a single line: commas inside quotes, "" for a literal quote
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields.toArray(String[]::new);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record Row(long line, String username, String password, String email) {
+    }
+
+    private static final class ImportRun {
+        private long received;
+        private long imported;
+        private long failed;
+        private final List<UserImportResult.RowError> errors = new ArrayList<>();
+
+        private void reject(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new UserImportResult.RowError(line, message));
+            }
+        }
+    }
+}
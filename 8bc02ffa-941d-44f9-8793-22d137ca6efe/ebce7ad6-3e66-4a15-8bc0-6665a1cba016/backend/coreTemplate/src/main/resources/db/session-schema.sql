@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS app_session (
+    session_id  VARCHAR(128) PRIMARY KEY,
+    user_id     VARCHAR(255) NOT NULL,
+    created_at  BIGINT       NOT NULL,
+    last_access BIGINT       NOT NULL,
+    expires_at  BIGINT       NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS app_session_user_idx ON app_session (user_id, created_at);
+CREATE INDEX IF NOT EXISTS app_session_expires_idx ON app_session (expires_at);
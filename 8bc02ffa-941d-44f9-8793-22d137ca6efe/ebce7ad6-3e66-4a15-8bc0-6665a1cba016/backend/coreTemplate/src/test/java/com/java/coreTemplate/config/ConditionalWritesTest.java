@@ -0,0 +1,133 @@
+package com.java.coreTemplate.config;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Query;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ConditionalWritesTest {
+	private EntityManager entityManager;
+	private Query write;
+	private Query versionLookup;
+	private ConditionalWrites writes;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private String name;
+		private boolean active;
+		@Column(name = "created_at", updatable = false)
+		private Instant createdAt;
+		private Instant updatedAt;
+		@OneToMany
+		private List<Widget> parts;
+		@Version
+		private Long version;
+
+		Widget(String name) {
+			this.name = name;
+		}
+
+		@PreUpdate
+		void onUpdate() {
+			updatedAt = Instant.now();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		write = mock(Query.class, RETURNS_SELF);
+		versionLookup = mock(Query.class, RETURNS_SELF);
+		when(entityManager.createQuery(startsWith("UPDATE"))).thenReturn(write);
+		when(entityManager.createQuery(startsWith("DELETE"))).thenReturn(write);
+		when(entityManager.createQuery(startsWith("SELECT"))).thenReturn(versionLookup);
+		writes = new ConditionalWrites(entityManager);
+	}
+
+	@Test
+	void anUpdateIsOneStatementGuardedByTheVersion() {
+		when(write.executeUpdate()).thenReturn(1);
+		Widget values = new Widget("gear");
+
+		ConditionalWrites.Result result = writes.update(Widget.class, 7L, 3L, values);
+
+		verify(entityManager).createQuery("UPDATE Widget e SET e.name = :name, e.active = :active, "
+				+ "e.updatedAt = :updatedAt, e.version = e.version + 1 WHERE e.id = :id AND e.version = :version");
+		verify(write).setParameter("version", 3L);
+		assertNotNull(values.updatedAt, "@PreUpdate runs before binding");
+		verify(write).setParameter("updatedAt", values.updatedAt);
+		verify(entityManager, never()).createQuery(startsWith("SELECT"));
+		assertTrue(result.applied());
+		assertEquals("\"7-4\"", result.toResponse(7L).getHeaders().getETag());
+	}
+
+	@Test
+	void aPatchOnlySetsTheFieldsThatWereSent() {
+		when(write.executeUpdate()).thenReturn(1);
+
+		writes.patch(Widget.class, 7L, 3L, new Widget(null));
+
+		verify(entityManager).createQuery("UPDATE Widget e SET e.updatedAt = :updatedAt, "
+				+ "e.version = e.version + 1 WHERE e.id = :id AND e.version = :version");
+	}
+
+	@Test
+	void noAffectedRowIsA412WhenTheRowStillExists() {
+		when(write.executeUpdate()).thenReturn(0);
+		when(versionLookup.getResultList()).thenReturn(List.of(5L));
+
+		ResponseEntity<Void> response = writes.update(Widget.class, 7L, 3L, new Widget("gear")).toResponse(7L);
+
+		assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+		assertEquals("\"7-5\"", response.getHeaders().getETag());
+	}
+
+	@Test
+	void noAffectedRowIsA404WhenTheRowIsGone() {
+		when(write.executeUpdate()).thenReturn(0);
+		when(versionLookup.getResultList()).thenReturn(List.of());
+
+		ResponseEntity<Void> response = writes.delete(Widget.class, 7L, 3L).toResponse(7L);
+
+		verify(entityManager).createQuery("DELETE FROM Widget e WHERE e.id = :id AND e.version = :version");
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+	}
+
+	@Test
+	void withoutAnExpectedVersionTheDeleteIsUnconditional() {
+		when(write.executeUpdate()).thenReturn(1);
+
+		ResponseEntity<Void> response = writes.delete(Widget.class, 7L, null).toResponse(7L);
+
+		verify(entityManager).createQuery("DELETE FROM Widget e WHERE e.id = :id");
+		verify(write, never()).setParameter(eq("version"), any());
+		assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+	}
+
+	@Test
+	void ifMatchIsComparedStrongly() {
+		assertEquals(3L, EntityTags.versionOf("\"7-3\"", 7L));
+		assertEquals(3L, EntityTags.versionOf("\"1-9\", \"7-3\"", 7L));
+		assertNull(EntityTags.versionOf("*", 7L));
+		assertEquals(EntityTags.NO_MATCH, EntityTags.versionOf("W/\"7-3\"", 7L));
+		assertEquals(EntityTags.NO_MATCH, EntityTags.versionOf("\"17-3\"", 7L));
+		assertEquals(EntityTags.NO_MATCH, EntityTags.versionOf("\"7-x\"", 7L));
+	}
+}
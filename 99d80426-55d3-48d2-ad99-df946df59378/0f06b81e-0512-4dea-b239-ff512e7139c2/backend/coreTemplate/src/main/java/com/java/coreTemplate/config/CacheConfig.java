@@ -0,0 +1,23 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class CacheConfig {
+    // A CacheManager bean named sharedCacheManager (Redis, Hazelcast, ...) becomes the L2 of
+    // every region marked shared; without one all regions are node-local
+    @Bean
+    @Primary
+    public ModuleCacheManager cacheManager(CacheSpecs cacheSpecs, MeterRegistry meterRegistry,
+                                           @Qualifier("sharedCacheManager") ObjectProvider<CacheManager> sharedCacheManager) {
+        ModuleCacheManager cacheManager = new ModuleCacheManager(cacheSpecs, meterRegistry);
+        sharedCacheManager.ifAvailable(cacheManager::setSharedCacheManager);
+        return cacheManager;
+    }
+}
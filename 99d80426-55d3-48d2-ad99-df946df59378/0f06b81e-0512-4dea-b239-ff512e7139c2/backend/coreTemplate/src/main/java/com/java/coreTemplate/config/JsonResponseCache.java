@@ -0,0 +1,139 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Serialized GET /{id} bodies, keyed by (entity, id, version). The UTF-8 JSON of a row
+// version is produced once with the application's ObjectMapper; later requests for the same
+// version return those bytes through ByteArrayHttpMessageConverter, which copies them to the
+// servlet output stream without touching Jackson. A write bumps @Version, so the new version
+// gets a new key and superseded bodies simply age out; nothing has to be evicted.
+// Entries are weighed by their byte size and bounded by response-cache.max-size. Besides
+// the usual cache.gets/evictions/size{cache=jsonResponses}, response.cache.bytes reports
+// the bytes held and response.cache.bytes.served the bytes written from the cache.
+// Rows without a version (never flushed) are serialized on every request.
+// Responses carry a strong ETag (see EntityTags). get() answers a matching If-None-Match
+// with 304 from a version-only lookup, counted as response.not.modified.
+@Component
+public class JsonResponseCache {
+    static final String CACHE_NAME = "jsonResponses";
+    // Rough per-entry cost of the key, the array header and Caffeine's node
+    private static final int ENTRY_OVERHEAD = 96;
+
+    public record Key(String entity, Object id, long version) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Cache<Key, byte[]> cache;
+    private final Counter bytesServed;
+    private final Counter notModified;
+
+    public JsonResponseCache(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${response-cache.enabled:true}") boolean enabled,
+                             @Value("${response-cache.max-size:64MB}") DataSize maxSize,
+                             @Value("${response-cache.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, byte[] body) -> body.length + ENTRY_OVERHEAD)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("response.cache.bytes", cache, JsonResponseCache::weightedSize)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("response.cache.max.bytes", maxSize, DataSize::toBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.bytesServed = Counter.builder("response.cache.bytes.served")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.notModified = Counter.builder("response.not.modified").register(meterRegistry);
+    }
+
+    // GET /{id} honouring If-None-Match. versionLookup must not read the whole row (a cached
+    // entity or a version-only query); the row is only loaded when the client has no copy
+    // or a stale one
+    public <T> ResponseEntity<byte[]> get(String entity, Object id, String ifNoneMatch,
+                                          Supplier<Optional<Long>> versionLookup,
+                                          Supplier<Optional<T>> rowLookup,
+                                          Function<T, Long> versionOf) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = versionLookup.get();
+            if (version.isPresent()) {
+                String tag = EntityTags.of(id, version.get());
+                if (EntityTags.matches(ifNoneMatch, tag)) {
+                    notModified.increment();
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+                }
+            }
+        }
+        return rowLookup.get()
+                .map(row -> ok(entity, id, versionOf.apply(row), row))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 200 with the row's JSON, taken from the cache when this version was serialized before
+    public ResponseEntity<byte[]> ok(String entity, Object id, Long version, Object row) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (version != null && id != null) {
+            response.eTag(EntityTags.of(id, version));
+        }
+        return response.body(bytes(entity, id, version, row));
+    }
+
+    public byte[] bytes(String entity, Object id, Long version, Object row) {
+        if (!enabled || version == null || id == null) {
+            return serialize(row);
+        }
+        Key key = new Key(entity, id, version);
+        byte[] body = cache.getIfPresent(key);
+        if (body != null) {
+            bytesServed.increment(body.length);
+            return body;
+        }
+        // Concurrent first requests may both serialize; the bytes are identical either way
+        body = serialize(row);
+        cache.put(key, body);
+        return body;
+    }
+
+    // Runs pending evictions first, which Caffeine otherwise does asynchronously
+    long weightedSize() {
+        cache.cleanUp();
+        return weightedSize(cache);
+    }
+
+    private static long weightedSize(Cache<Key, byte[]> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private byte[] serialize(Object row) {
+        try {
+            return objectMapper.writeValueAsBytes(row);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + row.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.java.coreTemplate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+// Warm-up between context start and readiness. Runs as an ApplicationRunner, so Spring
+// keeps the readiness state at REFUSING_TRAFFIC until it returns:
+//   1. opens the Hikari pool's minimum-idle connections,
+//   2. runs every CacheWarmer in parallel,
+//   3. replays the warmers' GET requests (plus warmup.requests) against this node a few
+//      rounds so the hot request paths are JIT compiled before real traffic arrives.
+// The whole phase is capped by warmup.timeout; after that the node goes ready with
+// whatever was loaded. Progress is exposed as the startupWarmUp health component (part of
+// the readiness group), app.warmup.duration and app.warmup.items{source}.
+@Slf4j
+@Component("startupWarmUp")
+public class StartupWarmUp implements ApplicationRunner, HealthIndicator {
+    private final List<CacheWarmer> warmers;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final int recentRows;
+    private final int parallelism;
+    private final int requestRounds;
+    private final List<String> requests;
+
+    private final Map<String, Integer> loaded = new ConcurrentHashMap<>();
+    private volatile boolean finished;
+    private volatile boolean timedOut;
+    private volatile long durationMillis;
+
+    public StartupWarmUp(List<CacheWarmer> warmers,
+                         ObjectProvider<DataSource> dataSource,
+                         ApplicationContext applicationContext,
+                         MeterRegistry meterRegistry,
+                         @Value("${warmup.enabled:true}") boolean enabled,
+                         @Value("${warmup.timeout:60s}") Duration timeout,
+                         @Value("${warmup.recent-rows:100}") int recentRows,
+                         @Value("${warmup.parallelism:4}") int parallelism,
+                         @Value("${warmup.request-rounds:50}") int requestRounds,
+                         @Value("${warmup.requests:}") List<String> requests) {
+        this.warmers = warmers;
+        this.dataSource = dataSource;
+        this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.recentRows = recentRows;
+        this.parallelism = Math.max(1, parallelism);
+        this.requestRounds = requestRounds;
+        this.requests = requests;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    void warmUp() {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "warmup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Void>> loads = new ArrayList<>();
+            loads.add(step("connections", this::primeConnectionPool, executor));
+            for (CacheWarmer warmer : warmers) {
+                loads.add(step(warmer.name(), () -> warmer.warmUp(recentRows), executor));
+            }
+            // Requests go last so they run against warm caches, like real traffic will
+            CompletableFuture<Void> all = CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new))
+                    .thenCompose(done -> step("requests", this::replayRequests, executor));
+            all.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut = true;
+            log.warn("Warm-up did not finish within {}, continuing with what was loaded", timeout);
+        } catch (ExecutionException e) {
+            log.warn("Warm-up failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            finished = true;
+            report();
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (!finished) {
+            return Health.outOfService().withDetail("loaded", new TreeMap<>(loaded)).build();
+        }
+        return Health.up()
+                .withDetail("durationMs", durationMillis)
+                .withDetail("timedOut", timedOut)
+                .withDetail("loaded", new TreeMap<>(loaded))
+                .build();
+    }
+
+    Map<String, Integer> getLoaded() {
+        return Map.copyOf(loaded);
+    }
+
+    boolean isTimedOut() {
+        return timedOut;
+    }
+
+    // A failing step is logged and skipped, it must not keep the others from running
+    private CompletableFuture<Void> step(String name, IntSupplier work, ExecutorService executor) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                loaded.put(name, work.getAsInt());
+            } catch (RuntimeException e) {
+                log.warn("Warm-up step '{}' failed", name, e);
+            }
+        }, executor);
+    }
+
+    private int primeConnectionPool() {
+        DataSource source = dataSource.getIfAvailable();
+        if (source == null) {
+            return 0;
+        }
+        List<Connection> connections = new ArrayList<>();
+        try {
+            if (!source.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            int minimumIdle = source.unwrap(HikariDataSource.class).getMinimumIdle();
+            // Held together so the pool really has to open minimum-idle distinct connections
+            for (int i = 0; i < minimumIdle; i++) {
+                connections.add(source.getConnection());
+            }
+            return connections.size();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open pooled connections", e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Closing warm-up connection failed", e);
+                }
+            }
+        }
+    }
+
+    private int replayRequests() {
+        if (!(applicationContext instanceof WebServerApplicationContext webContext)
+                || webContext.getWebServer() == null) {
+            return 0;
+        }
+        List<String> paths = new ArrayList<>(requests);
+        warmers.forEach(warmer -> paths.addAll(warmer.warmUpRequests()));
+        if (paths.isEmpty()) {
+            return 0;
+        }
+        String base = "http://127.0.0.1:" + webContext.getWebServer().getPort();
+        // Short-lived token for a subject that owns nothing; never leaves this process
+        String token = JwtTokenUtil.generateToken("startup-warmup", Map.of("warmup", true));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        AtomicInteger ok = new AtomicInteger();
+        for (int round = 0; round < requestRounds && !Thread.currentThread().isInterrupted(); round++) {
+            for (String path : paths) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(Duration.ofSeconds(5))
+                        .GET()
+                        .build();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400) {
+                        ok.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.debug("Warm-up request {} failed", path, e);
+                }
+            }
+        }
+        return ok.get();
+    }
+
+    private void report() {
+        Timer.builder("app.warmup.duration").register(meterRegistry)
+                .record(durationMillis, TimeUnit.MILLISECONDS);
+        Map<String, Integer> snapshot = new TreeMap<>(loaded);
+        snapshot.forEach((source, items) -> Gauge.builder("app.warmup.items", () -> items)
+                .tag("source", source)
+                .register(meterRegistry));
+        log.info("Warm-up {} in {} ms, loaded {}", timedOut ? "timed out" : "finished", durationMillis, snapshot);
+    }
+}
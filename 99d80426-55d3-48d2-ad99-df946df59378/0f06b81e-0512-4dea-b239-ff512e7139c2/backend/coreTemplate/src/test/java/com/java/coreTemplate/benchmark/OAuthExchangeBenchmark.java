@@ -0,0 +1,65 @@
+package com.java.coreTemplate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.coreTemplate.config.OAuthService;
+import com.java.coreTemplate.config.StubOAuthProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Code exchange plus user-info fetch against the local stub provider: "pooled" reuses
+// the shared HttpClient and its connections, "unpooled" builds a client per callback
+// and pays connection setup every time.
+// Run main() from the IDE, or org.openjdk.jmh.Main OAuthExchangeBenchmark on the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class OAuthExchangeBenchmark {
+	private StubOAuthProvider provider;
+	private OAuthService pooled;
+
+	@Setup
+	public void setUp() throws Exception {
+		provider = new StubOAuthProvider();
+		pooled = newService(newClient());
+	}
+
+	@TearDown
+	public void tearDown() {
+		provider.close();
+	}
+
+	@Benchmark
+	public Map<String, Object> pooled() {
+		return pooled.exchangeCodeAsync("code").join();
+	}
+
+	@Benchmark
+	public Map<String, Object> unpooled() {
+		return newService(newClient()).exchangeCodeAsync("code").join();
+	}
+
+	private OAuthService newService(HttpClient client) {
+		return new OAuthService(client, new ObjectMapper(), provider.baseUri() + "/token",
+				provider.baseUri() + "/userinfo", "", Duration.ofHours(1), "client", "secret",
+				"http://localhost:8080/", Duration.ofSeconds(5));
+	}
+
+	private static HttpClient newClient() {
+		return HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(OAuthExchangeBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,125 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuthFilterTest {
+	// app_session as both nodes see it: session id -> user_id, created_at, last_access
+	private final Map<String, Object[]> table = new ConcurrentHashMap<>();
+	private JdbcTemplate jdbcTemplate;
+	private JdbcSessionStore storeA;
+	private JdbcSessionStore storeB;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.update(startsWith("INSERT INTO app_session"), any(Object[].class))).thenAnswer(invocation -> {
+			table.put(invocation.getArgument(1), new Object[]{invocation.getArgument(2), invocation.getArgument(3),
+					invocation.getArgument(4)});
+			return 1;
+		});
+		when(jdbcTemplate.query(startsWith("SELECT user_id"), any(RowMapper.class), anyString()))
+				.thenAnswer(invocation -> select(invocation.getArgument(1), invocation.getArgument(2)));
+		storeA = store();
+		storeB = store();
+	}
+
+	@AfterEach
+	void tearDown() {
+		storeA.shutdown();
+		storeB.shutdown();
+	}
+
+	private List<?> select(RowMapper<?> mapper, String sessionId) throws SQLException {
+		Object[] row = table.get(sessionId);
+		if (row == null) {
+			return List.of();
+		}
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getString("user_id")).thenReturn((String) row[0]);
+		when(rs.getLong("created_at")).thenReturn((Long) row[1]);
+		when(rs.getLong("last_access")).thenReturn((Long) row[2]);
+		return List.of(mapper.mapRow(rs, 0));
+	}
+
+	private JdbcSessionStore store() {
+		return new JdbcSessionStore(jdbcTemplate, mock(PlatformTransactionManager.class),
+				mock(PgNotificationListener.class), Duration.ofMinutes(30), Duration.ofHours(12), 10,
+				Duration.ofSeconds(5), 100, Duration.ofMinutes(1), false, new SimpleMeterRegistry());
+	}
+
+	private static AuthFilter filter(JdbcSessionStore store) {
+		return new AuthFilter(new SessionAuthService(store, Duration.ofMinutes(30)),
+				new VerifiedTokenCache(0, new SimpleMeterRegistry()));
+	}
+
+	// The request a browser sends to another node: the session cookie, but no HttpSession there
+	private static MockHttpServletRequest requestWithCookie(String sessionId) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/protected");
+		request.setRequestedSessionId(sessionId);
+		return request;
+	}
+
+	@Test
+	void aSessionCreatedOnOneNodeIsAcceptedByAnother() throws Exception {
+		String sessionId = new SessionAuthService(storeA, Duration.ofMinutes(30))
+				.createSession("alice", new MockHttpServletRequest());
+		FilterChain chain = mock(FilterChain.class);
+		MockHttpServletRequest request = requestWithCookie(sessionId);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter(storeB).doFilter(request, response, chain);
+
+		verify(chain).doFilter(request, response);
+		assertEquals(200, response.getStatus());
+		assertNull(request.getSession(false));
+	}
+
+	@Test
+	void aSessionOpenedOnTheRequestThreadIsAcceptedOnceBoundElsewhere() throws Exception {
+		SessionAuthService sessionAuthService = new SessionAuthService(storeA, Duration.ofMinutes(30));
+		MockHttpServletRequest callback = new MockHttpServletRequest();
+		String sessionId = sessionAuthService.openSession(callback);
+		MockHttpServletResponse unbound = new MockHttpServletResponse();
+
+		filter(storeB).doFilter(requestWithCookie(sessionId), unbound, mock(FilterChain.class));
+		CompletableFuture.runAsync(() -> sessionAuthService.bindSession(sessionId, "alice")).join();
+		MockHttpServletResponse bound = new MockHttpServletResponse();
+		filter(storeB).doFilter(requestWithCookie(sessionId), bound, mock(FilterChain.class));
+
+		assertEquals(401, unbound.getStatus());
+		assertEquals(200, bound.getStatus());
+		assertEquals(1800, callback.getSession(false).getMaxInactiveInterval());
+	}
+
+	@Test
+	void anUnknownSessionIsRejected() throws Exception {
+		FilterChain chain = mock(FilterChain.class);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter(storeB).doFilter(requestWithCookie("forged"), response, chain);
+
+		verify(chain, never()).doFilter(any(), any());
+		assertEquals(401, response.getStatus());
+	}
+}
@@ -0,0 +1,141 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkMaintenanceTest {
+	private EntityManager entityManager;
+	private TypedQuery<Object> select;
+	private Query write;
+	private PlatformTransactionManager transactionManager;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<List<Object>> committed = new ArrayList<>();
+	private BulkMaintenance maintenance;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private boolean active;
+		@Version
+		private Long version;
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		select = mock(TypedQuery.class, RETURNS_SELF);
+		write = mock(Query.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Object.class))).thenReturn(select);
+		when(entityManager.createQuery(anyString())).thenReturn(write);
+		transactionManager = mock(PlatformTransactionManager.class);
+		maintenance = new BulkMaintenance(entityManager, transactionManager, registry, Clock.systemUTC(), 2,
+				Duration.ZERO);
+	}
+
+	@AfterEach
+	void tearDown() {
+		maintenance.shutdown();
+	}
+
+	@Test
+	void deletesWalkTheIdsInChunksOfOneTransactionEach() {
+		when(select.getResultList()).thenReturn(List.of(1L, 2L), List.of(3L));
+		when(write.executeUpdate()).thenReturn(2, 1);
+
+		BulkMaintenance.Progress progress = maintenance.run("purge", Widget.class,
+				BulkMaintenance.Operation.delete("e.active = false", Map.of()), committed::add);
+
+		verify(entityManager).createQuery("SELECT e.id FROM Widget e WHERE (e.active = false) ORDER BY e.id",
+				Object.class);
+		verify(entityManager).createQuery("SELECT e.id FROM Widget e WHERE e.id > :after AND (e.active = false) "
+				+ "ORDER BY e.id", Object.class);
+		verify(select).setParameter("after", 2L);
+		verify(select, times(2)).setMaxResults(2);
+		verify(entityManager, times(2)).createQuery("DELETE FROM Widget e WHERE e.id IN :ids AND (e.active = false)");
+		verify(transactionManager, times(2)).commit(any());
+		assertEquals(List.of(List.of(1L, 2L), List.of(3L)), committed);
+		assertEquals(BulkMaintenance.State.DONE, progress.state());
+		assertEquals(3, progress.affected());
+		assertEquals(2, progress.chunks());
+		assertEquals(3, registry.get("maintenance.rows").tag("job", "purge").counter().count());
+	}
+
+	@Test
+	void updatesBumpTheVersionAndBindTheParameters() {
+		when(select.getResultList()).thenReturn(List.of(1L));
+		when(write.executeUpdate()).thenReturn(1);
+
+		maintenance.run("deactivate", Widget.class, BulkMaintenance.Operation.update("e.active = false",
+				"e.active = true AND e.id < :limit", Map.of("limit", 10L)), committed::add);
+
+		verify(entityManager).createQuery("UPDATE Widget e SET e.active = false, e.version = e.version + 1 "
+				+ "WHERE e.id IN :ids AND (e.active = true AND e.id < :limit)");
+		verify(select).setParameter("limit", 10L);
+		verify(write).setParameter("limit", 10L);
+	}
+
+	@Test
+	void aFailedChunkEndsTheJobAndKeepsWhatCommitted() {
+		when(select.getResultList()).thenReturn(List.of(1L, 2L), List.of(3L, 4L));
+		when(write.executeUpdate()).thenReturn(2).thenThrow(new PersistenceException("lock timeout"));
+
+		BulkMaintenance.Progress progress = maintenance.run("purge", Widget.class,
+				BulkMaintenance.Operation.delete("e.active = false", Map.of()), committed::add);
+
+		assertEquals(BulkMaintenance.State.FAILED, progress.state());
+		assertEquals(2, progress.affected());
+		assertEquals("lock timeout", progress.error());
+		assertEquals(1, committed.size());
+		assertSame(progress, maintenance.progress("purge"));
+	}
+
+	@Test
+	void aRunningJobCannotBeStartedTwice() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(1);
+		when(select.getResultList()).thenReturn(List.of(1L));
+		when(write.executeUpdate()).thenReturn(1);
+		BulkMaintenance.Operation purge = BulkMaintenance.Operation.delete("e.active = false", Map.of());
+
+		maintenance.start("purge", Widget.class, purge, ids -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finished.countDown();
+		});
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> maintenance.start("purge", Widget.class, purge, committed::add));
+		release.countDown();
+
+		assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,132 @@
+package com.java.coreTemplate.config;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkWriterTest {
+	private EntityManager entityManager;
+	private PlatformTransactionManager transactionManager;
+	private BulkWriter writer;
+	private final List<List<Widget>> committed = new ArrayList<>();
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private String name;
+		@Column(name = "created_at", updatable = false)
+		private Instant createdAt;
+		@Version
+		private Long version;
+
+		Widget(Long id, String name, Long version) {
+			this.id = id;
+			this.name = name;
+			this.version = version;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		transactionManager = mock(PlatformTransactionManager.class);
+		// chunks of 4 rows, JDBC batches of 2
+		writer = new BulkWriter(entityManager, transactionManager, 4, 10, 2);
+	}
+
+	private static List<Widget> newRows(int count) {
+		return LongStream.range(0, count).mapToObj(i -> new Widget(null, "w" + i, null)).toList();
+	}
+
+	@Test
+	void insertsAreFlushedPerBatchAndCommittedPerChunk() {
+		AtomicLong sequence = new AtomicLong(100);
+		doAnswer(invocation -> {
+			((Widget) invocation.getArgument(0)).id = sequence.incrementAndGet();
+			return null;
+		}).when(entityManager).persist(any());
+
+		BulkWriter.Result result = writer.insert(Widget.class, newRows(10), committed::add);
+
+		verify(entityManager, times(10)).persist(any());
+		verify(entityManager, times(5)).flush();
+		verify(entityManager, times(5)).clear();
+		verify(transactionManager, times(3)).commit(any());
+		assertEquals(10, result.applied());
+		assertEquals(101L, result.ids().get(0));
+		assertEquals(110L, result.ids().get(9));
+		assertEquals(List.of(4, 4, 2), committed.stream().map(List::size).toList());
+	}
+
+	@Test
+	void newRowsMustNotCarryAnIdAndTheRequestIsBounded() {
+		ResponseStatusException withId = assertThrows(ResponseStatusException.class,
+				() -> writer.insert(Widget.class, List.of(new Widget(null, "a", null), new Widget(5L, "b", null)),
+						committed::add));
+		ResponseStatusException tooMany = assertThrows(ResponseStatusException.class,
+				() -> writer.insert(Widget.class, newRows(11), committed::add));
+
+		assertEquals(HttpStatus.BAD_REQUEST, withId.getStatusCode());
+		assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, tooMany.getStatusCode());
+		verifyNoInteractions(entityManager);
+	}
+
+	@Test
+	void aFailingChunkReportsWhatWasAlreadyWritten() {
+		doNothing().doNothing().doNothing().doNothing().doThrow(new PersistenceException("duplicate key"))
+				.when(entityManager).persist(any());
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> writer.insert(Widget.class, newRows(10), committed::add));
+
+		assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+		assertTrue(e.getReason().startsWith("4 rows were written"), e.getReason());
+		verify(transactionManager, times(1)).commit(any());
+		verify(transactionManager, times(1)).rollback(any());
+		assertEquals(1, committed.size(), "only the committed chunk is reported");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void updatesCopyOntoTheLoadedRowsAndReportMissingAndStaleOnes() {
+		Widget current1 = new Widget(1L, "old", 3L);
+		current1.createdAt = Instant.EPOCH;
+		Widget current2 = new Widget(2L, "old", 7L);
+		TypedQuery<Widget> select = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery("SELECT e FROM Widget e WHERE e.id IN :ids", Widget.class)).thenReturn(select);
+		when(select.getResultList()).thenReturn(List.of(current1, current2));
+
+		BulkWriter.Result result = writer.update(Widget.class, List.of(
+				new Widget(1L, "new", 3L), new Widget(2L, "stale", 6L), new Widget(3L, "gone", null)), committed::add);
+
+		assertEquals(List.of(1L), result.ids());
+		assertEquals(List.of(2L), result.conflicts());
+		assertEquals(List.of(3L), result.missing());
+		assertEquals("new", current1.name);
+		assertEquals(Instant.EPOCH, current1.createdAt, "updatable = false columns are kept");
+		assertEquals("old", current2.name);
+		assertEquals(1, committed.size());
+		assertEquals("new", committed.get(0).get(0).name);
+		verify(select).setParameter("ids", List.of(1L, 2L, 3L));
+	}
+}
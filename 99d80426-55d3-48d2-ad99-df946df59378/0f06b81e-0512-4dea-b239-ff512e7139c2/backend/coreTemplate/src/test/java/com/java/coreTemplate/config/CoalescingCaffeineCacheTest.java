@@ -0,0 +1,208 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingCaffeineCacheTest {
+	private static final int CALLERS = 16;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void concurrentMissesOnOneKeyRunASingleLoad() throws Exception {
+		Cache cache = new ModuleCacheManager(new CacheSpecs(), meterRegistry).getCache("billingCache");
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = new ArrayList<>();
+		results.add(pool.submit(() -> cache.get(1L, () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "row-1";
+		})));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i < CALLERS; i++) {
+			results.add(pool.submit(() -> cache.get(1L, () -> {
+				loads.incrementAndGet();
+				return "duplicate";
+			})));
+		}
+		await().atMost(5, TimeUnit.SECONDS).until(() -> waiting() == CALLERS);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertEquals("row-1", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(CALLERS - 1, joinedCount());
+	}
+
+	@Test
+	void waiterFallsBackToItsOwnLoadAfterTheTimeout() throws Exception {
+		CacheSpecs specs = new Binder(new MapConfigurationPropertySource(
+				Map.of("caches.defaults.load-wait-timeout", "50ms")))
+				.bind("caches", CacheSpecs.class).get();
+		Cache cache = new ModuleCacheManager(specs, meterRegistry).getCache("billingCache");
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> slow = pool.submit(() -> cache.get(1L, () -> {
+			loading.countDown();
+			release.await();
+			return "slow";
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+		assertEquals("fallback", cache.get(1L, () -> "fallback"));
+		assertEquals(1, meterRegistry.get("cache.loads.coalesced")
+				.tags("cache", "billingCache", "result", "timeout").counter().count());
+
+		release.countDown();
+		assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+		assertEquals("slow", cache.get(1L).get());
+	}
+
+	@Test
+	void leaderFailureIsSharedWithWaiters() throws Exception {
+		Cache cache = new ModuleCacheManager(new CacheSpecs(), meterRegistry).getCache("billingCache");
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = pool.submit(() -> cache.get(1L, () -> {
+			loading.countDown();
+			release.await();
+			throw new IllegalStateException("database down");
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		Future<String> waiter = pool.submit(() -> cache.get(1L, () -> "unused"));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> waiting() == 2);
+		release.countDown();
+
+		for (Future<String> result : List.of(leader, waiter)) {
+			Throwable failure = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS)).getCause();
+			assertInstanceOf(Cache.ValueRetrievalException.class, failure);
+			assertInstanceOf(IllegalStateException.class, failure.getCause());
+		}
+		assertNull(cache.get(1L));
+	}
+
+	@Test
+	void anEvictionDuringALoadKeepsTheLoadedRowOutOfTheCache() throws Exception {
+		ModuleCacheManager manager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		Cache cache = manager.getCache("billingCache");
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		// The reader has read the row before the write; the write commits and evicts meanwhile
+		Future<String> reader = pool.submit(() -> cache.get(1L, () -> {
+			loading.countDown();
+			release.await();
+			return "before-write";
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		manager.evict("billingCache", 1L);
+		release.countDown();
+
+		assertEquals("before-write", reader.get(5, TimeUnit.SECONDS));
+		assertNull(cache.get(1L));
+		assertEquals("after-write", cache.get(1L, () -> "after-write"));
+		assertEquals("after-write", cache.get(1L).get());
+	}
+
+	@Test
+	void aClearDuringALoadKeepsTheLoadedRowOutOfTheCache() throws Exception {
+		ModuleCacheManager manager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		Cache cache = manager.getCache("billingCache");
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> reader = pool.submit(() -> cache.get(1L, () -> {
+			loading.countDown();
+			release.await();
+			return "before-write";
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		manager.clearLocal("billingCache");
+		release.countDown();
+
+		assertEquals("before-write", reader.get(5, TimeUnit.SECONDS));
+		assertNull(cache.get(1L));
+	}
+
+	@Test
+	void aVersionedEvictionKeepsOlderRowsOutOfTheCache() {
+		ModuleCacheManager manager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		Cache cache = manager.getCache("billingCache");
+
+		// A plain @Cacheable read puts after its miss, so it can land after the eviction
+		manager.evict("billingCache", 1L, 3L);
+		cache.put(1L, new Row(2L));
+		assertNull(cache.get(1L));
+		cache.put(1L, new Row(3L));
+		assertEquals(3L, ((Row) cache.get(1L).get()).version);
+		// Rows of other keys, and values without a version, are not affected
+		cache.put(2L, new Row(1L));
+		assertNotNull(cache.get(2L));
+		manager.evict("billingCache", 3L, 5L);
+		cache.put(3L, "unversioned");
+		assertEquals("unversioned", cache.get(3L).get());
+	}
+
+	static final class Row {
+		@Version
+		final Long version;
+
+		Row(Long version) {
+			this.version = version;
+		}
+	}
+
+	private double joinedCount() {
+		return meterRegistry.get("cache.loads.coalesced").tags("cache", "billingCache", "result", "joined")
+				.counter().count();
+	}
+
+	// Pool threads parked on the leader's latch or future
+	private long waiting() {
+		return Thread.getAllStackTraces().keySet().stream()
+				.filter(thread -> thread.getState() == Thread.State.WAITING
+						|| thread.getState() == Thread.State.TIMED_WAITING)
+				.filter(CoalescingCaffeineCacheTest::isInCacheGet)
+				.count();
+	}
+
+	private static boolean isInCacheGet(Thread thread) {
+		for (StackTraceElement frame : thread.getStackTrace()) {
+			if (frame.getClassName().equals(CoalescingCaffeineCache.class.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,81 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JdbcSessionStoreTest {
+	private JdbcTemplate jdbcTemplate;
+	private JdbcSessionStore store;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		store = new JdbcSessionStore(jdbcTemplate, mock(PlatformTransactionManager.class),
+				mock(PgNotificationListener.class), Duration.ofMinutes(30), Duration.ofHours(12), 10,
+				Duration.ofMinutes(1), 100, Duration.ofMillis(1), false, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		store.shutdown();
+	}
+
+	@Test
+	void touchesAreServedFromTheNearCache() {
+		store.put("s1", "alice");
+
+		assertEquals("alice", store.touch("s1"));
+		assertEquals("alice", store.touch("s1"));
+		verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void repeatedTouchesAreFlushedAsOneRow() throws InterruptedException {
+		store.put("s1", "alice");
+		store.put("s2", "bob");
+		for (int i = 0; i < 5; i++) {
+			Thread.sleep(2);
+			store.touch("s1");
+			store.touch("s2");
+		}
+
+		store.flush();
+		store.flush();
+
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate, times(1)).batchUpdate(startsWith("UPDATE app_session"), batch.capture());
+		assertEquals(2, batch.getValue().size());
+	}
+
+	@Test
+	void unknownSessionsFallThroughToTheDatabase() {
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("missing"))).thenReturn(List.of());
+
+		assertNull(store.touch("missing"));
+	}
+
+	@Test
+	void removalIsBroadcastToOtherNodes() {
+		store.put("s1", "alice");
+
+		store.remove("s1");
+
+		verify(jdbcTemplate).queryForObject("SELECT pg_notify(?, ?)", String.class, JdbcSessionStore.CHANNEL, "s1");
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("s1"))).thenReturn(List.of());
+		assertNull(store.touch("s1"));
+	}
+}
@@ -0,0 +1,172 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PgCacheInvalidationTest {
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void notificationsFromOtherNodesDropL1EntriesAndAdvanceStamps() {
+		ModuleCacheManager cacheManager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		EntityVersionStamps stamps = new EntityVersionStamps();
+		PgCacheInvalidation invalidation = invalidation(cacheManager, stamps);
+		Cache billing = cacheManager.getCache("billingCache");
+		Cache byName = cacheManager.getCache("storagepyByName");
+		billing.put(1L, "row-1");
+		billing.put(2L, "row-2");
+		byName.put("primary", "row-3");
+
+		invalidation.apply("{\"node\":\"other\",\"evict\":[{\"cache\":\"billingCache\",\"id\":1},"
+				+ "{\"cache\":\"storagepyByName\",\"id\":\"primary\"}],\"clear\":[],\"stamps\":[\"billing\"]}");
+
+		assertNull(billing.get(1L));
+		assertNotNull(billing.get(2L));
+		assertNull(byName.get("primary"));
+		assertEquals(1, stamps.current("billing"));
+	}
+
+	@Test
+	void clearDropsTheWholeRegion() {
+		ModuleCacheManager cacheManager = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		PgCacheInvalidation invalidation = invalidation(cacheManager, new EntityVersionStamps());
+		Cache billing = cacheManager.getCache("billingCache");
+		billing.put(1L, "row-1");
+
+		invalidation.apply("{\"node\":\"other\",\"evict\":[],\"clear\":[\"billingCache\"],\"stamps\":[]}");
+
+		assertNull(billing.get(1L));
+	}
+
+	@Test
+	void uuidKeysTravelIndividuallyAndOlderRowsStayOutAfterwards() {
+		JdbcTemplate sender = mock(JdbcTemplate.class);
+		PgCacheInvalidation nodeA = new PgCacheInvalidation(sender, mock(PlatformTransactionManager.class),
+				new ObjectMapper(), mock(PgNotificationListener.class),
+				new ModuleCacheManager(new CacheSpecs(), meterRegistry), new EntityVersionStamps(), meterRegistry);
+		ModuleCacheManager cachesB = new ModuleCacheManager(new CacheSpecs(), meterRegistry);
+		PgCacheInvalidation nodeB = invalidation(cachesB, new EntityVersionStamps());
+		Cache storagepyB = cachesB.getCache("storagepyCache");
+		UUID written = UUID.randomUUID();
+		UUID other = UUID.randomUUID();
+		storagepyB.put(written, new Row(2L));
+		storagepyB.put(other, new Row(1L));
+
+		nodeA.evicted("storagepyCache", written, 3L);
+		ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+		verify(sender).queryForObject(anyString(), eq(String.class), eq(PgCacheInvalidation.CHANNEL),
+				payload.capture());
+		nodeB.apply((String) payload.getValue());
+
+		assertNull(storagepyB.get(written));
+		assertNotNull(storagepyB.get(other));
+		// A read on node B that fetched the row before the write commits its put afterwards
+		storagepyB.put(written, new Row(2L));
+		assertNull(storagepyB.get(written));
+		storagepyB.put(written, new Row(3L));
+		assertNotNull(storagepyB.get(written));
+	}
+
+	static final class Row {
+		@Version
+		final Long version;
+
+		Row(Long version) {
+			this.version = version;
+		}
+	}
+
+	// Needs a Postgres database: -Dtest.postgres.url=jdbc:postgresql://localhost:5432/postgres
+	// (plus test.postgres.username / test.postgres.password when they differ from postgres)
+	@Test
+	@EnabledIfSystemProperty(named = "test.postgres.url", matches = ".+")
+	void committedWritesOnOneNodeEvictTheOtherNodesL1() {
+		try (ConfigurableApplicationContext nodeA = startNode(); ConfigurableApplicationContext nodeB = startNode()) {
+			ModuleCacheManager cachesA = nodeA.getBean(ModuleCacheManager.class);
+			EntityVersionStamps stampsA = nodeA.getBean(EntityVersionStamps.class);
+			TransactionTemplate transactionA = new TransactionTemplate(nodeA.getBean(PlatformTransactionManager.class));
+			Cache billingB = nodeB.getBean(ModuleCacheManager.class).getCache("billingCache");
+			EntityVersionStamps stampsB = nodeB.getBean(EntityVersionStamps.class);
+
+			// The listener thread LISTENs asynchronously; probe until node B receives
+			await().atMost(Duration.ofSeconds(10)).until(() -> {
+				billingB.put(0L, "probe");
+				cachesA.evict("billingCache", 0L);
+				return billingB.get(0L) == null;
+			});
+
+			billingB.put(1L, "row-1");
+			billingB.put(2L, "row-2");
+			transactionA.executeWithoutResult(status -> {
+				cachesA.evict("billingCache", 1L);
+				status.setRollbackOnly();
+			});
+			transactionA.executeWithoutResult(status -> {
+				cachesA.evict("billingCache", 2L);
+				stampsA.bump("billing");
+			});
+
+			await().atMost(Duration.ofSeconds(2)).until(() -> billingB.get(2L) == null);
+			assertEquals(1, stampsB.current("billing"));
+			// Notifications arrive in commit order, so the rolled-back one would have come first
+			assertNotNull(billingB.get(1L));
+		}
+	}
+
+	private PgCacheInvalidation invalidation(ModuleCacheManager cacheManager, EntityVersionStamps stamps) {
+		return new PgCacheInvalidation(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+				new ObjectMapper(), mock(PgNotificationListener.class), cacheManager, stamps, meterRegistry);
+	}
+
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(Node.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + System.getProperty("test.postgres.url"),
+						"--spring.datasource.username=" + System.getProperty("test.postgres.username", "postgres"),
+						"--spring.datasource.password=" + System.getProperty("test.postgres.password", "postgres"),
+						"--caches.invalidation=notify");
+	}
+
+	@Configuration
+	@ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+			JdbcTemplateAutoConfiguration.class, JacksonAutoConfiguration.class})
+	@EnableConfigurationProperties
+	@Import({CacheSpecs.class, CacheConfig.class, EntityVersionStamps.class, PgNotificationListener.class,
+			PgCacheInvalidation.class})
+	static class Node {
+		@Bean
+		SimpleMeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+}
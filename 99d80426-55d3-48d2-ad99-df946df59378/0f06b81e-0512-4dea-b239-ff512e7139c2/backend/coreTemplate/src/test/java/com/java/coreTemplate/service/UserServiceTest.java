@@ -0,0 +1,74 @@
+package com.java.coreTemplate.service;
+
+import com.java.coreTemplate.config.PasswordHasher;
+import com.java.coreTemplate.model.entity.UserDetails;
+import com.java.coreTemplate.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+	@Mock
+	private UserRepository userRepository;
+	@Mock
+	private PasswordHasher passwordHasher;
+	@InjectMocks
+	private UserService userService;
+
+	@Test
+	void registrationIsASingleInsert() {
+		when(passwordHasher.hash("secret")).thenReturn("hashed");
+		when(userRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		UserDetails user = userService.registerUser("alice", "secret", "alice@example.com");
+
+		assertEquals("hashed", user.getPassword());
+		verify(userRepository, never()).findByUsername(any());
+		verify(userRepository, never()).findByEmail(any());
+	}
+
+	@Test
+	void uniqueViolationsMapToTheExistingMessages() {
+		when(userRepository.saveAndFlush(any()))
+				.thenThrow(duplicateKey("username", "alice"))
+				.thenThrow(duplicateKey("email", "alice@example.com"));
+
+		IllegalArgumentException username = assertThrows(IllegalArgumentException.class,
+				() -> userService.registerUser("alice", "secret", "alice@example.com"));
+		IllegalArgumentException email = assertThrows(IllegalArgumentException.class,
+				() -> userService.registerUser("alice2", "secret", "alice@example.com"));
+
+		assertEquals("Username already exists", username.getMessage());
+		assertEquals("Email already exists", email.getMessage());
+	}
+
+	@Test
+	void legacyPlaintextIsRehashedOnLogin() {
+		UserDetails user = new UserDetails("alice", "secret", "alice@example.com");
+		when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+		when(passwordHasher.matches("secret", "secret")).thenReturn(true);
+		when(passwordHasher.needsRehash("secret")).thenReturn(true);
+		when(passwordHasher.hash("secret")).thenReturn("hashed");
+
+		assertTrue(userService.authenticateUser("alice", "secret").isPresent());
+		assertEquals("hashed", user.getPassword());
+		verify(userRepository).save(user);
+	}
+
+	private static DataIntegrityViolationException duplicateKey(String column, String value) {
+		return new DataIntegrityViolationException("could not execute statement", new SQLException(
+				"ERROR: duplicate key value violates unique constraint \"users_" + column + "_key\"\n"
+						+ "  Detail: Key (" + column + ")=(" + value + ") already exists.", "23505"));
+	}
+}
@@ -1,16 +1,39 @@
 package com.java.coreTemplate.config;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
     @Bean
-    public FilterRegistrationBean<AuthFilter> authFilter(SessionAuthService sessionAuthService) {
+    public JwtKeyRing jwtKeyRing(JwtKeyProperties properties) throws IOException {
+        JwtKeyRing keyRing = JwtKeyRing.load(properties);
+        JwtTokenUtil.useKeyRing(keyRing);
+        return keyRing;
+    }
+
+    // Shared by every OAuth call so connections to the provider are reused
+    @Bean
+    public HttpClient oauthHttpClient(@Value("${oauth2.http.connect-timeout:2s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public FilterRegistrationBean<AuthFilter> authFilter(SessionAuthService sessionAuthService,
+                                                         VerifiedTokenCache tokenCache) {
         FilterRegistrationBean<AuthFilter> registrationBean = new FilterRegistrationBean<>();
-        registrationBean.setFilter(new AuthFilter(sessionAuthService));
+        registrationBean.setFilter(new AuthFilter(sessionAuthService, tokenCache));
         registrationBean.addUrlPatterns("/api/*");
         return registrationBean;
     }
@@ -0,0 +1,53 @@
+package com.java.coreTemplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "caches")
+@Getter
+@Setter
+public class CacheSpecs {
+    // Applied to every cache; fields set under specs.<name> override them
+    private Spec defaults = new Spec();
+
+    // Cache name -> overrides
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    public Spec resolve(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        Spec resolved = new Spec();
+        resolved.setMaximumSize(pick(spec != null ? spec.getMaximumSize() : null, defaults.getMaximumSize()));
+        resolved.setExpireAfterWrite(pick(spec != null ? spec.getExpireAfterWrite() : null, defaults.getExpireAfterWrite()));
+        resolved.setExpireAfterAccess(pick(spec != null ? spec.getExpireAfterAccess() : null, defaults.getExpireAfterAccess()));
+        resolved.setRefreshAfterWrite(pick(spec != null ? spec.getRefreshAfterWrite() : null, defaults.getRefreshAfterWrite()));
+        resolved.setLoadWaitTimeout(pick(spec != null ? spec.getLoadWaitTimeout() : null, defaults.getLoadWaitTimeout()));
+        resolved.setShared(pick(spec != null ? spec.getShared() : null, defaults.getShared()));
+        return resolved;
+    }
+
+    private static <T> T pick(T value, T fallback) {
+        return value != null ? value : fallback;
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private Long maximumSize;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        // Only honoured for caches that have a reloader registered with ModuleCacheManager
+        private Duration refreshAfterWrite;
+        // How long a caller waits on another caller's in-flight load before querying itself
+        private Duration loadWaitTimeout;
+        // Back the region with the sharedCacheManager bean as L2, when one is defined. Only
+        // meant for by-id regions: version stamps are per node, so stamp-keyed entries must stay local
+        private Boolean shared;
+    }
+}
@@ -0,0 +1,230 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Transient;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// GET /{module}/export: every row of an entity as NDJSON or CSV, written straight to the
+// servlet output stream. Rows come from a forward-only Hibernate stream with
+// export.fetch-size as the JDBC fetch size; inside a read-only transaction (auto-commit off)
+// PgJDBC turns that into a server-side cursor, so only one fetch of rows is in memory at a
+// time. Each row is written as soon as it is read and the persistence context is cleared
+// after every fetch, so heap use stays flat whatever the table size.
+// The export runs on the request thread rather than as a StreamingResponseBody, which keeps
+// the cursor and its transaction on one thread and avoids the async request timeout.
+// A failed write means the client went away: the export stops, the cursor is closed and the
+// connection goes back to the pool. Rows written are counted as export.rows{entity, format}.
+// An export holding its connection longer than hikari.leak-detection-threshold is reported
+// by Hikari as a possible leak; that warning is expected for large tables.
+@Slf4j
+@Component
+public class EntityExporter {
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + name);
+            }
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int fetchSize;
+    private final Map<Class<?>, List<Field>> csvColumns = new ConcurrentHashMap<>();
+
+    public EntityExporter(EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(Class<?> type, String name, String format, HttpServletResponse response) throws IOException {
+        Format chosen = Format.of(format);
+        response.setContentType(chosen.contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(name + "." + chosen.extension)
+                .build()
+                .toString());
+        Counter rows = Counter.builder("export.rows")
+                .tag("entity", name)
+                .tag("format", chosen.extension)
+                .register(meterRegistry);
+        OutputStream out = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+        try {
+            long written = transactionTemplate.execute(status -> write(type, chosen, out, rows));
+            out.flush();
+            log.debug("Exported {} {} rows as {}", written, name, chosen.extension);
+        } catch (UncheckedIOException e) {
+            disconnected(name, e.getCause());
+        } catch (IOException e) {
+            disconnected(name, e);
+        }
+    }
+
+    private static void disconnected(String name, IOException e) {
+        log.info("Export of {} stopped, client disconnected: {}", name, e.getMessage());
+    }
+
+    long write(Class<?> type, Format format, OutputStream out, Counter rows) {
+        String entityName = entityName(type);
+        List<Field> columns = format == Format.CSV ? csvColumns(type) : List.of();
+        long written = 0;
+        try (Stream<?> stream = entityManager.createQuery("SELECT e FROM " + entityName + " e ORDER BY e.id", type)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            if (format == Format.CSV) {
+                writeCsvHeader(columns, out);
+            }
+            Iterator<?> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Object row = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsvRow(columns, row, out);
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(row));
+                    out.write('\n');
+                }
+                rows.increment();
+                if (++written % fetchSize == 0) {
+                    // Detaches the rows of the last fetch; the cursor itself stays open
+                    entityManager.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    private void writeCsvHeader(List<Field> columns, OutputStream out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (Field column : columns) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            line.append(column.getName());
+        }
+        out.write(line.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeCsvRow(List<Field> columns, Object row, OutputStream out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = read(columns.get(i), row);
+            if (value != null) {
+                appendCsv(line, value.toString());
+            }
+        }
+        out.write(line.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // RFC 4180: quote fields holding a separator, quote or line break, doubling inner quotes
+    static void appendCsv(StringBuilder line, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    // Basic columns in declaration order; relationships would need their own queries
+    List<Field> csvColumns(Class<?> type) {
+        return csvColumns.computeIfAbsent(type, t -> {
+            List<Field> columns = new ArrayList<>();
+            for (Field field : t.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(Transient.class)
+                        || field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToMany.class)
+                        || field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                columns.add(field);
+            }
+            return List.copyOf(columns);
+        });
+    }
+
+    private static String entityName(Class<?> type) {
+        Entity entity = type.getAnnotation(Entity.class);
+        if (entity == null) {
+            throw new IllegalArgumentException(type.getName() + " is not an @Entity");
+        }
+        return entity.name().isEmpty() ? type.getSimpleName() : entity.name();
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.java.coreTemplate.config;
+
+// Strong entity tags built from a row's id and @Version. Both parts only change when the
+// row does, so equal tags mean byte-identical JSON and a tag can be checked against a
+// version-only lookup without reading the row.
+public final class EntityTags {
+
+    public static final long NO_MATCH = -1;
+
+    private EntityTags() {
+    }
+
+    public static String of(Object id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    // If-None-Match uses the weak comparison (RFC 9110 13.1.2), so a W/ prefix is ignored
+    public static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Version an If-Match header asks for, for the row with this id. If-Match uses the strong
+    // comparison, so weak, malformed or other rows' tags can never match and yield NO_MATCH,
+    // which no row version equals. null means "*": any current version is accepted.
+    public static Long versionOf(String ifMatch, Object id) {
+        String prefix = "\"" + id + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*")) {
+                return null;
+            }
+            if (trimmed.startsWith(prefix) && trimmed.endsWith("\"") && trimmed.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(trimmed.substring(prefix.length(), trimmed.length() - 1));
+                } catch (NumberFormatException e) {
+                    // not one of our tags
+                }
+            }
+        }
+        return NO_MATCH;
+    }
+}
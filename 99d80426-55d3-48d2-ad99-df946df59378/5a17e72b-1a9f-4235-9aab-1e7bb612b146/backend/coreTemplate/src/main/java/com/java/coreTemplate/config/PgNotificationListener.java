@@ -0,0 +1,120 @@
+package com.java.coreTemplate.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+// Postgres LISTEN/NOTIFY fan-in for cross-node invalidation. One background thread holds
+// a dedicated connection (kept out of the Hikari pool so a LISTENing session is never
+// handed to a request), LISTENs on every subscribed channel and hands payloads to the
+// subscribers. The thread is only started by the first subscription.
+@Slf4j
+@Component
+public class PgNotificationListener {
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public PgNotificationListener(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    public interface Subscriber {
+        void onNotification(String payload);
+
+        // Called after the connection was re-established; notifications sent meanwhile are lost
+        default void onReconnect() {
+        }
+    }
+
+    public synchronized void listen(String channel, Subscriber subscriber) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        subscribers.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(subscriber);
+        if (thread == null) {
+            thread = new Thread(this::run, "pg-notify-listener");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                Set<String> listening = new HashSet<>();
+                if (reconnecting) {
+                    subscribers.values().forEach(list -> list.forEach(Subscriber::onReconnect));
+                    reconnecting = false;
+                }
+                while (running) {
+                    for (String channel : subscribers.keySet()) {
+                        if (listening.add(channel)) {
+                            try (Statement statement = connection.createStatement()) {
+                                statement.execute("LISTEN " + channel);
+                            }
+                        }
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Notification listener lost its connection, retrying in {} ms", RECONNECT_DELAY_MILLIS, e);
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        for (Subscriber subscriber : subscribers.getOrDefault(notification.getName(), List.of())) {
+            try {
+                subscriber.onNotification(notification.getParameter());
+            } catch (RuntimeException e) {
+                log.warn("Notification handler for {} failed", notification.getName(), e);
+            }
+        }
+    }
+}
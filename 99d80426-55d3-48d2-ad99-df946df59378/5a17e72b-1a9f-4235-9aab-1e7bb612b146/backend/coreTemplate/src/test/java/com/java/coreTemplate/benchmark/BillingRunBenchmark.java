@@ -0,0 +1,188 @@
+package com.java.coreTemplate.benchmark;
+
+import com.java.coreTemplate.config.BatchRunner;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One billing run over a generated table of billing.rows modules (1M by default) in a real
+// PostgreSQL, at several worker counts: keyset pages of due modules, charges computed on the
+// workers and inserted with ON CONFLICT DO NOTHING, a checkpoint per page. The tables have the
+// shape and indexes of billing_module and billing_charge (db/runs/billing_charge.sql) and the job
+// sends BillingRunService's statements; a quarter of the modules are not due (inactive, one-off
+// or without a price). setUp generates the modules once and keeps them for later runs (drop
+// billing_benchmark_module to regenerate); the charges are truncated before every run.
+// The score is seconds per run; the run's log line has its rows per second.
+// -Dbilling.url, -Dbilling.user and -Dbilling.password select the database (local postgres by default).
+// Run main() from the IDE, or org.openjdk.jmh.Main BillingRunBenchmark on the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BillingRunBenchmark {
+	private static final LocalDate DATE = LocalDate.of(2026, 10, 18);
+	private static final String DUE = "SELECT id, price, billing_cycle_days, created_at FROM billing_benchmark_module "
+			+ "WHERE is_recurring AND is_active AND price > 0 AND billing_cycle_days > 0 "
+			+ "AND created_at < ? AND id > ? ORDER BY id LIMIT ?";
+	private static final String INSERT = "INSERT INTO billing_benchmark_charge "
+			+ "(billing_module_id, cycle, period_start, period_end, amount, run_date) "
+			+ "SELECT c.*, ?::date FROM unnest(?::bigint[], ?::int[], ?::date[], ?::date[], ?::numeric[]) "
+			+ "AS c(billing_module_id, cycle, period_start, period_end, amount) "
+			+ "ON CONFLICT (billing_module_id, cycle) DO NOTHING";
+
+	@Param({"1", "4", "8"})
+	private int parallelism;
+
+	private HikariDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private BatchRunner runner;
+	private final AtomicInteger runs = new AtomicInteger();
+
+	private record Due(long id, BigDecimal price, int cycleDays, LocalDate createdOn) {
+	}
+
+	private record Charge(long moduleId, int cycle, LocalDate periodStart, LocalDate periodEnd, BigDecimal amount) {
+	}
+
+	@Setup
+	public void setUp() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(System.getProperty("billing.url", "jdbc:postgresql://localhost:5432/postgres"));
+		dataSource.setUsername(System.getProperty("billing.user", "postgres"));
+		dataSource.setPassword(System.getProperty("billing.password", "postgres"));
+		// Workers, the run thread, its lock and the progress polling
+		dataSource.setMaximumPoolSize(parallelism + 3);
+		dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		new ResourceDatabasePopulator(new ClassPathResource("db/runs/batch_run.sql")).execute(dataSource);
+		int rows = Integer.getInteger("billing.rows", 1_000_000);
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS billing_benchmark_module (id bigint PRIMARY KEY, "
+				+ "module_name varchar(100) NOT NULL, is_active boolean, is_recurring boolean, price numeric(10,2), "
+				+ "billing_cycle_days integer, created_at timestamp)");
+		Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM billing_benchmark_module", Long.class);
+		if (count == null || count != rows) {
+			jdbcTemplate.execute("TRUNCATE billing_benchmark_module");
+			// Cycles of 7 to 365 days, created over the two years before DATE
+			jdbcTemplate.execute("INSERT INTO billing_benchmark_module SELECT g, 'Module ' || g, g % 10 <> 0, "
+					+ "g % 10 NOT IN (1, 2), CASE WHEN g % 20 = 3 THEN NULL ELSE 5 + (g % 500) END, "
+					+ "(ARRAY[7, 14, 30, 30, 30, 90, 365])[1 + g % 7], "
+					+ "timestamp '" + DATE + "' - (g % 730) * interval '1 day' "
+					+ "FROM generate_series(1, " + rows + ") g");
+		}
+		jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS billing_benchmark_module_due_idx "
+				+ "ON billing_benchmark_module (id) INCLUDE (price, billing_cycle_days, created_at) "
+				+ "WHERE is_recurring AND is_active AND price > 0 AND billing_cycle_days > 0");
+		jdbcTemplate.execute("VACUUM ANALYZE billing_benchmark_module");
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS billing_benchmark_charge (id bigserial PRIMARY KEY, "
+				+ "billing_module_id bigint NOT NULL, cycle integer NOT NULL, period_start date NOT NULL, "
+				+ "period_end date NOT NULL, amount numeric(10,2) NOT NULL, run_date date NOT NULL, "
+				+ "created_at timestamp NOT NULL DEFAULT now(), UNIQUE (billing_module_id, cycle))");
+		runner = new BatchRunner(jdbcTemplate, new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(),
+				10_000, 1_000, parallelism, Duration.ofMinutes(5));
+	}
+
+	@Setup(Level.Invocation)
+	public void clearCharges() {
+		jdbcTemplate.execute("TRUNCATE billing_benchmark_charge");
+	}
+
+	@TearDown
+	public void tearDown() {
+		runner.shutdown();
+		jdbcTemplate.update("DELETE FROM batch_run WHERE name LIKE 'billing-benchmark:%'");
+		dataSource.close();
+	}
+
+	@Benchmark
+	public long run() throws InterruptedException {
+		Run run = new Run(parallelism + "-" + runs.incrementAndGet());
+		BatchRunner.Progress progress = runner.start(run);
+		while (progress.state() == BatchRunner.State.RUNNING) {
+			Thread.sleep(10);
+			progress = runner.progress(run.run(), run.key());
+		}
+		if (progress.state() != BatchRunner.State.DONE) {
+			throw new IllegalStateException("Run failed: " + progress.error());
+		}
+		return progress.written();
+	}
+
+	// BillingRunService's job against the benchmark tables
+	private final class Run implements BatchRunner.Job<Due, Charge> {
+		private final String key;
+
+		Run(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public String run() {
+			return "billing-benchmark";
+		}
+
+		@Override
+		public String key() {
+			return key;
+		}
+
+		@Override
+		public List<Due> page(long after, int limit) {
+			return jdbcTemplate.query(DUE, (rs, rowNum) -> new Due(rs.getLong("id"), rs.getBigDecimal("price"),
+							rs.getInt("billing_cycle_days"), rs.getTimestamp("created_at").toLocalDateTime()
+							.toLocalDate()),
+					Timestamp.valueOf(DATE.plusDays(1).atStartOfDay()), after, limit);
+		}
+
+		@Override
+		public long id(Due row) {
+			return row.id();
+		}
+
+		@Override
+		public Charge compute(Due row) {
+			int cycle = (int) (ChronoUnit.DAYS.between(row.createdOn(), DATE) / row.cycleDays());
+			LocalDate periodStart = row.createdOn().plusDays((long) cycle * row.cycleDays());
+			return new Charge(row.id(), cycle, periodStart, periodStart.plusDays(row.cycleDays()), row.price());
+		}
+
+		@Override
+		public int write(List<Charge> charges) {
+			return jdbcTemplate.update(INSERT, statement -> {
+				Connection connection = statement.getConnection();
+				statement.setObject(1, DATE);
+				statement.setArray(2, connection.createArrayOf("int8",
+						charges.stream().map(Charge::moduleId).toArray()));
+				statement.setArray(3, connection.createArrayOf("int4", charges.stream().map(Charge::cycle).toArray()));
+				statement.setArray(4, connection.createArrayOf("text",
+						charges.stream().map(charge -> charge.periodStart().toString()).toArray()));
+				statement.setArray(5, connection.createArrayOf("text",
+						charges.stream().map(charge -> charge.periodEnd().toString()).toArray()));
+				statement.setArray(6, connection.createArrayOf("numeric",
+						charges.stream().map(Charge::amount).toArray()));
+			});
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(BillingRunBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,72 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OAuthServiceTest {
+	private StubOAuthProvider provider;
+	private HttpClient httpClient;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		provider = new StubOAuthProvider();
+		httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		provider.close();
+	}
+
+	@Test
+	void exchangesCodeForUserInfoAsynchronously() {
+		OAuthService service = newService("", Duration.ofSeconds(5));
+
+		Map<String, Object> userInfo = service.exchangeCodeAsync("abc").join();
+
+		assertEquals("stub@example.com", userInfo.get("email"));
+		assertEquals("stub-token", service.getAccessToken("abc"));
+	}
+
+	@Test
+	void discoveryDocumentIsFetchedOncePerTtl() {
+		OAuthService service = newService(provider.baseUri(), Duration.ofSeconds(5));
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals("Stub User", service.exchangeCodeAsync("abc").join().get("name"));
+		}
+		assertEquals(1, provider.getDiscoveryRequests());
+	}
+
+	@Test
+	void slowProviderTimesOut() {
+		OAuthService service = newService("", Duration.ofMillis(100));
+		provider.setLatencyMillis(1000);
+
+		CompletionException e = assertThrows(CompletionException.class, () -> service.getAccessToken("abc"));
+		assertInstanceOf(HttpTimeoutException.class, e.getCause());
+	}
+
+	@Test
+	void providerErrorsSurface() {
+		OAuthService service = newService("", Duration.ofSeconds(5));
+
+		assertThrows(IllegalStateException.class, () -> service.getUserInfo("wrong-token"));
+	}
+
+	private OAuthService newService(String issuerUri, Duration readTimeout) {
+		return new OAuthService(httpClient, new ObjectMapper(), provider.baseUri() + "/token",
+				provider.baseUri() + "/userinfo", issuerUri, Duration.ofHours(1), "client", "secret",
+				"http://localhost:8080/", readTimeout);
+	}
+}
@@ -0,0 +1,30 @@
+package com.java.coreTemplate.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// Implemented by each module that wants its caches filled before the node reports ready.
+// StartupWarmUp calls every warmer in parallel; a warmer should load its active rows and the
+// recentRows most recently updated ones, going through the service proxy where the result
+// itself is cached.
+public interface CacheWarmer {
+    // Used in logs, metrics and the health details
+    String name();
+
+    // Returns the number of items loaded
+    int warmUp(int recentRows);
+
+    // GET paths (with query string) replayed against this node to warm up the JIT
+    default List<String> warmUpRequests() {
+        return List.of();
+    }
+
+    // Stores rows the way @Cacheable stores the Optional returned by findById
+    static <T> int putAll(Cache cache, Collection<T> rows, Function<T, Object> id) {
+        rows.forEach(row -> cache.put(id.apply(row), row));
+        return rows.size();
+    }
+}
@@ -0,0 +1,276 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sessions shared by every node through the app_session table.
+// Each node keeps a near-cache of recently seen sessions for near-cache-ttl, so a
+// request normally costs no database round trip. Touches only move last_access in
+// memory; a background flush writes them in one batch once they are at least
+// touch-interval newer than what is stored. Removals are broadcast with NOTIFY in the
+// deleting transaction, so other nodes drop their cached copy as soon as it commits;
+// the TTL bounds staleness if a notification is ever missed.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "session.store", havingValue = "jdbc")
+public class JdbcSessionStore implements SessionStore {
+    static final String CHANNEL = "session_invalidated";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PgNotificationListener notificationListener;
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    private final int maxSessionsPerUser;
+    private final long nearCacheTtlMillis;
+    private final int nearCacheMaxEntries;
+    private final long touchIntervalMillis;
+    private final boolean initializeSchema;
+
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+    private final Map<String, CachedSession> pendingTouches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    private final Counter nearCacheHits;
+    private final Counter nearCacheMisses;
+    private final Counter flushedTouches;
+
+    public JdbcSessionStore(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            PgNotificationListener notificationListener,
+                            @Value("${session.idle-timeout:30m}") Duration idleTimeout,
+                            @Value("${session.absolute-timeout:12h}") Duration absoluteTimeout,
+                            @Value("${session.max-sessions-per-user:10}") int maxSessionsPerUser,
+                            @Value("${session.jdbc.near-cache-ttl:5s}") Duration nearCacheTtl,
+                            @Value("${session.jdbc.near-cache-max-entries:10000}") int nearCacheMaxEntries,
+                            @Value("${session.jdbc.touch-interval:60s}") Duration touchInterval,
+                            @Value("${session.jdbc.initialize-schema:true}") boolean initializeSchema,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.notificationListener = notificationListener;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.absoluteTimeoutMillis = absoluteTimeout.toMillis();
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.nearCacheTtlMillis = nearCacheTtl.toMillis();
+        this.nearCacheMaxEntries = nearCacheMaxEntries;
+        this.touchIntervalMillis = Math.max(1, touchInterval.toMillis());
+        this.initializeSchema = initializeSchema;
+
+        Gauge.builder("auth.sessions.nearcache.size", nearCache, Map::size).register(meterRegistry);
+        this.nearCacheHits = Counter.builder("auth.sessions.nearcache.hits").register(meterRegistry);
+        this.nearCacheMisses = Counter.builder("auth.sessions.nearcache.misses").register(meterRegistry);
+        this.flushedTouches = Counter.builder("auth.sessions.touches.flushed").register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (initializeSchema) {
+            new ResourceDatabasePopulator(new ClassPathResource("db/session-schema.sql"))
+                    .execute(jdbcTemplate.getDataSource());
+        }
+        notificationListener.listen(CHANNEL, new PgNotificationListener.Subscriber() {
+            @Override
+            public void onNotification(String sessionId) {
+                nearCache.remove(sessionId);
+            }
+
+            @Override
+            public void onReconnect() {
+                nearCache.clear();
+            }
+        });
+        long flushMillis = Math.max(100, touchIntervalMillis / 4);
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void put(String sessionId, String userId) {
+        long now = System.currentTimeMillis();
+        CachedSession session = new CachedSession(sessionId, userId, now, now, now);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO app_session (session_id, user_id, created_at, last_access, expires_at) "
+                            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (session_id) DO UPDATE SET user_id = EXCLUDED.user_id, "
+                            + "created_at = EXCLUDED.created_at, last_access = EXCLUDED.last_access, expires_at = EXCLUDED.expires_at",
+                    sessionId, userId, now, now, session.deadline());
+            if (maxSessionsPerUser > 0) {
+                List<String> evicted = jdbcTemplate.queryForList("DELETE FROM app_session WHERE session_id IN ("
+                                + "SELECT session_id FROM app_session WHERE user_id = ? "
+                                + "ORDER BY created_at DESC, session_id DESC OFFSET ?) RETURNING session_id",
+                        String.class, userId, maxSessionsPerUser);
+                evicted.forEach(this::notifyRemoved);
+            }
+        });
+        cache(session);
+    }
+
+    @Override
+    public String touch(String sessionId) {
+        long now = System.currentTimeMillis();
+        CachedSession session = nearCache.get(sessionId);
+        if (session != null && session.loadedAt + nearCacheTtlMillis > now) {
+            nearCacheHits.increment();
+        } else {
+            nearCacheMisses.increment();
+            session = load(sessionId, session, now);
+            if (session == null) {
+                return null;
+            }
+        }
+        if (session.deadline() <= now) {
+            remove(sessionId);
+            return null;
+        }
+        session.lastAccess = now;
+        if (now - session.storedAccess >= touchIntervalMillis) {
+            pendingTouches.put(sessionId, session);
+        }
+        return session.userId;
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        nearCache.remove(sessionId);
+        pendingTouches.remove(sessionId);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM app_session WHERE session_id = ?", sessionId);
+            notifyRemoved(sessionId);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    // Writes the coalesced last_access of every session touched since the previous flush
+    void flush() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (Iterator<CachedSession> it = pendingTouches.values().iterator(); it.hasNext(); ) {
+            CachedSession session = it.next();
+            it.remove();
+            long lastAccess = session.lastAccess;
+            batch.add(new Object[]{lastAccess, lastAccess + idleTimeoutMillis, session.sessionId});
+            session.storedAccess = lastAccess;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE app_session SET last_access = GREATEST(last_access, ?), "
+                            + "expires_at = LEAST(GREATEST(expires_at, ?), created_at + " + absoluteTimeoutMillis + ") "
+                            + "WHERE session_id = ?", batch));
+            flushedTouches.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} session touches", batch.size(), e);
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            Integer purged = transactionTemplate.execute(status ->
+                    jdbcTemplate.update("DELETE FROM app_session WHERE expires_at <= ?", System.currentTimeMillis()));
+            if (purged != null && purged > 0) {
+                log.debug("Purged {} expired sessions", purged);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Expired session purge failed", e);
+        }
+    }
+
+    private CachedSession load(String sessionId, CachedSession stale, long now) {
+        List<CachedSession> rows = jdbcTemplate.query(
+                "SELECT user_id, created_at, last_access FROM app_session WHERE session_id = ?",
+                (rs, rowNum) -> new CachedSession(sessionId, rs.getString("user_id"),
+                        rs.getLong("created_at"), rs.getLong("last_access"), now),
+                sessionId);
+        if (rows.isEmpty()) {
+            nearCache.remove(sessionId);
+            pendingTouches.remove(sessionId);
+            return null;
+        }
+        CachedSession session = rows.get(0);
+        // Keep a local access that has not been flushed yet
+        if (stale != null && stale.lastAccess > session.lastAccess) {
+            session.lastAccess = stale.lastAccess;
+            pendingTouches.replace(sessionId, stale, session);
+        }
+        cache(session);
+        return session;
+    }
+
+    private void cache(CachedSession session) {
+        if (nearCacheMaxEntries <= 0) {
+            return;
+        }
+        if (nearCache.size() >= nearCacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            nearCache.values().removeIf(cached -> cached.loadedAt + nearCacheTtlMillis <= now);
+            // Still full of live entries: drop an arbitrary tenth, they are reloaded on demand
+            int target = nearCacheMaxEntries - Math.max(1, nearCacheMaxEntries / 10);
+            Iterator<String> it = nearCache.keySet().iterator();
+            while (nearCache.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        nearCache.put(session.sessionId, session);
+    }
+
+    private void notifyRemoved(String sessionId) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, CHANNEL, sessionId);
+    }
+
+    private final class CachedSession {
+        private final String sessionId;
+        private final String userId;
+        private final long createdAt;
+        private final long loadedAt;
+        private volatile long lastAccess;
+        private volatile long storedAccess;
+
+        private CachedSession(String sessionId, String userId, long createdAt, long lastAccess, long loadedAt) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.createdAt = createdAt;
+            this.lastAccess = lastAccess;
+            this.storedAccess = lastAccess;
+            this.loadedAt = loadedAt;
+        }
+
+        private long deadline() {
+            return Math.min(lastAccess + idleTimeoutMillis, createdAt + absoluteTimeoutMillis);
+        }
+    }
+}
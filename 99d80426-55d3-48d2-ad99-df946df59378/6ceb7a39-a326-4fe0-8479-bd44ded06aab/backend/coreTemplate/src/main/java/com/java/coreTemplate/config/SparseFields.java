@@ -0,0 +1,259 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Transient;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// ?fields=id,name,isActive on the module list and search endpoints. Only the named columns are
+// selected (SELECT e.id, e.name, e.isActive FROM ...), read as tuples and written to the
+// response straight from them: no entity is built or put in the persistence context, and
+// large columns such as configurationJson are never read.
+// A name is either the entity's field name or its property name in the full JSON (isActive and
+// active both work); rows are written with the JSON names, so a sparse row is the full row with
+// properties left out. The id always comes first, asked for or not. Only basic columns that the
+// full representation serializes can be selected; anything else, and sorting by anything but a
+// basic column, is a 400.
+@Component
+public class SparseFields {
+    // A parsed ?fields=; fields and names in response order, the id first
+    public static final class Selection {
+        private final Columns columns;
+        private final List<Field> fields;
+        private final List<String> names;
+
+        private Selection(Columns columns, List<Field> fields, List<String> names) {
+            this.columns = columns;
+            this.fields = fields;
+            this.names = names;
+        }
+
+        // Field names to select, the selected ones first; extras only serve the caller (cursor keys)
+        public List<String> columns(String... extras) {
+            List<String> columns = fields.stream().map(Field::getName)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            for (String extra : extras) {
+                if (!columns.contains(extra)) {
+                    columns.add(extra);
+                }
+            }
+            return columns;
+        }
+
+        public String entityName() {
+            return columns.entityName();
+        }
+
+        public Row row(Object[] tuple) {
+            return new Row(names, tuple);
+        }
+
+        // Rows by id, for the search endpoints that rank ids first
+        public Map<Object, Row> byId(EntityManager entityManager, Collection<?> ids) {
+            List<String> selected = columns();
+            Map<Object, Row> rows = new HashMap<>();
+            for (Object[] tuple : entityManager.createQuery("SELECT " + select(selected) + " FROM " + entityName()
+                            + " e WHERE e." + selected.get(0) + " IN :ids", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList()) {
+                rows.put(tuple[0], row(tuple));
+            }
+            return rows;
+        }
+
+        // For rows that are already in memory
+        public Row row(Object entity) {
+            Object[] values = new Object[fields.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = read(fields.get(i), entity);
+            }
+            return new Row(names, values);
+        }
+    }
+
+    // One selected row, serialized as a JSON object of its names and the leading values of the
+    // tuple it was read from; values beyond the names (cursor keys) are not written
+    public static final class Row extends JsonSerializable.Base {
+        private final List<String> names;
+        private final Object[] values;
+
+        Row(List<String> names, Object[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        public Object get(String name) {
+            int i = names.indexOf(name);
+            return i >= 0 ? values[i] : null;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < names.size(); i++) {
+                provider.defaultSerializeField(names.get(i), values[i], generator);
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider provider,
+                                      TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, provider);
+        }
+    }
+
+    // A selectable column: the entity field and its name in the JSON representation
+    private record Column(Field field, String json) {
+    }
+
+    // The selectable columns of one entity under every accepted name (field and JSON name)
+    private record Columns(String entityName, Column id, Map<String, Column> byName) {
+    }
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, Columns> columns = new ConcurrentHashMap<>();
+
+    public SparseFields(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    public Selection select(Class<?> type, String fields) {
+        Columns known = columns(type);
+        Map<Field, String> selected = new LinkedHashMap<>();
+        selected.put(known.id().field(), known.id().json());
+        for (String name : fields.split(",")) {
+            String stripped = name.strip();
+            if (stripped.isEmpty()) {
+                continue;
+            }
+            Column column = known.byName().get(stripped);
+            if (column == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + stripped);
+            }
+            selected.putIfAbsent(column.field(), column.json());
+        }
+        return new Selection(known, List.copyOf(selected.keySet()), List.copyOf(selected.values()));
+    }
+
+    // Offset page of the list endpoint; the COUNT(*) is skipped when the page shows the total
+    public Page<Row> page(Selection selection, Pageable pageable) {
+        StringBuilder jpql = new StringBuilder("SELECT ").append(select(selection.columns()))
+                .append(" FROM ").append(selection.entityName()).append(" e");
+        String separator = " ORDER BY ";
+        for (Sort.Order order : pageable.getSort()) {
+            Column column = selection.columns.byName().get(order.getProperty());
+            if (column == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort by " + order.getProperty());
+            }
+            jpql.append(separator).append("e.").append(column.field().getName())
+                    .append(order.isDescending() ? " DESC" : " ASC");
+            separator = ", ";
+        }
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Row> rows = query.getResultList().stream().map(selection::row).toList();
+        return PageableExecutionUtils.getPage(rows, pageable, () -> entityManager
+                .createQuery("SELECT COUNT(e) FROM " + selection.entityName() + " e", Long.class)
+                .getSingleResult());
+    }
+
+    // "e.id, e.name"
+    public static String select(List<String> columns) {
+        return columns.stream().map(column -> "e." + column).collect(Collectors.joining(", "));
+    }
+
+    // Basic columns that the JSON representation has, under both of their names. A property
+    // is matched to its field by name, or by its getter's name for Lombok's isActive() style
+    private Columns columns(Class<?> type) {
+        return columns.computeIfAbsent(type, t -> {
+            Entity entity = t.getAnnotation(Entity.class);
+            if (entity == null) {
+                throw new IllegalArgumentException(t.getName() + " is not an @Entity");
+            }
+            Map<String, Field> basic = new HashMap<>();
+            Field idField = null;
+            for (Field field : t.getDeclaredFields()) {
+                if (isBasic(field)) {
+                    field.setAccessible(true);
+                    basic.put(field.getName(), field);
+                    if (field.isAnnotationPresent(Id.class)) {
+                        idField = field;
+                    }
+                }
+            }
+            if (idField == null) {
+                throw new IllegalArgumentException(t.getName() + " has no @Id field");
+            }
+            BeanDescription description = objectMapper.getSerializationConfig()
+                    .introspect(objectMapper.constructType(t));
+            Map<String, Column> known = new HashMap<>();
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                if (!property.couldSerialize()) {
+                    continue;
+                }
+                Field field = basic.get(property.getInternalName());
+                if (field == null && property.hasGetter()) {
+                    field = basic.get(property.getGetter().getName());
+                }
+                if (field != null) {
+                    Column column = new Column(field, property.getName());
+                    known.put(field.getName(), column);
+                    known.put(property.getName(), column);
+                }
+            }
+            Column id = known.getOrDefault(idField.getName(), new Column(idField, idField.getName()));
+            return new Columns(entity.name().isEmpty() ? t.getSimpleName() : entity.name(), id, Map.copyOf(known));
+        });
+    }
+
+    private static boolean isBasic(Field field) {
+        return !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())
+                && !field.isAnnotationPresent(Transient.class)
+                && !field.isAnnotationPresent(OneToMany.class) && !field.isAnnotationPresent(ManyToMany.class)
+                && !field.isAnnotationPresent(ManyToOne.class) && !field.isAnnotationPresent(OneToOne.class);
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+}
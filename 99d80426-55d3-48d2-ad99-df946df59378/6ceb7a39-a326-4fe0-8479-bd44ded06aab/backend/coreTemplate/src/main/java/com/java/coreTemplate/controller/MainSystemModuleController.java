@@ -1,24 +1,42 @@
 package com.java.coreTemplate.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
 import com.java.coreTemplate.service.MainSystemModuleService;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityTags;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.EntityExporter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.JsonResponseCache;
 import com.java.coreTemplate.model.dto.MainSystemModule;
 
+import jakarta.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/main-system-modules")  // Using hyphens instead of spaces
 public class MainSystemModuleController {
     private final MainSystemModuleService service;
+    private final JsonResponseCache responseCache;
+    private final EntityExporter exporter;
 
-    public MainSystemModuleController(MainSystemModuleService service) {
+    public MainSystemModuleController(MainSystemModuleService service, JsonResponseCache responseCache,
+                                      EntityExporter exporter) {
         this.service = service;
+        this.responseCache = responseCache;
+        this.exporter = exporter;
     }
 
     @PostMapping
@@ -29,23 +47,76 @@ public class MainSystemModuleController {
                 .body(savedEntity);
     }
 
+    // Arrays of rows; ids of new rows come from the pooled sequence. The response lists the
+    // written ids, and for PUT the ids not found and those sent with a stale version
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkWriter.Result> createAll(@RequestBody List<MainSystemModule> entities) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.createAll(entities));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkWriter.Result> updateAll(@RequestBody List<MainSystemModule> entities) {
+        return ResponseEntity.ok(service.updateAll(entities));
+    }
+
+    // 304 when If-None-Match still holds the current version's tag; otherwise the body is
+    // served from the serialized-body cache while the row's version is unchanged
     @GetMapping("/{id}")
-    public ResponseEntity<MainSystemModule> getById(@PathVariable Long id) {
-        return service.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getById(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.get("modules", id, ifNoneMatch,
+                () -> service.findVersion(id), () -> service.findById(id), MainSystemModule::getVersion);
     }
 
+    // ?fields=id,name,isActive reads and returns only those columns, here and in the cursor and
+    // search modes; see SparseFields
     @GetMapping
-    public ResponseEntity<Page<MainSystemModule>> getAll(
-            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+    public ResponseEntity<Page<?>> getAll(
+            @PageableDefault(size = 20, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.findAll(pageable, fields));
+        }
         return ResponseEntity.ok(service.findAll(pageable));
     }
 
+    // Cursor mode, selected by limit: ?limit=20[&sort=createdAt,desc], then ?after=<next>&limit=20
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<?>> getAllByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @SortDefault(sort = "id") Sort sort,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.findPage(after, limit, sort, fields));
+        }
+        return ResponseEntity.ok(service.findPage(after, limit, sort));
+    }
+
+    // Every row, streamed from a server-side cursor: ?format=ndjson (default) or ?format=csv
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        exporter.export(MainSystemModule.class, "modules", format, response);
+    }
+
+    // Rows streamed from the body: ?format=ndjson (default; a JSON array works too) or ?format=csv
+    // with a header of field names. Answered with the counts and a per-row error report
+    @PostMapping("/import")
+    public ResponseEntity<EntityImporter.Report> importRows(@RequestParam(defaultValue = "ndjson") String format,
+                                                            InputStream body) throws IOException {
+        return ResponseEntity.ok(service.importRows(format, body));
+    }
+
+    // With If-Match: one UPDATE ... WHERE id = ? AND version = ?, answered 204/404/412
     @PutMapping("/{id}")
     public ResponseEntity<MainSystemModule> update(
-            @PathVariable Long id, 
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody MainSystemModule entity) {
+        if (ifMatch != null) {
+            return service.conditionalUpdate(id, EntityTags.versionOf(ifMatch, id), entity).toResponse(id);
+        }
         if (!service.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
@@ -53,28 +124,38 @@ public class MainSystemModuleController {
         return ResponseEntity.ok(service.save(entity));
     }
 
+    // With If-Match: only the non-null fields, in one conditional UPDATE
     @PatchMapping("/{id}")
     public ResponseEntity<MainSystemModule> partialUpdate(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody MainSystemModule partialEntity) {
+        if (ifMatch != null) {
+            return service.conditionalPatch(id, EntityTags.versionOf(ifMatch, id), partialEntity).toResponse(id);
+        }
         return service.partialUpdate(id, partialEntity)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // One DELETE ... WHERE id = ? [AND version = ?]; 404/412 come from the affected row count
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!service.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        service.deleteById(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> delete(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatch != null ? EntityTags.versionOf(ifMatch, id) : null;
+        return service.conditionalDelete(id, expectedVersion).toResponse(id);
     }
 
+    // Ranked by relevance, prefix and typo tolerant; ?name=&limit=, then ?name=&after=<next>&limit=
     @GetMapping("/search")
-    public ResponseEntity<Page<MainSystemModule>> search(
+    public ResponseEntity<CursorPage<?>> search(
             @RequestParam(required = false) String name,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(service.searchByName(name, pageable));
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.search(name, after, limit, fields));
+        }
+        return ResponseEntity.ok(service.search(name, after, limit));
     }
 }
\ No newline at end of file
@@ -16,7 +16,9 @@ import java.util.Optional;
 public class MainSystemModule {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: one nextval per 50 ids, so inserts can be sent in JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "main_system_module_seq")
+    @SequenceGenerator(name = "main_system_module_seq", sequenceName = "main_system_module_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
@@ -13,9 +13,6 @@ public interface MainSystemModuleRepository extends JpaRepository<MainSystemModu
     // Find by module name using derived query
     Optional<MainSystemModule> findByName(String name);
 
-    // Find by name containing (case-insensitive)
-    List<MainSystemModule> findByNameContainingIgnoreCase(String nameFragment);
-
     // Find active modules
     List<MainSystemModule> findByIsActiveTrue();
 
@@ -44,4 +41,8 @@ public interface MainSystemModuleRepository extends JpaRepository<MainSystemModu
 
     // Count active modules by version prefix
     long countByVersionStartingWithAndIsActiveTrue(String versionPrefix);
+
+    // Version only, for conditional requests; leaves the rest of the row unread
+    @Query("SELECT m.version FROM MainSystemModule m WHERE m.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
\ No newline at end of file
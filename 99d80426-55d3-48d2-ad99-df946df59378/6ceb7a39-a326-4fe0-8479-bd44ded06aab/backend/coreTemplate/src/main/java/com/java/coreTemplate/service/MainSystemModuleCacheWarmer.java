@@ -0,0 +1,57 @@
+package com.java.coreTemplate.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import com.java.coreTemplate.config.CacheWarmer;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.model.dto.MainSystemModule;
+import com.java.coreTemplate.repository.MainSystemModuleRepository;
+
+import java.util.List;
+
+// Startup warm-up: active and recently updated rows go into modules, and the first page
+// of /api/v1/main-system-modules is cached the way the list endpoint requests it.
+@Component
+public class MainSystemModuleCacheWarmer implements CacheWarmer {
+    // Matches @PageableDefault(size = 20, sort = "id") on the controller
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    private final MainSystemModuleService service;
+    private final MainSystemModuleRepository repository;
+    private final ModuleCacheManager cacheManager;
+
+    public MainSystemModuleCacheWarmer(MainSystemModuleService service,
+                                       MainSystemModuleRepository repository,
+                                       ModuleCacheManager cacheManager) {
+        this.service = service;
+        this.repository = repository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String name() {
+        return "modules";
+    }
+
+    @Override
+    public int warmUp(int recentRows) {
+        Cache cache = cacheManager.getCache("modules");
+        int loaded = CacheWarmer.putAll(cache, service.findAllActive(), MainSystemModule::getId);
+        if (recentRows > 0) {
+            List<MainSystemModule> recent = repository
+                    .findAll(PageRequest.of(0, recentRows, Sort.by(Sort.Direction.DESC, "updatedAt")))
+                    .getContent();
+            loaded += CacheWarmer.putAll(cache, recent, MainSystemModule::getId);
+        }
+        loaded += service.findAll(FIRST_PAGE).getNumberOfElements();
+        return loaded;
+    }
+
+    @Override
+    public List<String> warmUpRequests() {
+        return List.of("/api/v1/main-system-modules?page=0&size=20&sort=id");
+    }
+}
\ No newline at end of file
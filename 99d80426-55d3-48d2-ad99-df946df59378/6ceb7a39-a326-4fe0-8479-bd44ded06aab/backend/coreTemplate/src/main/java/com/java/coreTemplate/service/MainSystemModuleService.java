@@ -1,18 +1,33 @@
 package com.java.coreTemplate.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.java.coreTemplate.repository.MainSystemModuleRepository;
 import com.java.coreTemplate.model.dto.MainSystemModule;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.SparseFields;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.ConditionalWrites;
+import com.java.coreTemplate.config.EntityVersionStamps;
+import com.java.coreTemplate.config.KeysetPager;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.config.InMemorySearch;
+import com.java.coreTemplate.config.TextSearch;
+import jakarta.annotation.PostConstruct;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -20,16 +35,41 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class MainSystemModuleService {
 
+    // Sort fields the cursor mode accepts besides the id; non-null columns only
+    private static final Set<String> SORTABLE = Set.of("name", "createdAt", "updatedAt");
+    // Columns indexed by db/search/*.sql for the /search endpoint
+    private static final TextSearch.Index SEARCH = new TextSearch.Index(MainSystemModule.class,
+            "main_system_module", List.of("name", "description"));
+
     private final MainSystemModuleRepository repository;
+    private final ModuleCacheManager cacheManager;
+    private final EntityVersionStamps versionStamps;
+    private final ConditionalWrites writes;
+    private final KeysetPager pager;
+    private final BulkWriter bulk;
+    private final InMemorySearch inMemorySearch;
+    private final SparseFields sparseFields;
+    private final EntityImporter importer;
+
+    // "modules" only holds by-id entries, so hot rows can be refreshed in the background
+    @PostConstruct
+    void registerCacheReloader() {
+        cacheManager.registerReloader("modules",
+                key -> key instanceof Long id ? repository.findById(id).orElse(null) : null);
+    }
+
+    @PostConstruct
+    void registerSearchIndex() {
+        inMemorySearch.register(SEARCH, "modules");
+    }
 
     @Transactional
-    @CacheEvict(value = "modules", allEntries = true)
     public MainSystemModule save(MainSystemModule entity) {
         log.info("Saving MainSystemModule: {}", entity);
-        return repository.save(entity);
+        return saveAndInvalidate(entity);
     }
 
-    @Cacheable(value = "modules", key = "#id")
+    @Cacheable(value = "modules", key = "#id", sync = true)
     public Optional<MainSystemModule> findById(Long id) {
         log.info("Fetching MainSystemModule with id: {}", id);
         return repository.findById(id);
@@ -40,32 +80,125 @@ public class MainSystemModuleService {
         return repository.findAll();
     }
 
+    // Hot first pages come from the shared "pages" region until the next write bumps the stamp
+    @Cacheable(value = "pages", key = "@pageCacheKeys.of('modules', #pageable)",
+            condition = "@pageCacheKeys.cacheable(#pageable)")
     public Page<MainSystemModule> findAll(Pageable pageable) {
         log.info("Fetching all MainSystemModules with pagination");
         return repository.findAll(pageable);
     }
 
+    // Cursor mode of the list endpoint: a keyset query without COUNT(*), see KeysetPager
+    public CursorPage<MainSystemModule> findPage(String after, int limit, Sort sort) {
+        return pager.page(MainSystemModule.class, after, limit, sort, SORTABLE);
+    }
+
+    // Prefix and fuzzy matches ranked by relevance, keyset paged; from memory when the table is
+    // opted in to InMemorySearch, otherwise see TextSearch
+    public CursorPage<MainSystemModule> search(String query, String after, int limit) {
+        return inMemorySearch.search(SEARCH, query, after, limit);
+    }
+
+    // ?fields= variants of findAll, findPage and search: only the selected columns are read and
+    // returned, see SparseFields
+    public Page<SparseFields.Row> findAll(Pageable pageable, String fields) {
+        return sparseFields.page(sparseFields.select(MainSystemModule.class, fields), pageable);
+    }
+
+    public CursorPage<SparseFields.Row> findPage(String after, int limit, Sort sort, String fields) {
+        return pager.page(MainSystemModule.class, after, limit, sort, SORTABLE,
+                sparseFields.select(MainSystemModule.class, fields));
+    }
+
+    public CursorPage<SparseFields.Row> search(String query, String after, int limit, String fields) {
+        return inMemorySearch.search(SEARCH, query, after, limit, sparseFields.select(MainSystemModule.class, fields));
+    }
+
     public List<MainSystemModule> findAllActive() {
         log.info("Fetching all active MainSystemModules");
         return repository.findByIsActiveTrue();
     }
 
     @Transactional
-    @CacheEvict(value = "modules", key = "#id")
     public void deleteById(Long id) {
         log.info("Deleting MainSystemModule with id: {}", id);
         repository.deleteById(id);
+        cacheManager.evict("modules", id);
+        versionStamps.bump("modules");
     }
 
     @Transactional
-    @CacheEvict(value = "modules", allEntries = true)
     public MainSystemModule update(MainSystemModule entity) {
         log.info("Updating MainSystemModule: {}", entity);
-        return repository.save(entity);
+        return saveAndInvalidate(entity);
     }
 
     public boolean existsById(Long id) {
         log.info("Checking existence of MainSystemModule with id: {}", id);
         return repository.existsById(id);
     }
+
+    // Version for conditional requests: taken from modules when the row is cached there,
+    // otherwise from a single-column query
+    public Optional<Long> findVersion(Long id) {
+        MainSystemModule cached = cacheManager.peek("modules", id, MainSystemModule.class);
+        return cached != null ? Optional.ofNullable(cached.getVersion()) : repository.findVersionById(id);
+    }
+
+    // PUT/PATCH/DELETE as one conditional statement, see ConditionalWrites. expectedVersion
+    // comes from If-Match; null accepts any version. Evictions apply once the transaction commits.
+    @Transactional
+    public ConditionalWrites.Result conditionalUpdate(Long id, Long expectedVersion, MainSystemModule values) {
+        return invalidated(id, writes.update(MainSystemModule.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalPatch(Long id, Long expectedVersion, MainSystemModule values) {
+        return invalidated(id, writes.patch(MainSystemModule.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalDelete(Long id, Long expectedVersion) {
+        return invalidated(id, writes.delete(MainSystemModule.class, id, expectedVersion));
+    }
+
+    // Array POST/PUT in chunked transactions, see BulkWriter. Not run inside the class's
+    // read-only transaction, so every chunk commits on its own; caches are invalidated after
+    // each commit
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result createAll(List<MainSystemModule> entities) {
+        return bulk.insert(MainSystemModule.class, entities, rows -> versionStamps.bump("modules"));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result updateAll(List<MainSystemModule> entities) {
+        return bulk.update(MainSystemModule.class, entities, rows -> {
+            cacheManager.evictAll("modules", rows.stream().map(MainSystemModule::getId).toList());
+            versionStamps.bump("modules");
+        });
+    }
+
+    // See EntityImporter; every committed batch is handled as a createAll() chunk
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EntityImporter.Report importRows(String format, InputStream body) throws IOException {
+        return importer.importRows(MainSystemModule.class, "modules", format, body,
+                rows -> versionStamps.bump("modules"));
+    }
+
+    // Only the written row leaves "modules"; applied once the transaction commits
+    private MainSystemModule saveAndInvalidate(MainSystemModule entity) {
+        MainSystemModule saved = repository.save(entity);
+        cacheManager.evict("modules", saved.getId());
+        versionStamps.bump("modules");
+        return saved;
+    }
+
+    private ConditionalWrites.Result invalidated(Long id, ConditionalWrites.Result result) {
+        if (result.applied()) {
+            cacheManager.evict("modules", id, result.version());
+            versionStamps.bump("modules");
+            inMemorySearch.refresh(MainSystemModule.class, List.of(id));
+        }
+        return result;
+    }
 }
\ No newline at end of file
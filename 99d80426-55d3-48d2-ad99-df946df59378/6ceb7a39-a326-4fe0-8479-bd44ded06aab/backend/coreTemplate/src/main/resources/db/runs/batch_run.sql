@@ -0,0 +1,15 @@
+-- Checkpoints of BatchRunner runs, one row per run and key (name is "run:key"). last_id is
+-- the id after which a resumed run carries on; owner is the node executing it, whose
+-- checkpoints keep updated_at fresh while it runs.
+CREATE TABLE IF NOT EXISTS batch_run (
+    name        VARCHAR(200) PRIMARY KEY,
+    state       VARCHAR(16)  NOT NULL,
+    owner       VARCHAR(64)  NOT NULL,
+    last_id     BIGINT       NOT NULL DEFAULT 0,
+    scanned     BIGINT       NOT NULL DEFAULT 0,
+    written     BIGINT       NOT NULL DEFAULT 0,
+    started_at  TIMESTAMPTZ  NOT NULL,
+    updated_at  TIMESTAMPTZ  NOT NULL,
+    finished_at TIMESTAMPTZ,
+    error       TEXT
+);
@@ -0,0 +1,224 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BatchRunnerTest {
+	private JdbcTemplate jdbcTemplate;
+	private Connection lockConnection;
+	private ResultSet lockResult;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private BatchRunner runner;
+
+	// Rows 1..25; every fifth has no result, and writing the unit holding failOn fails
+	private static final class Squares implements BatchRunner.Job<Long, Long> {
+		final List<Long> rows = LongStream.rangeClosed(1, 25).boxed().toList();
+		final List<Long> pagedAfter = Collections.synchronizedList(new ArrayList<>());
+		final List<Long> written = Collections.synchronizedList(new ArrayList<>());
+		final Set<String> threads = ConcurrentHashMap.newKeySet();
+		long failOn;
+
+		@Override
+		public String run() {
+			return "squares";
+		}
+
+		@Override
+		public String key() {
+			return "2026-10-18";
+		}
+
+		@Override
+		public List<Long> page(long after, int limit) {
+			pagedAfter.add(after);
+			return rows.stream().filter(id -> id > after).limit(limit).toList();
+		}
+
+		@Override
+		public long id(Long row) {
+			return row;
+		}
+
+		@Override
+		public Long compute(Long row) {
+			threads.add(Thread.currentThread().getName());
+			return row % 5 == 0 ? null : row * row;
+		}
+
+		@Override
+		public int write(List<Long> results) {
+			if (results.contains(failOn * failOn)) {
+				throw new IllegalStateException("insert failed");
+			}
+			written.addAll(results);
+			return results.size();
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		DataSource dataSource = mock(DataSource.class);
+		lockConnection = mock(Connection.class);
+		PreparedStatement lock = mock(PreparedStatement.class);
+		lockResult = mock(ResultSet.class);
+		when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+		when(dataSource.getConnection()).thenReturn(lockConnection);
+		when(lockConnection.prepareStatement(startsWith("SELECT pg_try_advisory_lock"))).thenReturn(lock);
+		when(lockConnection.createStatement()).thenReturn(mock(Statement.class));
+		when(lock.executeQuery()).thenReturn(lockResult);
+		when(lockResult.next()).thenReturn(true);
+		when(jdbcTemplate.update(startsWith("UPDATE batch_run SET last_id"), any(Object[].class))).thenReturn(1);
+		runner = new BatchRunner(jdbcTemplate, mock(PlatformTransactionManager.class), registry, 10, 3, 4,
+				Duration.ofMinutes(5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		runner.shutdown();
+	}
+
+	private static BatchRunner.Progress claimed(long lastId) {
+		return new BatchRunner.Progress("squares:2026-10-18", BatchRunner.State.RUNNING, lastId, lastId, 0,
+				Instant.EPOCH, Instant.EPOCH, null, null);
+	}
+
+	private void stubQuery(String sqlPrefix, BatchRunner.Progress result) {
+		when(jdbcTemplate.query(startsWith(sqlPrefix), ArgumentMatchers.<RowMapper<BatchRunner.Progress>>any(),
+				any(Object[].class))).thenReturn(result == null ? List.of() : List.of(result));
+	}
+
+	@Test
+	void pagesAreSplitIntoParallelUnitsAndCheckpointedOnceWritten() {
+		Squares job = new Squares();
+
+		BatchRunner.Progress done = runner.run(job, claimed(0));
+
+		assertEquals(BatchRunner.State.DONE, done.state());
+		assertEquals(25, done.scanned());
+		assertEquals(20, done.written());
+		assertEquals(20, job.written.size());
+		assertFalse(job.written.contains(25L));
+		assertEquals(List.of(0L, 10L, 20L), job.pagedAfter);
+		assertTrue(job.threads.stream().allMatch(name -> name.startsWith("batch-run-worker-")));
+		InOrder order = inOrder(jdbcTemplate);
+		order.verify(jdbcTemplate).update(startsWith("UPDATE batch_run SET last_id"), eq(10L), eq(10), eq(8),
+				eq("squares:2026-10-18"), anyString());
+		order.verify(jdbcTemplate).update(startsWith("UPDATE batch_run SET last_id"), eq(20L), eq(10), eq(8),
+				eq("squares:2026-10-18"), anyString());
+		order.verify(jdbcTemplate).update(startsWith("UPDATE batch_run SET last_id"), eq(25L), eq(5), eq(4),
+				eq("squares:2026-10-18"), anyString());
+		order.verify(jdbcTemplate).update(startsWith("UPDATE batch_run SET state"), eq("DONE"), isNull(),
+				eq("squares:2026-10-18"), anyString());
+		assertEquals(25, registry.get("batch.run.rows").tag("outcome", "scanned").counter().count());
+		assertEquals(20, registry.get("batch.run.rows").tag("outcome", "written").counter().count());
+		assertEquals(3, registry.get("batch.run.page").timer().count());
+	}
+
+	@Test
+	void aResumedRunCarriesOnAfterItsCheckpoint() {
+		Squares job = new Squares();
+
+		BatchRunner.Progress done = runner.run(job, claimed(20));
+
+		assertEquals(List.of(20L), job.pagedAfter);
+		assertEquals(List.of(441L, 484L, 529L, 576L), job.written.stream().sorted().toList());
+		assertEquals(25, done.scanned());
+	}
+
+	@Test
+	void aFailedUnitFailsTheRunAtTheLastCheckpoint() {
+		Squares job = new Squares();
+		job.failOn = 14;
+
+		BatchRunner.Progress failed = runner.run(job, claimed(0));
+
+		assertEquals(BatchRunner.State.FAILED, failed.state());
+		assertEquals("insert failed", failed.error());
+		// The page after 10 failed; resuming from 20 would skip it
+		assertEquals(10, failed.lastId());
+		verify(jdbcTemplate).update(startsWith("UPDATE batch_run SET last_id"), eq(10L), anyInt(), anyInt(),
+				anyString(), anyString());
+		verify(jdbcTemplate, never()).update(startsWith("UPDATE batch_run SET last_id"), eq(20L), anyInt(),
+				anyInt(), anyString(), anyString());
+		verify(jdbcTemplate).update(startsWith("UPDATE batch_run SET state"), eq("FAILED"), eq("insert failed"),
+				eq("squares:2026-10-18"), anyString());
+	}
+
+	@Test
+	void aRunTakenOverByAnotherNodeStopsAtItsNextCheckpoint() {
+		when(jdbcTemplate.update(startsWith("UPDATE batch_run SET last_id"), any(Object[].class))).thenReturn(0);
+		Squares job = new Squares();
+
+		BatchRunner.Progress stopped = runner.run(job, claimed(0));
+
+		assertEquals(BatchRunner.State.RUNNING, stopped.state());
+		assertEquals(0, stopped.lastId());
+		assertEquals(List.of(0L, 10L), job.pagedAfter);
+		verify(jdbcTemplate, never()).update(startsWith("UPDATE batch_run SET state"), any(Object[].class));
+	}
+
+	@Test
+	void aRunWhoseNodeIsGoneIsClaimedWithoutWaitingForTheLease() throws Exception {
+		when(lockResult.getBoolean(1)).thenReturn(true);
+		stubQuery("INSERT INTO batch_run", claimed(10));
+		Squares job = new Squares();
+
+		runner.start(job);
+
+		verify(jdbcTemplate).query(startsWith("INSERT INTO batch_run"),
+				ArgumentMatchers.<RowMapper<BatchRunner.Progress>>any(), eq("squares:2026-10-18"), anyString(),
+				eq(true), eq(300_000L));
+		verify(lockConnection, timeout(5000)).close();
+		assertEquals(List.of(10L, 20L), job.pagedAfter);
+	}
+
+	@Test
+	void aFinishedRunIsAnsweredAndARunningOneIsAConflict() throws SQLException {
+		Squares job = new Squares();
+		stubQuery("INSERT INTO batch_run", null);
+		BatchRunner.Progress finished = new BatchRunner.Progress("squares:2026-10-18", BatchRunner.State.DONE, 25,
+				25, 20, Instant.EPOCH, Instant.EPOCH, Instant.EPOCH, null);
+		stubQuery("SELECT", finished);
+
+		assertSame(finished, runner.start(job));
+		assertEquals(List.of(), job.pagedAfter);
+		verify(lockConnection).close();
+
+		stubQuery("SELECT", claimed(10));
+		ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> runner.start(job));
+		assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+		// The lock was held elsewhere: only a lapsed lease could have been taken over
+		verify(jdbcTemplate, times(2)).query(startsWith("INSERT INTO batch_run"),
+				ArgumentMatchers.<RowMapper<BatchRunner.Progress>>any(), anyString(), anyString(), eq(false),
+				anyLong());
+	}
+}
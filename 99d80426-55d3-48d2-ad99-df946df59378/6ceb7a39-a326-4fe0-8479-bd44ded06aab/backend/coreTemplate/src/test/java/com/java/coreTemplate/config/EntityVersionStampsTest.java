@@ -0,0 +1,52 @@
+package com.java.coreTemplate.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityVersionStampsTest {
+
+	@Test
+	void stampsAreIndependentPerEntity() {
+		EntityVersionStamps stamps = new EntityVersionStamps();
+
+		stamps.bump("billing");
+
+		assertEquals(1, stamps.current("billing"));
+		assertEquals(0, stamps.current("modules"));
+	}
+
+	@Test
+	void bumpInsideATransactionWaitsForTheCommit() {
+		EntityVersionStamps stamps = new EntityVersionStamps();
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			stamps.bump("billing");
+			assertEquals(0, stamps.current("billing"));
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, stamps.current("billing"));
+	}
+
+	@Test
+	void onlyChangesFromOtherNodesReachRemoteChangeListeners() {
+		EntityVersionStamps stamps = new EntityVersionStamps();
+		List<String> changed = new ArrayList<>();
+		stamps.onRemoteChange(changed::add);
+
+		stamps.bump("billing");
+		stamps.advance("modules");
+		stamps.advanceAll();
+
+		assertEquals(Arrays.asList("modules", null), changed);
+	}
+}
@@ -0,0 +1,89 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySessionStoreTest {
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private InMemorySessionStore store;
+
+	@AfterEach
+	void shutdown() {
+		store.shutdown();
+	}
+
+	@Test
+	void idleSessionsAreExpiredByTheWheelWithoutBeingRead() throws Exception {
+		store = newStore(Duration.ofMillis(100), Duration.ofHours(1), 100, 10);
+		store.put("s1", "alice");
+		assertEquals("alice", store.touch("s1"));
+
+		Thread.sleep(250);
+		store.advance();
+
+		assertEquals(0, store.size());
+		assertEquals(0, store.getMemoryEstimate());
+		assertEquals(1.0, meterRegistry.get("auth.sessions.evicted").tag("reason", "idle").counter().count());
+	}
+
+	@Test
+	void touchingASessionKeepsItAliveUntilTheAbsoluteTimeout() throws Exception {
+		store = newStore(Duration.ofMillis(200), Duration.ofMillis(400), 100, 10);
+		store.put("s1", "alice");
+		for (int i = 0; i < 4; i++) {
+			Thread.sleep(60);
+			assertEquals("alice", store.touch("s1"));
+		}
+
+		Thread.sleep(250);
+
+		assertNull(store.touch("s1"));
+		assertEquals(1.0, meterRegistry.get("auth.sessions.evicted").tag("reason", "absolute").counter().count());
+	}
+
+	@Test
+	void oldestSessionOfAUserIsEvictedBeyondThePerUserLimit() {
+		store = newStore(Duration.ofMinutes(30), Duration.ofHours(1), 100, 2);
+		store.put("s1", "alice");
+		store.put("s2", "alice");
+		store.put("s3", "alice");
+		store.put("s4", "bob");
+
+		assertNull(store.touch("s1"));
+		assertEquals("alice", store.touch("s2"));
+		assertEquals("alice", store.touch("s3"));
+		assertEquals("bob", store.touch("s4"));
+	}
+
+	@Test
+	void totalSessionsStayWithinTheCap() {
+		store = newStore(Duration.ofMinutes(30), Duration.ofHours(1), 50, 0);
+		for (int i = 0; i < 200; i++) {
+			store.put("s" + i, "user" + i);
+		}
+
+		assertEquals(50, store.size());
+		assertEquals(150.0, meterRegistry.get("auth.sessions.evicted").tag("reason", "capacity").counter().count());
+	}
+
+	@Test
+	void removedSessionsReleaseTheirMemoryEstimate() {
+		store = newStore(Duration.ofMinutes(30), Duration.ofHours(1), 100, 10);
+		store.put("s1", "alice");
+		assertTrue(store.getMemoryEstimate() > 0);
+
+		store.remove("s1");
+
+		assertNull(store.touch("s1"));
+		assertEquals(0, store.getMemoryEstimate());
+	}
+
+	private InMemorySessionStore newStore(Duration idle, Duration absolute, int maxSessions, int maxPerUser) {
+		return new InMemorySessionStore(idle, absolute, maxSessions, maxPerUser, Duration.ofMillis(10), meterRegistry);
+	}
+}
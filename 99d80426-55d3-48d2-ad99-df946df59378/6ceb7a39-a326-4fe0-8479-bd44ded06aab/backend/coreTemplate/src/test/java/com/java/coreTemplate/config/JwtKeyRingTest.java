@@ -0,0 +1,82 @@
+package com.java.coreTemplate.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+	private static final String OLD_KEY = newKey();
+	private static final String NEW_KEY = newKey();
+
+	@AfterEach
+	void resetKeyRing() {
+		JwtTokenUtil.useKeyRing(JwtKeyRing.ephemeral());
+	}
+
+	@Test
+	void tokensCarryKidAndVerifyOnAnyNodeSharingTheKey() throws Exception {
+		JwtTokenUtil.useKeyRing(JwtKeyRing.load(properties("k1", Map.of("k1", OLD_KEY))));
+		String token = JwtTokenUtil.generateToken("alice", Map.of());
+
+		// a second node started from the same configuration
+		JwtTokenUtil.useKeyRing(JwtKeyRing.load(properties("k1", Map.of("k1", OLD_KEY))));
+
+		String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+		assertTrue(header.contains("\"kid\":\"k1\""));
+		assertTrue(JwtTokenUtil.validateToken(token));
+	}
+
+	@Test
+	void rotationKeepsOldTokensValidUntilTheOldKeyIsRemoved() throws Exception {
+		JwtTokenUtil.useKeyRing(JwtKeyRing.load(properties("k1", Map.of("k1", OLD_KEY))));
+		String oldToken = JwtTokenUtil.generateToken("alice", Map.of());
+
+		JwtTokenUtil.useKeyRing(JwtKeyRing.load(properties("k2", Map.of("k1", OLD_KEY, "k2", NEW_KEY))));
+		String newToken = JwtTokenUtil.generateToken("bob", Map.of());
+		assertTrue(JwtTokenUtil.validateToken(oldToken));
+		assertTrue(JwtTokenUtil.validateToken(newToken));
+
+		JwtTokenUtil.useKeyRing(JwtKeyRing.load(properties("k2", Map.of("k2", NEW_KEY))));
+		assertFalse(JwtTokenUtil.validateToken(oldToken));
+		assertTrue(JwtTokenUtil.validateToken(newToken));
+	}
+
+	@Test
+	void keyFileEntriesAreMergedAndMaySelectTheActiveKey(@TempDir Path dir) throws Exception {
+		Path keyFile = dir.resolve("jwt-keys.properties");
+		Files.writeString(keyFile, "active-kid=k2\nk2=" + NEW_KEY + "\n");
+		JwtKeyProperties properties = properties("k1", Map.of("k1", OLD_KEY));
+		properties.setKeyFile(keyFile.toString());
+
+		JwtKeyRing ring = JwtKeyRing.load(properties);
+
+		assertEquals("k2", ring.getActiveKid());
+		assertTrue(ring.contains("k1"));
+	}
+
+	@Test
+	void unknownActiveKidFailsFast() {
+		assertThrows(IllegalArgumentException.class,
+				() -> JwtKeyRing.load(properties("missing", Map.of("k1", OLD_KEY))));
+	}
+
+	private static JwtKeyProperties properties(String activeKid, Map<String, String> keys) {
+		JwtKeyProperties properties = new JwtKeyProperties();
+		properties.setActiveKid(activeKid);
+		properties.getKeys().putAll(keys);
+		return properties;
+	}
+
+	private static String newKey() {
+		return Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded());
+	}
+}
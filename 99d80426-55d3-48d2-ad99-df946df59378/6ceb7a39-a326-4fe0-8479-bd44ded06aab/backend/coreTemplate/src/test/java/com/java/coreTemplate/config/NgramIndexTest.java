@@ -0,0 +1,61 @@
+package com.java.coreTemplate.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NgramIndexTest {
+	private final NgramIndex index = new NgramIndex();
+
+	private List<Object> ids(String query) {
+		return index.search(query).stream().map(NgramIndex.Hit::id).toList();
+	}
+
+	@Test
+	void wordsMatchByPrefixAndExactWordsRankFirst() {
+		index.put(1L, "a", 0L, Arrays.asList("Invoice export", "Monthly"));
+		index.put(2L, "b", 0L, Arrays.asList("Inventory", null));
+		index.put(3L, "c", 0L, Arrays.asList("Invo", "Short name"));
+
+		assertEquals(List.of(3L, 1L), ids("invo"));
+		assertEquals(List.of(2L), ids("INVENT"));
+		assertEquals(List.of(1L), ids("inv exp"));
+		assertEquals(List.of(), ids("invoice monthly report"));
+	}
+
+	@Test
+	void misspelledWordsStillMatchAndOtherColumnsWeighLess() {
+		index.put(1L, "a", 0L, Arrays.asList("Billing module", null));
+		index.put(2L, "b", 0L, Arrays.asList("Storage", "billing data"));
+
+		List<NgramIndex.Hit> hits = index.search("biling");
+
+		assertEquals(List.of(1L, 2L), hits.stream().map(NgramIndex.Hit::id).toList());
+		assertTrue(hits.get(0).score() > hits.get(1).score());
+		assertEquals(List.of(), ids("zzzz"));
+	}
+
+	@Test
+	void updatesReplaceTheOldTextUnlessOlderAndRemovesDrop() {
+		index.put(1L, "a", 3L, Arrays.asList("Validator", null));
+		index.put(1L, "b", 4L, Arrays.asList("Checker", null));
+		index.put(1L, "c", 2L, Arrays.asList("Stale", null));
+
+		assertEquals(List.of(), ids("validator"));
+		assertEquals(List.of(), ids("stale"));
+		assertEquals("b", index.search("checker").get(0).row());
+
+		index.remove(1L);
+
+		assertEquals(List.of(), ids("checker"));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void trigramsArePaddedLikePgTrgm() {
+		assertEquals(List.of("  a", " ab", "abc", "bc "), List.copyOf(NgramIndex.trigrams("abc")));
+	}
+}
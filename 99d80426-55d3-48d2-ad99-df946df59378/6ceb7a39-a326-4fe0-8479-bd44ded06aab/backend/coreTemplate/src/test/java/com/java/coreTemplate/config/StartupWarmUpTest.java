@@ -0,0 +1,98 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.support.StaticApplicationContext;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupWarmUpTest {
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void warmersRunInParallelAndAreReported() {
+		// Both warmers block until the other one has started, so they must run concurrently
+		CountDownLatch started = new CountDownLatch(2);
+		StartupWarmUp warmUp = warmUp(Duration.ofSeconds(10),
+				warmer("billing", () -> awaitOther(started, 3)),
+				warmer("modules", () -> awaitOther(started, 5)));
+
+		assertEquals(Status.OUT_OF_SERVICE, warmUp.health().getStatus());
+		warmUp.warmUp();
+
+		assertEquals(Status.UP, warmUp.health().getStatus());
+		assertFalse(warmUp.isTimedOut());
+		assertEquals(3, warmUp.getLoaded().get("billing"));
+		assertEquals(5, warmUp.getLoaded().get("modules"));
+		assertEquals(5, meterRegistry.get("app.warmup.items").tag("source", "modules").gauge().value());
+		assertEquals(1, meterRegistry.get("app.warmup.duration").timer().count());
+	}
+
+	@Test
+	void aFailingWarmerDoesNotStopTheOthers() {
+		StartupWarmUp warmUp = warmUp(Duration.ofSeconds(10),
+				warmer("billing", () -> {
+					throw new IllegalStateException("database down");
+				}),
+				warmer("modules", () -> 5));
+
+		warmUp.warmUp();
+
+		assertEquals(Status.UP, warmUp.health().getStatus());
+		assertNull(warmUp.getLoaded().get("billing"));
+		assertEquals(5, warmUp.getLoaded().get("modules"));
+	}
+
+	@Test
+	void readinessIsReleasedWhenTheTimeoutHits() {
+		// Nobody else ever counts this latch down
+		CountDownLatch never = new CountDownLatch(2);
+		StartupWarmUp warmUp = warmUp(Duration.ofMillis(100),
+				warmer("billing", () -> awaitOther(never, 1)),
+				warmer("modules", () -> 5));
+
+		warmUp.warmUp();
+
+		assertEquals(Status.UP, warmUp.health().getStatus());
+		assertTrue(warmUp.isTimedOut());
+		assertEquals(5, warmUp.getLoaded().get("modules"));
+	}
+
+	private StartupWarmUp warmUp(Duration timeout, CacheWarmer... warmers) {
+		return new StartupWarmUp(List.of(warmers), new StaticListableBeanFactory().getBeanProvider(DataSource.class),
+				new StaticApplicationContext(), meterRegistry, true, timeout, 100, 4, 1, List.of());
+	}
+
+	private static int awaitOther(CountDownLatch latch, int items) {
+		latch.countDown();
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		return items;
+	}
+
+	private static CacheWarmer warmer(String name, java.util.function.IntSupplier work) {
+		return new CacheWarmer() {
+			@Override
+			public String name() {
+				return name;
+			}
+
+			@Override
+			public int warmUp(int recentRows) {
+				return work.getAsInt();
+			}
+		};
+	}
+}
@@ -0,0 +1,436 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Answers /search for small, read-hot tables from memory (an NgramIndex per table) instead
+// of the database. Tables are opted in by entity name with search.in-memory.entities; the
+// rest, and an opted-in table whose index is not current, go to TextSearch. Results have the
+// same shape and cursor format, but not the same scores (NgramIndex approximates TextSearch's
+// ranking) and not always the same rows, so a cursor is tagged with its source and keeps to
+// it: a database cursor is always continued on the database, a memory cursor on the index even
+// while a rebuild is pending. A memory cursor is refused with 400 when the table has no index
+// any more, rather than restarting the listing without telling the client.
+// An index is built during warm-up (or on its first search) and kept up to date:
+//   - inserts, updates and deletes through the persistence context arrive as Hibernate
+//     post-commit events and are applied to the index directly;
+//   - writes that bypass it (ConditionalWrites, BulkMaintenance) are passed to refresh() by
+//     the services, which reloads those rows after the commit;
+//   - writes on other nodes arrive as remote version-stamp changes and trigger a rebuild, and
+//     every table is rebuilt each search.in-memory.rebuild-interval as a backstop (a table
+//     without a stamp only gets that).
+// While a rebuild or reload is outstanding, new searches fall back to the database. Events that
+// arrive during a rebuild are replayed onto the new index before it is swapped in; entries
+// carry the row's @Version, so a replayed older state cannot replace a newer one.
+// A table with more than search.in-memory.max-rows rows is not held and stays on the database.
+// Counted as search.in-memory{entity, served=memory|database}.
+@Slf4j
+@Component
+public class InMemorySearch implements CacheWarmer {
+    private final TextSearch textSearch;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityVersionStamps versionStamps;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> entities;
+    private final int maxRows;
+    private final Duration rebuildInterval;
+    private final Map<Class<?>, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Entry {
+        final TextSearch.Index index;
+        final String stamp;
+        final ConditionalWrites.Mapping mapping;
+        final List<Field> fields;
+        volatile NgramIndex current;
+        volatile boolean tooLarge;
+        // Rebuilds and reloads queued or running; the index is only used at zero
+        final AtomicInteger outstanding = new AtomicInteger();
+        // The rebuilds among them; only those need the journal
+        final AtomicInteger rebuilding = new AtomicInteger();
+        // Changes seen while rebuilding > 0, replayed onto a rebuilt index; guarded by this
+        final List<Consumer<NgramIndex>> journal = new ArrayList<>();
+
+        Entry(TextSearch.Index index, String stamp) {
+            this.index = index;
+            this.stamp = stamp;
+            this.mapping = ConditionalWrites.Mapping.of(index.type());
+            this.fields = index.columns().stream().map(column -> field(index.type(), column)).toList();
+        }
+    }
+
+    public InMemorySearch(TextSearch textSearch,
+                          EntityManager entityManager,
+                          EntityManagerFactory entityManagerFactory,
+                          PlatformTransactionManager transactionManager,
+                          EntityVersionStamps versionStamps,
+                          MeterRegistry meterRegistry,
+                          @Value("${search.in-memory.entities:}") Set<String> entities,
+                          @Value("${search.in-memory.max-rows:50000}") int maxRows,
+                          @Value("${search.in-memory.rebuild-interval:10m}") Duration rebuildInterval) {
+        this.textSearch = textSearch;
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.versionStamps = versionStamps;
+        this.meterRegistry = meterRegistry;
+        this.entities = entities;
+        this.maxRows = maxRows;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    // Called by a service for its search index; ignored unless the entity is opted in.
+    // stamp is the service's EntityVersionStamps name, null when it keeps none
+    public void register(TextSearch.Index index, String stamp) {
+        Entry entry = new Entry(index, stamp);
+        if (entities.contains(entry.mapping.entityName())) {
+            entries.putIfAbsent(index.type(), entry);
+        }
+    }
+
+    // Services register after this bean is built, so the listeners are added whenever any
+    // entity is opted in and filter by the entries present when events arrive
+    @PostConstruct
+    public void start() {
+        if (entities.isEmpty()) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        EntityEvents events = new EntityEvents();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, events);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, events);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, events);
+        versionStamps.onRemoteChange(this::remoteChange);
+        long interval = rebuildInterval.toMillis();
+        executor.scheduleWithFixedDelay(() -> entries.values().forEach(this::scheduleRebuild),
+                interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CursorPage<T> search(TextSearch.Index index, String query, String after, int limit) {
+        return search(index, after, () -> textSearch.search(index, query, after, limit),
+                (entry, current, cursor) -> page(entry, current, query, cursor, limit, row -> (T) row));
+    }
+
+    // The same page with only the selected columns, see SparseFields
+    public CursorPage<SparseFields.Row> search(TextSearch.Index index, String query, String after, int limit,
+                                               SparseFields.Selection fields) {
+        return search(index, after, () -> textSearch.search(index, query, after, limit, fields),
+                (entry, current, cursor) -> page(entry, current, query, cursor, limit, fields::row));
+    }
+
+    private interface MemoryPage<T> {
+        CursorPage<T> apply(Entry entry, NgramIndex index, TextSearch.Cursor cursor);
+    }
+
+    private <T> CursorPage<T> search(TextSearch.Index index, String after, Supplier<CursorPage<T>> database,
+                                     MemoryPage<T> memory) {
+        Entry entry = entries.get(index.type());
+        if (entry == null) {
+            return database.get();
+        }
+        TextSearch.Cursor cursor = after != null && !after.isBlank() ? textSearch.decode(after) : null;
+        boolean memoryCursor = cursor != null && TextSearch.MEMORY.equals(cursor.source());
+        NgramIndex current = entry.current;
+        // Cursors keep to their source; without an index TextSearch refuses a memory cursor
+        if (current == null || cursor != null && !memoryCursor
+                || cursor == null && entry.outstanding.get() > 0) {
+            if (current == null && entry.outstanding.get() == 0 && !entry.tooLarge) {
+                scheduleRebuild(entry);
+            }
+            meterRegistry.counter("search.in-memory", "entity", entry.mapping.entityName(), "served", "database")
+                    .increment();
+            return database.get();
+        }
+        meterRegistry.counter("search.in-memory", "entity", entry.mapping.entityName(), "served", "memory")
+                .increment();
+        return memory.apply(entry, current, cursor);
+    }
+
+    // Rows written with bulk statements; reloaded once the surrounding transaction commits
+    public void refresh(Class<?> type, Collection<?> ids) {
+        Entry entry = entries.get(type);
+        if (entry == null || ids.isEmpty()) {
+            return;
+        }
+        List<Object> reload = List.copyOf(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleReload(entry, reload);
+                }
+            });
+        } else {
+            scheduleReload(entry, reload);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "searchIndex";
+    }
+
+    // Builds every index on the warm-up thread
+    @Override
+    public int warmUp(int recentRows) {
+        int rows = 0;
+        for (Entry entry : entries.values()) {
+            entry.outstanding.incrementAndGet();
+            entry.rebuilding.incrementAndGet();
+            rebuild(entry);
+            NgramIndex current = entry.current;
+            rows += current != null ? current.size() : 0;
+        }
+        return rows;
+    }
+
+    // Same keyset as TextSearch: score DESC, id, after the cursor's (rank, id)
+    private <T> CursorPage<T> page(Entry entry, NgramIndex index, String query, TextSearch.Cursor cursor,
+                                   int limit, Function<Object, T> content) {
+        int size = Math.max(1, Math.min(limit, textSearch.maxLimit()));
+        Object cursorId = cursor != null ? textSearch.cursorId(cursor, entry.mapping.id().getType()) : null;
+        List<T> rows = new ArrayList<>(size);
+        NgramIndex.Hit last = null;
+        boolean hasNext = false;
+        for (NgramIndex.Hit hit : index.search(query)) {
+            if (cursor != null && !(hit.score() < cursor.rank()
+                    || hit.score() == cursor.rank() && NgramIndex.compareIds(hit.id(), cursorId) > 0)) {
+                continue;
+            }
+            if (rows.size() == size) {
+                hasNext = true;
+                break;
+            }
+            rows.add(content.apply(hit.row()));
+            last = hit;
+        }
+        String next = hasNext ? textSearch.cursor(last.score(), last.id(), TextSearch.MEMORY) : null;
+        return new CursorPage<>(rows, size, hasNext, next);
+    }
+
+    private void remoteChange(String stamp) {
+        for (Entry entry : entries.values()) {
+            if (stamp == null || stamp.equals(entry.stamp)) {
+                scheduleRebuild(entry);
+            }
+        }
+    }
+
+    private void scheduleRebuild(Entry entry) {
+        entry.outstanding.incrementAndGet();
+        entry.rebuilding.incrementAndGet();
+        executor.execute(() -> rebuild(entry));
+    }
+
+    private void scheduleReload(Entry entry, List<Object> ids) {
+        entry.outstanding.incrementAndGet();
+        executor.execute(() -> reload(entry, ids));
+    }
+
+    private void rebuild(Entry entry) {
+        try {
+            List<?> rows = transactionTemplate.execute(status -> entityManager
+                    .createQuery("SELECT e FROM " + entry.mapping.entityName() + " e", entry.index.type())
+                    .setMaxResults(maxRows + 1)
+                    .getResultList());
+            if (rows.size() > maxRows) {
+                log.warn("{} has more than {} rows; its searches stay on the database",
+                        entry.mapping.entityName(), maxRows);
+                entry.tooLarge = true;
+                entry.current = null;
+                return;
+            }
+            NgramIndex index = new NgramIndex();
+            rows.forEach(row -> put(entry, index, row));
+            entry.tooLarge = false;
+            synchronized (entry) {
+                entry.journal.forEach(change -> change.accept(index));
+                entry.journal.clear();
+                entry.current = index;
+            }
+            log.debug("Search index of {} rebuilt with {} rows", entry.mapping.entityName(), index.size());
+        } catch (RuntimeException e) {
+            log.warn("Search index of {} could not be rebuilt; searches use the database until the next try",
+                    entry.mapping.entityName(), e);
+        } finally {
+            synchronized (entry) {
+                // A failed or abandoned rebuild leaves changes behind that nothing will replay
+                if (entry.rebuilding.decrementAndGet() == 0) {
+                    entry.journal.clear();
+                }
+            }
+            entry.outstanding.decrementAndGet();
+        }
+    }
+
+    private void reload(Entry entry, List<Object> ids) {
+        try {
+            List<?> rows = transactionTemplate.execute(status -> entityManager
+                    .createQuery("SELECT e FROM " + entry.mapping.entityName() + " e WHERE e."
+                            + entry.mapping.id().getName() + " IN :ids", entry.index.type())
+                    .setParameter("ids", ids)
+                    .getResultList());
+            Set<Object> gone = new HashSet<>(ids);
+            for (Object row : rows) {
+                gone.remove(read(entry.mapping.id(), row));
+                apply(entry, index -> put(entry, index, row));
+            }
+            gone.forEach(id -> apply(entry, index -> index.remove(id)));
+        } catch (RuntimeException e) {
+            log.warn("Search index of {} could not reload {} rows; rebuilding", entry.mapping.entityName(),
+                    ids.size(), e);
+            scheduleRebuild(entry);
+        } finally {
+            entry.outstanding.decrementAndGet();
+        }
+    }
+
+    // Applies a change to the current index, and keeps it for the rebuild in progress if any
+    private static void apply(Entry entry, Consumer<NgramIndex> change) {
+        synchronized (entry) {
+            if (entry.current != null) {
+                change.accept(entry.current);
+            }
+            if (entry.rebuilding.get() > 0) {
+                entry.journal.add(change);
+            }
+        }
+    }
+
+    // Changes kept for a pending rebuild
+    int journaled(Class<?> type) {
+        Entry entry = entries.get(type);
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return entry.journal.size();
+        }
+    }
+
+    private static void put(Entry entry, NgramIndex index, Object row) {
+        List<String> texts = entry.fields.stream().map(field -> (String) read(field, row)).toList();
+        index.put(read(entry.mapping.id(), row), row, (Long) read(entry.mapping.version(), row), texts);
+    }
+
+    void written(Class<?> type, Object row) {
+        Entry entry = entries.get(type);
+        if (entry != null) {
+            apply(entry, index -> put(entry, index, row));
+        }
+    }
+
+    void deleted(Class<?> type, Object id) {
+        Entry entry = entries.get(type);
+        if (entry != null) {
+            apply(entry, index -> index.remove(id));
+        }
+    }
+
+    private final class EntityEvents implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            written(event.getPersister().getMappedClass(), event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            written(event.getPersister().getMappedClass(), event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            deleted(event.getPersister().getMappedClass(), event.getId());
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return entries.containsKey(persister.getMappedClass());
+        }
+    }
+
+    // The entity field mapped to column, by @Column(name) or by the field name
+    private static Field field(Class<?> type, String column) {
+        for (Field field : type.getDeclaredFields()) {
+            Column mapped = field.getAnnotation(Column.class);
+            if (mapped != null ? mapped.name().equals(column) : field.getName().equals(column)) {
+                field.setAccessible(true);
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " has no field for column " + column);
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
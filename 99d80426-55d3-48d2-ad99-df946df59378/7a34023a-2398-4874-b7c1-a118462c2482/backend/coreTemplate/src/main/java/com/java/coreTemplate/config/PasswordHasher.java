@@ -0,0 +1,170 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// bcrypt hashing and verification on a small dedicated pool, so a burst of logins
+// cannot use more than `threads` cores or tie up request threads behind a long queue.
+// When the pool and its queue are full the call fails at once with
+// RejectedExecutionException, which callers turn into a 503.
+@Component
+public class PasswordHasher {
+    private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejections;
+
+    public PasswordHasher(@Value("${password.hashing.cost:10}") int cost,
+                          @Value("${password.hashing.threads:0}") int threads,
+                          @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${password.hashing.timeout:5s}") Duration timeout,
+                          MeterRegistry meterRegistry) {
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.timeoutMillis = timeout.toMillis();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("auth.password.hash").tag("operation", "hash").register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.password.hash").tag("operation", "verify").register(meterRegistry);
+        this.rejections = Counter.builder("auth.password.rejected").register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    public String hash(String rawPassword) {
+        return run(() -> hashTimer.record(() -> encoder.encode(rawPassword)));
+    }
+
+    // Hashes a batch on the pool, with at most `threads` of its passwords in flight so logins
+    // still find room in the queue; when the queue is full anyway the batch waits for one of its
+    // own hashes before submitting more. An entry is null where the password could not be
+    // hashed: the pool was saturated by other work, or hashing timed out.
+    public String[] hashAll(List<String> rawPasswords) {
+        String[] hashes = new String[rawPasswords.size()];
+        List<Future<String>> futures = new ArrayList<>(Collections.nCopies(hashes.length, null));
+        Deque<Integer> inFlight = new ArrayDeque<>();
+        int window = executor.getMaximumPoolSize();
+        for (int i = 0; i < hashes.length; i++) {
+            String rawPassword = rawPasswords.get(i);
+            while (true) {
+                try {
+                    futures.set(i, executor.submit(() -> hashTimer.record(() -> encoder.encode(rawPassword))));
+                    inFlight.addLast(i);
+                    break;
+                } catch (RejectedExecutionException e) {
+                    if (inFlight.isEmpty()) {
+                        rejections.increment();
+                        break;
+                    }
+                    collect(inFlight.pollFirst(), futures, hashes);
+                }
+            }
+            if (inFlight.size() >= window) {
+                collect(inFlight.pollFirst(), futures, hashes);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            collect(inFlight.pollFirst(), futures, hashes);
+        }
+        return hashes;
+    }
+
+    private void collect(int index, List<Future<String>> futures, String[] hashes) {
+        try {
+            hashes[index] = await(futures.get(index));
+        } catch (RejectedExecutionException e) {
+            // Timed out or interrupted: left null
+        }
+    }
+
+    // Accepts bcrypt hashes and, until they are rehashed, legacy plaintext values
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (!isHash(storedPassword)) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+        return run(() -> verifyTimer.record(() -> encoder.matches(rawPassword, storedPassword)));
+    }
+
+    // True for plaintext rows and for hashes made with a lower cost than configured
+    public boolean needsRehash(String storedPassword) {
+        return !isHash(storedPassword) || encoder.upgradeEncoding(storedPassword);
+    }
+
+    public boolean isHash(String password) {
+        return BCRYPT.matcher(password).matches();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        return await(submit(task));
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw e;
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new RejectedExecutionException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RejectedExecutionException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Cross-node cache invalidation over Postgres NOTIFY. Evictions and stamp bumps made in a
+// transaction are collected and sent as one NOTIFY just before it commits; Postgres only
+// delivers it if the commit succeeds, and in commit order. Every other node drops the
+// matching L1 entries and bumps its local stamps as soon as the listener thread sees it.
+// Long, String and UUID keys are sent individually, tagged with their type and the row's
+// version after the write when the writer knew it; the receiver passes that version on to
+// evictLocal, so a read it started before the write cannot cache the old row afterwards.
+// Other keys, or a batch too large for one NOTIFY payload, clear the whole region on the
+// receiving side.
+// After the listener reconnects every L1 region is cleared, since notifications sent while
+// it was away are lost.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "caches.invalidation", havingValue = "notify")
+public class PgCacheInvalidation implements CacheInvalidationPublisher {
+    static final String CHANNEL = "cache_invalidated";
+    // Postgres rejects payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_CHARS = 7000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final PgNotificationListener notificationListener;
+    private final ModuleCacheManager cacheManager;
+    private final EntityVersionStamps versionStamps;
+    private final Counter sent;
+    private final Counter received;
+
+    public PgCacheInvalidation(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               PgNotificationListener notificationListener,
+                               ModuleCacheManager cacheManager,
+                               EntityVersionStamps versionStamps,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.notificationListener = notificationListener;
+        this.cacheManager = cacheManager;
+        this.versionStamps = versionStamps;
+        this.sent = Counter.builder("cache.invalidations").tag("direction", "sent").register(meterRegistry);
+        this.received = Counter.builder("cache.invalidations").tag("direction", "received").register(meterRegistry);
+    }
+
+    // Payload sent on CHANNEL; node lets the sender skip its own notifications
+    record Message(String node, List<Eviction> evict, Set<String> clear, Set<String> stamps) {
+    }
+
+    // type is long, string or uuid; the id of a uuid key travels as its string form
+    record Eviction(String cache, Object id, String type, Long version) {
+        static Eviction of(String cache, Object key, Long version) {
+            if (key instanceof Long) {
+                return new Eviction(cache, key, "long", version);
+            }
+            if (key instanceof String) {
+                return new Eviction(cache, key, "string", version);
+            }
+            if (key instanceof UUID) {
+                return new Eviction(cache, key.toString(), "uuid", version);
+            }
+            return null;
+        }
+
+        Object key() {
+            if ("uuid".equals(type) && id instanceof String value) {
+                return UUID.fromString(value);
+            }
+            // JSON numbers come back as Integer or Long; every numeric key here is a Long id
+            return id instanceof Number number ? (Object) number.longValue() : id;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        cacheManager.setInvalidationPublisher(this);
+        versionStamps.setInvalidationPublisher(this);
+        notificationListener.listen(CHANNEL, new PgNotificationListener.Subscriber() {
+            @Override
+            public void onNotification(String payload) {
+                apply(payload);
+            }
+
+            @Override
+            public void onReconnect() {
+                cacheManager.clearLocal();
+                versionStamps.advanceAll();
+            }
+        });
+    }
+
+    @Override
+    public void evicted(String cacheName, Object key, Long version) {
+        record(pending -> {
+            Eviction eviction = Eviction.of(cacheName, key, version);
+            if (eviction != null) {
+                pending.evict.add(eviction);
+            } else {
+                pending.clear.add(cacheName);
+            }
+        });
+    }
+
+    @Override
+    public void cleared(String cacheName) {
+        record(pending -> pending.clear.add(cacheName));
+    }
+
+    @Override
+    public void stampBumped(String entity) {
+        record(pending -> pending.stamps.add(entity));
+    }
+
+    private void record(Consumer<Pending> change) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending pending = new Pending();
+            change.accept(pending);
+            transactionTemplate.executeWithoutResult(status -> send(pending));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    send(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PgCacheInvalidation.this);
+                }
+            });
+            pending = created;
+        }
+        change.accept(pending);
+    }
+
+    private void send(Pending pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        String payload = serialize(new Message(nodeId, pending.evict, pending.clear, pending.stamps));
+        if (payload.length() > MAX_PAYLOAD_CHARS) {
+            Set<String> clear = new LinkedHashSet<>(pending.clear);
+            pending.evict.forEach(eviction -> clear.add(eviction.cache()));
+            payload = serialize(new Message(nodeId, List.of(), clear, pending.stamps));
+        }
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, CHANNEL, payload);
+        sent.increment();
+    }
+
+    void apply(String payload) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload, e);
+            return;
+        }
+        if (nodeId.equals(message.node())) {
+            return;
+        }
+        received.increment();
+        if (message.evict() != null) {
+            for (Eviction eviction : message.evict()) {
+                Object key;
+                try {
+                    key = eviction.key();
+                } catch (IllegalArgumentException e) {
+                    log.warn("Clearing {} for an unreadable key: {}", eviction.cache(), eviction.id());
+                    cacheManager.clearLocal(eviction.cache());
+                    continue;
+                }
+                cacheManager.evictLocal(eviction.cache(), key, eviction.version());
+            }
+        }
+        if (message.clear() != null) {
+            message.clear().forEach(cacheManager::clearLocal);
+        }
+        if (message.stamps() != null) {
+            message.stamps().forEach(versionStamps::advance);
+        }
+    }
+
+    private String serialize(Message message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cache invalidation", e);
+        }
+    }
+
+    private static final class Pending {
+        private final List<Eviction> evict = new ArrayList<>();
+        private final Set<String> clear = new LinkedHashSet<>();
+        private final Set<String> stamps = new LinkedHashSet<>();
+
+        private boolean isEmpty() {
+            return evict.isEmpty() && clear.isEmpty() && stamps.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.java.coreTemplate.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+// In-process L1 in front of a shared L2 (any Spring Cache, e.g. one backed by Redis).
+// Reads go L1 -> L2 -> loader and fill the levels they missed; writes and evictions hit both.
+// Coalescing stays on L1, so concurrent misses on a node cost one L2 round trip at most.
+class TwoLevelCache implements Cache {
+    private final Cache local;
+    private final Cache shared;
+
+    TwoLevelCache(Cache local, Cache shared) {
+        this.local = local;
+        this.shared = shared;
+    }
+
+    Cache getLocal() {
+        return local;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value == null) {
+            value = shared.get(key);
+            if (value != null) {
+                local.put(key, value.get());
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object raw = value != null ? value.get() : null;
+        if (raw != null && type != null && !type.isInstance(raw)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + raw);
+        }
+        return (T) raw;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return local.get(key, () -> {
+            ValueWrapper value = shared.get(key);
+            if (value != null) {
+                return (T) value.get();
+            }
+            T loaded = valueLoader.call();
+            shared.put(key, loaded);
+            return loaded;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        shared.put(key, value);
+        local.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        shared.evict(key);
+        local.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean sharedPresent = shared.evictIfPresent(key);
+        return local.evictIfPresent(key) || sharedPresent;
+    }
+
+    @Override
+    public void clear() {
+        shared.clear();
+        local.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean sharedPresent = shared.invalidate();
+        return local.invalidate() || sharedPresent;
+    }
+}
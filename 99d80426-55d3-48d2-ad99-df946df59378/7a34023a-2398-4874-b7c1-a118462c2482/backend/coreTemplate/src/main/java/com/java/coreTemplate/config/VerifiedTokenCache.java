@@ -0,0 +1,109 @@
+package com.java.coreTemplate.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class VerifiedTokenCache {
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final int maxEntries;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        FunctionCounter.builder("auth.token.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("auth.token.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("auth.token.cache.size", entries, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    // Returns the claims of a valid token, or null if the token is invalid or expired.
+    // Verified tokens are remembered by digest until their own expiry, so repeat requests
+    // skip decoding, JSON parsing and the signature check.
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt() > now) {
+                hits.increment();
+                return entry.claims();
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+
+        Claims claims;
+        try {
+            claims = JwtTokenUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (maxEntries > 0 && expiration != null) {
+            if (entries.size() >= maxEntries) {
+                evict(now);
+            }
+            entries.put(key, new Entry(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Drop expired tokens first; if the cache is still full, trim it to 90% so the
+    // scan is amortised over many inserts instead of running on every miss.
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAt) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.java.coreTemplate.model.dto;
+
+import java.util.List;
+
+// errors holds at most the first UserImportService.MAX_REPORTED_ERRORS rejected rows; failed counts all of them
+public record UserImportResult(long received, long imported, long failed, List<RowError> errors) {
+    public record RowError(long line, String message) {
+    }
+}
@@ -7,6 +7,7 @@ import com.java.coreTemplate.model.dto.Storagepy;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface StoragepyRepository extends JpaRepository<Storagepy, Long> {
 
@@ -16,9 +17,6 @@ public interface StoragepyRepository extends JpaRepository<Storagepy, Long> {
     // Find all active storage items
     List<Storagepy> findByIsActiveTrue();
 
-    // Find by name containing (case-insensitive)
-    List<Storagepy> findByNameContainingIgnoreCase(String namePart);
-
     // Find by capacity greater than
     List<Storagepy> findByCapacityGreaterThan(int capacity);
 
@@ -34,15 +32,6 @@ public interface StoragepyRepository extends JpaRepository<Storagepy, Long> {
     @Query("SELECT s.name as name, s.capacity as capacity FROM Storagepy s WHERE s.type = :type")
     List<StorageSummary> findSummaryByType(@Param("type") String type);
 
-    // Update query using @Modifying
-    @Modifying
-    @Query("UPDATE Storagepy s SET s.isActive = false WHERE s.lastAccessed < :cutoffDate")
-    int deactivateOldStorages(@Param("cutoffDate") LocalDateTime cutoffDate);
-
-    // Delete by status
-    @Modifying
-    void deleteByIsActiveFalse();
-
     // Count by type
     long countByType(String type);
 
@@ -54,4 +43,11 @@ public interface StoragepyRepository extends JpaRepository<Storagepy, Long> {
         String getName();
         int getCapacity();
     }
+
+    // Storagepy ids are UUIDs; findById above is typed by the repository's Long id parameter
+    Optional<Storagepy> findOneById(UUID id);
+
+    // Version only, for conditional requests; leaves the rest of the row unread
+    @Query("SELECT s.version FROM Storagepy s WHERE s.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
 }
\ No newline at end of file
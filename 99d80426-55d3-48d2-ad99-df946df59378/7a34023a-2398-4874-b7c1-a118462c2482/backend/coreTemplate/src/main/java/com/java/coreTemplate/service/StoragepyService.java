@@ -1,81 +1,267 @@
 package com.java.coreTemplate.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.java.coreTemplate.repository.StoragepyRepository;
 import com.java.coreTemplate.model.dto.Storagepy;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.SparseFields;
+import com.java.coreTemplate.config.BulkMaintenance;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.ConditionalWrites;
+import com.java.coreTemplate.config.EntityVersionStamps;
+import com.java.coreTemplate.config.KeysetPager;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.config.TextSearch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
+// Cache regions, one per query shape:
+//   storagepyCache  - by id
+//   storagepyByName - by name
+//   storagepyLists  - all/active/count, keyed with the entity's version stamp
+//   pages           - findAll(Pageable), see PageCacheKeys
+// Writes evict only the touched id and names and bump the stamp; list entries from
+// before the write are never looked up again and age out on their own.
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class StoragepyService {
+    private static final String ENTITY = "storagepy";
+    // Sort fields the cursor mode accepts besides the id; non-null columns only
+    private static final Set<String> SORTABLE = Set.of("name", "createdAt", "updatedAt");
+    // Columns indexed by db/search/*.sql for the /search endpoint
+    private static final TextSearch.Index SEARCH = new TextSearch.Index(Storagepy.class, "storage.py", List.of("name"));
 
     private final StoragepyRepository repository;
+    private final ModuleCacheManager cacheManager;
+    private final EntityVersionStamps versionStamps;
+    private final ConditionalWrites writes;
+    private final KeysetPager pager;
+    private final BulkWriter bulk;
+    private final BulkMaintenance maintenance;
+    private final TextSearch textSearch;
+    private final SparseFields sparseFields;
+    private final EntityImporter importer;
 
     @Transactional
-    @CacheEvict(value = "storagepyCache", allEntries = true)
     public Storagepy save(Storagepy entity) {
         log.info("Saving Storagepy entity: {}", entity);
-        return repository.save(entity);
+        return saveAndInvalidate(entity);
     }
 
     @Cacheable(value = "storagepyCache", key = "#id")
-    public Optional<Storagepy> findById(Long id) {
+    public Optional<Storagepy> findById(UUID id) {
         log.debug("Fetching Storagepy with id: {}", id);
-        return repository.findById(id);
+        return repository.findOneById(id);
     }
 
-    @Cacheable(value = "storagepyCache")
+    // Version for conditional requests: taken from storagepyCache when the row is cached there,
+    // otherwise from a single-column query
+    public Optional<Long> findVersion(UUID id) {
+        Storagepy cached = cacheManager.peek("storagepyCache", id, Storagepy.class);
+        return cached != null ? Optional.ofNullable(cached.getVersion()) : repository.findVersionById(id);
+    }
+
+    // PUT/PATCH/DELETE as one conditional statement, see ConditionalWrites. expectedVersion
+    // comes from If-Match; null accepts any version. Evictions apply once the transaction commits.
+    @Transactional
+    public ConditionalWrites.Result conditionalUpdate(UUID id, Long expectedVersion, Storagepy values) {
+        return invalidated(id, values.getName(), writes.update(Storagepy.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalPatch(UUID id, Long expectedVersion, Storagepy values) {
+        return invalidated(id, values.getName(), writes.patch(Storagepy.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalDelete(UUID id, Long expectedVersion) {
+        return invalidated(id, null, writes.delete(Storagepy.class, id, expectedVersion));
+    }
+
+    // Array POST/PUT in chunked transactions, see BulkWriter. Not run inside the class's
+    // read-only transaction, so every chunk commits on its own; caches are invalidated after
+    // each commit
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result createAll(List<Storagepy> entities) {
+        return bulk.insert(Storagepy.class, entities, rows -> {
+            cacheManager.evictAll("storagepyByName", rows.stream().map(Storagepy::getName).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result updateAll(List<Storagepy> entities) {
+        return bulk.update(Storagepy.class, entities, rows -> {
+            // The old names are not known here
+            cacheManager.clear("storagepyByName");
+            cacheManager.evictAll("storagepyCache", rows.stream().map(Storagepy::getId).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    // See EntityImporter; every committed batch is handled as a createAll() chunk
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EntityImporter.Report importRows(String format, InputStream body) throws IOException {
+        return importer.importRows(Storagepy.class, "storagepy", format, body, rows -> {
+            cacheManager.evictAll("storagepyByName", rows.stream().map(Storagepy::getName).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    // Deletes inactive rows in chunks on the maintenance thread, see BulkMaintenance
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkMaintenance.Progress purgeInactive() {
+        return maintenance.start("storagepy.purgeInactive", Storagepy.class,
+                BulkMaintenance.Operation.delete("e.isActive = false", Map.of()),
+                this::chunkCommitted);
+    }
+
+    // Deactivates active rows last updated before cutoff, in chunks on the maintenance thread
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkMaintenance.Progress deactivateStale(Instant cutoff) {
+        return maintenance.start("storagepy.deactivateStale", Storagepy.class,
+                BulkMaintenance.Operation.update("e.isActive = false, e.updatedAt = :now",
+                        "e.isActive = true AND e.updatedAt < :cutoff", Map.of("cutoff", cutoff, "now", Instant.now())),
+                this::chunkCommitted);
+    }
+
+    @Cacheable(value = "storagepyLists", key = "'all:' + @entityVersionStamps.current('storagepy')")
     public List<Storagepy> findAll() {
         log.debug("Fetching all Storagepy entities");
         return repository.findAll();
     }
 
-    @Cacheable(value = "storagepyCache")
+    @Cacheable(value = "pages", key = "@pageCacheKeys.of('storagepy', #pageable)",
+            condition = "@pageCacheKeys.cacheable(#pageable)")
     public Page<Storagepy> findAll(Pageable pageable) {
         log.debug("Fetching all Storagepy entities with pagination");
         return repository.findAll(pageable);
     }
 
-    @Cacheable(value = "storagepyCache", key = "'active'")
+    // Cursor mode of the list endpoint: a keyset query without COUNT(*), see KeysetPager
+    public CursorPage<Storagepy> findPage(String after, int limit, Sort sort) {
+        return pager.page(Storagepy.class, after, limit, sort, SORTABLE);
+    }
+
+    // Prefix and fuzzy matches ranked by relevance, keyset paged; see TextSearch
+    public CursorPage<Storagepy> search(String query, String after, int limit) {
+        return textSearch.search(SEARCH, query, after, limit);
+    }
+
+    // ?fields= variants of findAll, findPage and search: only the selected columns are read and
+    // returned, see SparseFields
+    public Page<SparseFields.Row> findAll(Pageable pageable, String fields) {
+        return sparseFields.page(sparseFields.select(Storagepy.class, fields), pageable);
+    }
+
+    public CursorPage<SparseFields.Row> findPage(String after, int limit, Sort sort, String fields) {
+        return pager.page(Storagepy.class, after, limit, sort, SORTABLE, sparseFields.select(Storagepy.class, fields));
+    }
+
+    public CursorPage<SparseFields.Row> search(String query, String after, int limit, String fields) {
+        return textSearch.search(SEARCH, query, after, limit, sparseFields.select(Storagepy.class, fields));
+    }
+
+    @Cacheable(value = "storagepyLists", key = "'active:' + @entityVersionStamps.current('storagepy')")
     public List<Storagepy> findAllActive() {
         log.debug("Fetching all active Storagepy entities");
         return repository.findByIsActiveTrue();
     }
 
     @Transactional
-    @CacheEvict(value = "storagepyCache", key = "#id")
     public void deleteById(Long id) {
         log.info("Deleting Storagepy with id: {}", id);
+        // A row read before the delete must not be cached again
+        Storagepy existing = repository.findById(id).orElse(null);
+        Long version = existing != null ? nextVersion(existing) : null;
+        if (existing != null) {
+            cacheManager.evict("storagepyByName", existing.getName(), version);
+        }
         repository.deleteById(id);
+        cacheManager.evict("storagepyCache", id, version);
+        versionStamps.bump(ENTITY);
     }
 
     @Transactional
-    @CacheEvict(value = "storagepyCache", allEntries = true)
     public Storagepy update(Storagepy entity) {
         log.info("Updating Storagepy entity: {}", entity);
-        return repository.save(entity);
+        return saveAndInvalidate(entity);
     }
 
-    @Cacheable(value = "storagepyCache", key = "'count'")
+    @Cacheable(value = "storagepyLists", key = "'count:' + @entityVersionStamps.current('storagepy')")
     public long count() {
         log.debug("Counting Storagepy entities");
         return repository.count();
     }
 
-    @Cacheable(value = "storagepyCache", key = "#name")
+    @Cacheable(value = "storagepyByName", key = "#name")
     public Optional<Storagepy> findByName(String name) {
         log.debug("Fetching Storagepy by name: {}", name);
         return repository.findByName(name);
     }
+
+    // Evictions and the stamp bump are applied once the transaction commits
+    private Storagepy saveAndInvalidate(Storagepy entity) {
+        Long version = null;
+        if (entity.getId() != null) {
+            // A rename must also drop the entry cached under the old name
+            Storagepy existing = repository.findOneById(entity.getId()).orElse(null);
+            if (existing != null) {
+                version = nextVersion(existing);
+                cacheManager.evict("storagepyByName", existing.getName(), version);
+            }
+        }
+        Storagepy saved = repository.save(entity);
+        cacheManager.evict("storagepyCache", saved.getId(), version);
+        cacheManager.evict("storagepyByName", saved.getName(), version);
+        versionStamps.bump(ENTITY);
+        return saved;
+    }
+
+    private ConditionalWrites.Result invalidated(UUID id, String name, ConditionalWrites.Result result) {
+        if (result.applied()) {
+            // The old name is only known when the row is cached; otherwise the by-name region goes
+            Storagepy cached = cacheManager.peek("storagepyCache", id, Storagepy.class);
+            if (cached != null) {
+                cacheManager.evict("storagepyByName", cached.getName());
+            } else {
+                cacheManager.clear("storagepyByName");
+            }
+            cacheManager.evict("storagepyByName", name, result.version());
+            cacheManager.evict("storagepyCache", id, result.version());
+            versionStamps.bump(ENTITY);
+        }
+        return result;
+    }
+
+    // The version the row is left at once the write flushes; read before the save merges into it
+    private static Long nextVersion(Storagepy existing) {
+        return existing.getVersion() != null ? existing.getVersion() + 1 : null;
+    }
+
+    // After every committed maintenance chunk
+    private void chunkCommitted(List<Object> ids) {
+        // Names of the affected rows are not known
+        cacheManager.clear("storagepyByName");
+        cacheManager.evictAll("storagepyCache", ids);
+        versionStamps.bump(ENTITY);
+    }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.java.coreTemplate.service;
 
+import com.java.coreTemplate.config.PasswordHasher;
 import com.java.coreTemplate.model.entity.UserDetails;
 import com.java.coreTemplate.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -11,20 +13,41 @@ import java.util.Optional;
 public class UserService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private PasswordHasher passwordHasher;
+
         public UserDetails registerUser(String username, String password, String email) {
-            if (userRepository.findByUsername(username).isPresent()) {
-                throw new IllegalArgumentException("Username already exists");
+            UserDetails newUser = new UserDetails(username, passwordHasher.hash(password), email);
+            try {
+                // A single INSERT: the unique constraints decide duplicates, which also
+                // closes the race between two registrations checking at the same time
+                return userRepository.saveAndFlush(newUser);
+            } catch (DataIntegrityViolationException e) {
+                throw duplicateUser(e);
             }
-            if (userRepository.findByEmail(email).isPresent()) {
-                throw new IllegalArgumentException("Email already exists");
-            }
-
-            UserDetails newUser = new UserDetails(username, password, email);
-            return userRepository.save(newUser);
         }
 
         public Optional<UserDetails> authenticateUser(String username, String password) {
-            Optional<UserDetails> userOptional = userRepository.findByUsername(username);
-            return userOptional.filter(user -> user.getPassword().equals(password));
+            Optional<UserDetails> userOptional = userRepository.findByUsername(username)
+                    .filter(user -> passwordHasher.matches(password, user.getPassword()));
+            // Upgrade plaintext and lower-cost rows now that we hold the raw password
+            userOptional.filter(user -> passwordHasher.needsRehash(user.getPassword()))
+                    .ifPresent(user -> {
+                        user.setPassword(passwordHasher.hash(password));
+                        userRepository.save(user);
+                    });
+            return userOptional;
+        }
+
+        // Postgres reports the violated key as "Key (column)=(value) already exists"
+        private static RuntimeException duplicateUser(DataIntegrityViolationException e) {
+            String detail = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (detail.contains("(username)")) {
+                return new IllegalArgumentException("Username already exists");
+            }
+            if (detail.contains("(email)")) {
+                return new IllegalArgumentException("Email already exists");
+            }
+            return e;
         }
     }
\ No newline at end of file
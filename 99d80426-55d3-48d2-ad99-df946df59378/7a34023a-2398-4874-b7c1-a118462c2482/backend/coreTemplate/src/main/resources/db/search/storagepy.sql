@@ -0,0 +1,15 @@
+-- Search indexes of Storagepy (see TextSearch). Adding the generated column rewrites the
+-- table once; on large tables run this script by hand in a maintenance window first, after
+-- which every start finds everything in place. CREATE EXTENSION needs a role allowed to
+-- create it (pg_trgm is a trusted extension from PostgreSQL 13 on).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Word prefixes: to_tsquery('simple', 'w1:* & w2:*') against the GIN index
+ALTER TABLE "storage.py" ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS storagepy_search_vector_idx ON "storage.py" USING gin (search_vector);
+
+-- Typo-tolerant matches: lower(:term) <% lower(column)
+CREATE INDEX IF NOT EXISTS storagepy_name_trgm_idx ON "storage.py" USING gin (lower(name) gin_trgm_ops);
@@ -0,0 +1,164 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.Version;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EntityExporterTest {
+	private EntityManager entityManager;
+	private TypedQuery<Widget> query;
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private EntityExporter exporter;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private String name;
+		@OneToMany
+		private List<Widget> parts;
+		@Version
+		private Long version;
+
+		Widget() {
+		}
+
+		Widget(Long id, String name) {
+			this.id = id;
+			this.name = name;
+			this.version = 1L;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Long getVersion() {
+			return version;
+		}
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		query = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Widget.class))).thenReturn(query);
+		exporter = new EntityExporter(entityManager, mock(PlatformTransactionManager.class), new ObjectMapper(),
+				registry, 2);
+	}
+
+	private void rows(Widget... widgets) {
+		when(query.getResultStream()).thenReturn(Stream.of(widgets).onClose(() -> closed.set(true)));
+	}
+
+	@Test
+	void rowsAreStreamedAsNdjsonFromACursor() throws IOException {
+		rows(new Widget(1L, "gear"), new Widget(2L, "cog"), new Widget(3L, "axle"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		exporter.export(Widget.class, "widgets", "ndjson", response);
+
+		verify(entityManager).createQuery("SELECT e FROM Widget e ORDER BY e.id", Widget.class);
+		verify(query).setHint(HibernateHints.HINT_FETCH_SIZE, 2);
+		verify(query).setHint(HibernateHints.HINT_READ_ONLY, true);
+		assertEquals("application/x-ndjson;charset=UTF-8", response.getContentType());
+		assertTrue(response.getHeader("Content-Disposition").contains("widgets.ndjson"));
+		String[] lines = response.getContentAsString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("{\"id\":1,\"name\":\"gear\",\"version\":1}", lines[0]);
+		assertTrue(closed.get());
+		assertEquals(3, registry.get("export.rows").tag("format", "ndjson").counter().count());
+	}
+
+	@Test
+	void thePersistenceContextIsClearedAfterEveryFetch() throws IOException {
+		rows(LongStream.rangeClosed(1, 5).mapToObj(id -> new Widget(id, "w" + id)).toArray(Widget[]::new));
+
+		exporter.export(Widget.class, "widgets", "ndjson", new MockHttpServletResponse());
+
+		verify(entityManager, times(2)).clear();
+	}
+
+	@Test
+	void csvHasAHeaderAndEscapesValues() throws IOException {
+		rows(new Widget(1L, "gear, large"), new Widget(2L, "the \"big\" one"), new Widget(3L, null));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		exporter.export(Widget.class, "widgets", "CSV", response);
+
+		assertEquals("text/csv;charset=UTF-8", response.getContentType());
+		assertEquals("id,name,version\r\n"
+				+ "1,\"gear, large\",1\r\n"
+				+ "2,\"the \"\"big\"\" one\",1\r\n"
+				+ "3,,1\r\n", response.getContentAsString());
+	}
+
+	@Test
+	void aDisconnectedClientStopsTheExportAndClosesTheCursor() throws IOException {
+		rows(LongStream.rangeClosed(1, 100_000).mapToObj(id -> new Widget(id, "w" + id)).toArray(Widget[]::new));
+		MockHttpServletResponse response = new MockHttpServletResponse() {
+			@Override
+			public ServletOutputStream getOutputStream() {
+				return new ServletOutputStream() {
+					@Override
+					public void write(int b) throws IOException {
+						throw new IOException("Broken pipe");
+					}
+
+					@Override
+					public boolean isReady() {
+						return true;
+					}
+
+					@Override
+					public void setWriteListener(WriteListener writeListener) {
+					}
+				};
+			}
+		};
+
+		exporter.export(Widget.class, "widgets", "ndjson", response);
+
+		assertTrue(closed.get());
+		assertTrue(registry.get("export.rows").counter().count() < 100_000);
+	}
+
+	@Test
+	void anUnknownFormatIsABadRequest() {
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> exporter.export(Widget.class, "widgets", "xml", new MockHttpServletResponse()));
+
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		verifyNoInteractions(entityManager);
+	}
+}
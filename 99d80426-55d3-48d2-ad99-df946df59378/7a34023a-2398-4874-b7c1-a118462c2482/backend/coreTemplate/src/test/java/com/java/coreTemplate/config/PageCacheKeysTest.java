@@ -0,0 +1,44 @@
+package com.java.coreTemplate.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheKeysTest {
+	private final EntityVersionStamps stamps = new EntityVersionStamps();
+	private final PageCacheKeys keys = new PageCacheKeys(stamps, 5);
+
+	@Test
+	void keysDifferByEveryPageDimension() {
+		PageRequest first = PageRequest.of(0, 20, Sort.by("id"));
+
+		assertEquals(keys.of("billing", first), keys.of("billing", PageRequest.of(0, 20, Sort.by("id"))));
+		assertNotEquals(keys.of("billing", first), keys.of("modules", first));
+		assertNotEquals(keys.of("billing", first), keys.of("billing", PageRequest.of(1, 20, Sort.by("id"))));
+		assertNotEquals(keys.of("billing", first), keys.of("billing", PageRequest.of(0, 50, Sort.by("id"))));
+		assertNotEquals(keys.of("billing", first), keys.of("billing", PageRequest.of(0, 20, Sort.by("id").descending())));
+		assertNotEquals(keys.of("billing", first), keys.of("billing", first, "acme"));
+	}
+
+	@Test
+	void aWriteToTheEntityMovesItsPagesToNewKeys() {
+		PageRequest first = PageRequest.of(0, 20);
+		PageCacheKeys.PageKey before = keys.of("billing", first);
+		PageCacheKeys.PageKey otherEntity = keys.of("modules", first);
+
+		stamps.bump("billing");
+
+		assertNotEquals(before, keys.of("billing", first));
+		assertEquals(otherEntity, keys.of("modules", first));
+	}
+
+	@Test
+	void onlyTheFirstPagesAreCached() {
+		assertTrue(keys.cacheable(PageRequest.of(4, 20)));
+		assertFalse(keys.cacheable(PageRequest.of(5, 20)));
+		assertFalse(keys.cacheable(Pageable.unpaged()));
+	}
+}
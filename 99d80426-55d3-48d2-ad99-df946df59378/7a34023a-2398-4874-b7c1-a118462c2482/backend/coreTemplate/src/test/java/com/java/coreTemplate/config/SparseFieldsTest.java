@@ -0,0 +1,131 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SparseFieldsTest {
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private EntityManager entityManager;
+	private TypedQuery<Object[]> query;
+	private SparseFields sparseFields;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private String name;
+		private String description;
+		private boolean isActive;
+		private Instant createdAt;
+		@JsonIgnore
+		private String secret;
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Optional<String> getDescription() {
+			return Optional.ofNullable(description);
+		}
+
+		public boolean isActive() {
+			return isActive;
+		}
+
+		public Instant getCreatedAt() {
+			return createdAt;
+		}
+
+		public String getSecret() {
+			return secret;
+		}
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		query = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+		sparseFields = new SparseFields(entityManager, objectMapper);
+	}
+
+	@Test
+	void fieldAndJsonNamesSelectTheSameColumnAndRowsUseTheJsonNames() throws Exception {
+		SparseFields.Selection selection = sparseFields.select(Widget.class, "isActive, name,active");
+
+		assertEquals(List.of("id", "isActive", "name"), selection.columns());
+		assertEquals(List.of("id", "isActive", "name", "createdAt"), selection.columns("createdAt", "id"));
+		SparseFields.Row row = selection.row(new Object[] {7L, true, "Widget", Instant.EPOCH});
+		assertEquals("{\"id\":7,\"active\":true,\"name\":\"Widget\"}", objectMapper.writeValueAsString(row));
+	}
+
+	@Test
+	void onlySerializedBasicColumnsCanBeSelected() {
+		for (String fields : List.of("secret", "nope", "name,getName")) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> sparseFields.select(Widget.class, fields));
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		}
+		assertEquals(List.of("id"), sparseFields.select(Widget.class, "").columns());
+	}
+
+	@Test
+	void pagesSelectTheColumnsAndSkipTheCountWhenThePageShowsTheTotal() throws Exception {
+		when(query.getResultList()).thenReturn(List.<Object[]>of(new Object[] {2L, "b"}, new Object[] {1L, "a"}));
+
+		Page<SparseFields.Row> page = sparseFields.page(sparseFields.select(Widget.class, "name"),
+				PageRequest.of(0, 20, Sort.by("name").descending().and(Sort.by("active"))));
+
+		verify(entityManager).createQuery("SELECT e.id, e.name FROM Widget e ORDER BY e.name DESC, e.isActive ASC",
+				Object[].class);
+		verify(query).setFirstResult(0);
+		verify(query).setMaxResults(20);
+		verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+		assertEquals(2, page.getTotalElements());
+		assertEquals("[{\"id\":2,\"name\":\"b\"},{\"id\":1,\"name\":\"a\"}]",
+				objectMapper.writeValueAsString(page.getContent()));
+		assertThrows(ResponseStatusException.class, () -> sparseFields.page(sparseFields.select(Widget.class, "name"),
+				PageRequest.of(0, 20, Sort.by("secret"))));
+	}
+
+	@Test
+	void rowsAreLoadedByIdAsTuplesOrReadFromEntitiesInMemory() {
+		when(query.getResultList()).thenReturn(List.<Object[]>of(new Object[] {1L, "a"}));
+		SparseFields.Selection selection = sparseFields.select(Widget.class, "name");
+
+		Map<Object, SparseFields.Row> rows = selection.byId(entityManager, List.of(1L, 2L));
+
+		verify(entityManager).createQuery("SELECT e.id, e.name FROM Widget e WHERE e.id IN :ids", Object[].class);
+		verify(query).setParameter("ids", List.of(1L, 2L));
+		assertEquals("a", rows.get(1L).get("name"));
+		Widget widget = new Widget();
+		widget.id = 3L;
+		widget.name = "c";
+		assertEquals("c", selection.row(widget).get("name"));
+	}
+}
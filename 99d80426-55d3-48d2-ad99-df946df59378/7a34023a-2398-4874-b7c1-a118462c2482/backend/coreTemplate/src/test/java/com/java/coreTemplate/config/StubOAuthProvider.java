@@ -0,0 +1,88 @@
+package com.java.coreTemplate.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Minimal local OAuth/OIDC provider for tests and benchmarks: a discovery document,
+// a token endpoint that accepts any code and a user-info endpoint for that token.
+public class StubOAuthProvider implements AutoCloseable {
+	static {
+		// Without TCP_NODELAY every response waits on the client's delayed ACK (~40 ms)
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final AtomicInteger discoveryRequests = new AtomicInteger();
+	private volatile long latencyMillis;
+
+	public StubOAuthProvider() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/.well-known/openid-configuration", exchange -> {
+			discoveryRequests.incrementAndGet();
+			respond(exchange, 200, "{\"token_endpoint\":\"" + baseUri() + "/token\","
+					+ "\"userinfo_endpoint\":\"" + baseUri() + "/userinfo\"}");
+		});
+		server.createContext("/token", exchange -> {
+			String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			if (!form.contains("grant_type=authorization_code") || !form.contains("code=")) {
+				respond(exchange, 400, "{\"error\":\"invalid_request\"}");
+				return;
+			}
+			respond(exchange, 200, "{\"access_token\":\"stub-token\",\"token_type\":\"bearer\"}");
+		});
+		server.createContext("/userinfo", exchange -> {
+			if (!"Bearer stub-token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+				respond(exchange, 401, "{\"error\":\"invalid_token\"}");
+				return;
+			}
+			respond(exchange, 200, "{\"email\":\"stub@example.com\",\"name\":\"Stub User\"}");
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public String baseUri() {
+		return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+	}
+
+	// Simulated provider processing time added to every response
+	public void setLatencyMillis(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	public int getDiscoveryRequests() {
+		return discoveryRequests.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void respond(HttpExchange exchange, int status, String json) throws IOException {
+		if (latencyMillis > 0) {
+			try {
+				Thread.sleep(latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
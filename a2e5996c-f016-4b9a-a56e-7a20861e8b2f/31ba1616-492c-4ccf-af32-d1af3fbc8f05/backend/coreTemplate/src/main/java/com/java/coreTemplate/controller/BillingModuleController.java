@@ -1,23 +1,47 @@
 package com.java.coreTemplate.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import com.java.coreTemplate.service.BillingModuleService;
+import com.java.coreTemplate.service.BillingRunService;
+import com.java.coreTemplate.config.BatchRunner;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityTags;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.EntityExporter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.JsonResponseCache;
 import com.java.coreTemplate.model.dto.BillingModule;
 
+import jakarta.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/billing-modules")  // Changed to use hyphens instead of spaces
 public class BillingModuleController {
     private final BillingModuleService service;
+    private final JsonResponseCache responseCache;
+    private final EntityExporter exporter;
+    private final BillingRunService billingRuns;
 
-    public BillingModuleController(BillingModuleService service) {
+    public BillingModuleController(BillingModuleService service, JsonResponseCache responseCache,
+                                   EntityExporter exporter, BillingRunService billingRuns) {
         this.service = service;
+        this.responseCache = responseCache;
+        this.exporter = exporter;
+        this.billingRuns = billingRuns;
     }
 
     @PostMapping
@@ -26,24 +50,77 @@ public class BillingModuleController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedEntity);
     }
 
+    // Arrays of rows; ids of new rows come from the pooled sequence. The response lists the
+    // written ids, and for PUT the ids not found and those sent with a stale version
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkWriter.Result> createAll(@RequestBody List<BillingModule> entities) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.createAll(entities));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkWriter.Result> updateAll(@RequestBody List<BillingModule> entities) {
+        return ResponseEntity.ok(service.updateAll(entities));
+    }
+
+    // 304 when If-None-Match still holds the current version's tag; otherwise the body is
+    // served from the serialized-body cache while the row's version is unchanged
     @GetMapping("/{id}")
-    public ResponseEntity<BillingModule> getById(@PathVariable Long id) {
-        return service.findById(id)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getById(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.get("billing", id, ifNoneMatch,
+            () -> service.findVersion(id), () -> service.findById(id), BillingModule::getVersion);
     }
 
+    // ?fields=id,name,isActive reads and returns only those columns, here and in the cursor and
+    // search modes; see SparseFields
     @GetMapping
-    public ResponseEntity<Page<BillingModule>> getAll(
-            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+    public ResponseEntity<Page<?>> getAll(
+            @PageableDefault(size = 20, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.findAll(pageable, fields));
+        }
         Page<BillingModule> billingModules = service.findAll(pageable);
         return ResponseEntity.ok(billingModules);
     }
 
+    // Cursor mode, selected by limit: ?limit=20[&sort=createdAt,desc], then ?after=<next>&limit=20
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<?>> getAllByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @SortDefault(sort = "id") Sort sort,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.findPage(after, limit, sort, fields));
+        }
+        return ResponseEntity.ok(service.findPage(after, limit, sort));
+    }
+
+    // Every row, streamed from a server-side cursor: ?format=ndjson (default) or ?format=csv
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        exporter.export(BillingModule.class, "billing", format, response);
+    }
+
+    // Rows streamed from the body: ?format=ndjson (default; a JSON array works too) or ?format=csv
+    // with a header of field names. Answered with the counts and a per-row error report
+    @PostMapping("/import")
+    public ResponseEntity<EntityImporter.Report> importRows(@RequestParam(defaultValue = "ndjson") String format,
+                                                            InputStream body) throws IOException {
+        return ResponseEntity.ok(service.importRows(format, body));
+    }
+
+    // With If-Match: one UPDATE ... WHERE id = ? AND version = ?, answered 204/404/412
     @PutMapping("/{id}")
     public ResponseEntity<BillingModule> update(
-            @PathVariable Long id, 
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody BillingModule entity) {
+        if (ifMatch != null) {
+            return service.conditionalUpdate(id, EntityTags.versionOf(ifMatch, id), entity).toResponse(id);
+        }
         if (!service.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
@@ -52,29 +129,56 @@ public class BillingModuleController {
         return ResponseEntity.ok(updatedEntity);
     }
 
+    // With If-Match: only the non-null fields, in one conditional UPDATE
     @PatchMapping("/{id}")
     public ResponseEntity<BillingModule> partialUpdate(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody BillingModule partialEntity) {
+        if (ifMatch != null) {
+            return service.conditionalPatch(id, EntityTags.versionOf(ifMatch, id), partialEntity).toResponse(id);
+        }
         return service.partialUpdate(id, partialEntity)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
 
+    // One DELETE ... WHERE id = ? [AND version = ?]; 404/412 come from the affected row count
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!service.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        service.deleteById(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> delete(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatch != null ? EntityTags.versionOf(ifMatch, id) : null;
+        return service.conditionalDelete(id, expectedVersion).toResponse(id);
     }
 
+    // Ranked by relevance, prefix and typo tolerant; ?query=&limit=, then ?query=&after=<next>&limit=
     @GetMapping("/search")
-    public ResponseEntity<Page<BillingModule>> search(
+    public ResponseEntity<CursorPage<?>> search(
             @RequestParam(required = false) String query,
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<BillingModule> results = service.search(query, pageable);
-        return ResponseEntity.ok(results);
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.search(query, after, limit, fields));
+        }
+        return ResponseEntity.ok(service.search(query, after, limit));
+    }
+
+    // Recurring charges for ?date=2026-10-18 (today by default), see BillingRunService: 202 with
+    // the progress once the run is started or resumed, 200 with the result when that date was
+    // billed already, 409 while it runs on a live node (a run whose node crashed is resumed)
+    @PostMapping("/billing-runs")
+    public ResponseEntity<BatchRunner.Progress> startBillingRun(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        BatchRunner.Progress progress = billingRuns.start(date != null ? date : LocalDate.now());
+        return progress.state() == BatchRunner.State.DONE
+                ? ResponseEntity.ok(progress)
+                : ResponseEntity.accepted().body(progress);
+    }
+
+    @GetMapping("/billing-runs/{date}")
+    public ResponseEntity<BatchRunner.Progress> billingRun(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.of(billingRuns.progress(date));
     }
 }
\ No newline at end of file
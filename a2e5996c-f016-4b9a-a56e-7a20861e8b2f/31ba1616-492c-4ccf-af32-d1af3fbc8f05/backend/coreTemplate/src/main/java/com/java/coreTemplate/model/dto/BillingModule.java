@@ -17,7 +17,9 @@ import java.util.Optional;
 public class BillingModule {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: one nextval per 50 ids, so inserts can be sent in JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "billing_module_seq")
+    @SequenceGenerator(name = "billing_module_seq", sequenceName = "billing_module_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "module_name", nullable = false, length = 100)
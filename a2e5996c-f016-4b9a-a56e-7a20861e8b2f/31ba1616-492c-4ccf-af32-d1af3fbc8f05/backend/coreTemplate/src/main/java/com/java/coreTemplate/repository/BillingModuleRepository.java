@@ -61,4 +61,8 @@ public interface BillingModuleRepository extends JpaRepository<BillingModule, Lo
         String getInvoiceNumber();
         Double getAmount();
     }
+
+    // Version only, for conditional requests; leaves the rest of the row unread
+    @Query("SELECT b.version FROM BillingModule b WHERE b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -1,63 +1,135 @@
 package com.java.coreTemplate.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.java.coreTemplate.repository.BillingModuleRepository;
 import com.java.coreTemplate.model.dto.BillingModule;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.SparseFields;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.ConditionalWrites;
+import com.java.coreTemplate.config.EntityVersionStamps;
+import com.java.coreTemplate.config.KeysetPager;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.config.TextSearch;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+// Cache regions: billingCache (by id), billingByCustomer (per-customer lists, keyed
+// with the entity's version stamp) and pages (see PageCacheKeys). Writes evict only the
+// touched id and bump the stamp.
 @Service
 @Transactional(readOnly = true)
 public class BillingModuleService {
+    private static final String ENTITY = "billing";
+    // Sort fields the cursor mode accepts besides the id; non-null columns only
+    private static final Set<String> SORTABLE = Set.of("moduleName", "createdAt", "updatedAt");
+    // Columns indexed by db/search/*.sql for the /search endpoint
+    private static final TextSearch.Index SEARCH = new TextSearch.Index(BillingModule.class,
+            "billing_module", List.of("module_name", "description"));
 
     private final BillingModuleRepository repository;
+    private final ModuleCacheManager cacheManager;
+    private final EntityVersionStamps versionStamps;
+    private final ConditionalWrites writes;
+    private final KeysetPager pager;
+    private final BulkWriter bulk;
+    private final TextSearch textSearch;
+    private final SparseFields sparseFields;
+    private final EntityImporter importer;
 
-    public BillingModuleService(BillingModuleRepository repository) {
+    public BillingModuleService(BillingModuleRepository repository,
+                                ModuleCacheManager cacheManager,
+                                EntityVersionStamps versionStamps,
+                                ConditionalWrites writes,
+                                KeysetPager pager,
+                                BulkWriter bulk,
+                                TextSearch textSearch,
+                                SparseFields sparseFields,
+                                EntityImporter importer) {
         this.repository = repository;
+        this.cacheManager = cacheManager;
+        this.versionStamps = versionStamps;
+        this.writes = writes;
+        this.pager = pager;
+        this.bulk = bulk;
+        this.textSearch = textSearch;
+        this.sparseFields = sparseFields;
+        this.importer = importer;
     }
 
     @Transactional
-    @CacheEvict(value = "billingCache", allEntries = true)
     public BillingModule save(BillingModule entity) {
-        return repository.save(entity);
+        return invalidate(repository.save(entity));
     }
 
-    @Cacheable(value = "billingCache", key = "#id")
+    @Cacheable(value = "billingCache", key = "#id", sync = true)
     public Optional<BillingModule> findById(Long id) {
         return repository.findById(id);
     }
 
     @Transactional
-    @CacheEvict(value = "billingCache", key = "#id")
     public void deleteById(Long id) {
         repository.deleteById(id);
+        cacheManager.evict("billingCache", id);
+        versionStamps.bump(ENTITY);
     }
 
+    @Cacheable(value = "pages", key = "@pageCacheKeys.of('billing', #pageable)",
+            condition = "@pageCacheKeys.cacheable(#pageable)")
     public Page<BillingModule> findAll(Pageable pageable) {
         return repository.findAll(pageable);
     }
 
+    // Cursor mode of the list endpoint: a keyset query without COUNT(*), see KeysetPager
+    public CursorPage<BillingModule> findPage(String after, int limit, Sort sort) {
+        return pager.page(BillingModule.class, after, limit, sort, SORTABLE);
+    }
+
+    // Prefix and fuzzy matches ranked by relevance, keyset paged; see TextSearch
+    public CursorPage<BillingModule> search(String query, String after, int limit) {
+        return textSearch.search(SEARCH, query, after, limit);
+    }
+
+    // ?fields= variants of findAll, findPage and search: only the selected columns are read and
+    // returned, see SparseFields
+    public Page<SparseFields.Row> findAll(Pageable pageable, String fields) {
+        return sparseFields.page(sparseFields.select(BillingModule.class, fields), pageable);
+    }
+
+    public CursorPage<SparseFields.Row> findPage(String after, int limit, Sort sort, String fields) {
+        return pager.page(BillingModule.class, after, limit, sort, SORTABLE,
+                sparseFields.select(BillingModule.class, fields));
+    }
+
+    public CursorPage<SparseFields.Row> search(String query, String after, int limit, String fields) {
+        return textSearch.search(SEARCH, query, after, limit, sparseFields.select(BillingModule.class, fields));
+    }
+
     public List<BillingModule> findAllActive() {
         return repository.findByIsActiveTrue();
     }
 
-    @Cacheable(value = "billingCache", key = "#customerId")
+    @Cacheable(value = "billingByCustomer", key = "#customerId + ':' + @entityVersionStamps.current('billing')")
     public List<BillingModule> findByCustomerId(String customerId) {
         return repository.findByCustomerId(customerId);
     }
 
     @Transactional
-    @CacheEvict(value = "billingCache", key = "#id")
     public BillingModule updateStatus(Long id, boolean isActive) {
         return repository.findById(id)
                 .map(billing -> {
                     billing.setActive(isActive);
-                    return repository.save(billing);
+                    return invalidate(repository.save(billing));
                 })
                 .orElseThrow(() -> new RuntimeException("Billing record not found"));
     }
@@ -65,4 +137,65 @@ public class BillingModuleService {
     public boolean existsById(Long id) {
         return repository.existsById(id);
     }
+
+    // Version for conditional requests: taken from billingCache when the row is cached there,
+    // otherwise from a single-column query
+    public Optional<Long> findVersion(Long id) {
+        BillingModule cached = cacheManager.peek("billingCache", id, BillingModule.class);
+        return cached != null ? Optional.ofNullable(cached.getVersion()) : repository.findVersionById(id);
+    }
+
+    // PUT/PATCH/DELETE as one conditional statement, see ConditionalWrites. expectedVersion
+    // comes from If-Match; null accepts any version. Evictions apply once the transaction commits.
+    @Transactional
+    public ConditionalWrites.Result conditionalUpdate(Long id, Long expectedVersion, BillingModule values) {
+        return invalidated(id, writes.update(BillingModule.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalPatch(Long id, Long expectedVersion, BillingModule values) {
+        return invalidated(id, writes.patch(BillingModule.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalDelete(Long id, Long expectedVersion) {
+        return invalidated(id, writes.delete(BillingModule.class, id, expectedVersion));
+    }
+
+    // Array POST/PUT in chunked transactions, see BulkWriter. Not run inside the class's
+    // read-only transaction, so every chunk commits on its own; caches are invalidated after
+    // each commit
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result createAll(List<BillingModule> entities) {
+        return bulk.insert(BillingModule.class, entities, rows -> versionStamps.bump(ENTITY));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result updateAll(List<BillingModule> entities) {
+        return bulk.update(BillingModule.class, entities, rows -> {
+            cacheManager.evictAll("billingCache", rows.stream().map(BillingModule::getId).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    // See EntityImporter; every committed batch is handled as a createAll() chunk
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EntityImporter.Report importRows(String format, InputStream body) throws IOException {
+        return importer.importRows(BillingModule.class, "billing", format, body, rows -> versionStamps.bump(ENTITY));
+    }
+
+    // Applied once the transaction commits
+    private BillingModule invalidate(BillingModule saved) {
+        cacheManager.evict("billingCache", saved.getId());
+        versionStamps.bump(ENTITY);
+        return saved;
+    }
+
+    private ConditionalWrites.Result invalidated(Long id, ConditionalWrites.Result result) {
+        if (result.applied()) {
+            cacheManager.evict("billingCache", id, result.version());
+            versionStamps.bump(ENTITY);
+        }
+        return result;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.java.coreTemplate.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import com.java.coreTemplate.config.BatchRunner;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Recurring charges of BillingModule, one BatchRunner run per billing date (run "billing", key
+// the date), in place of the external script that read every module over REST.
+// A module is due on a date when it is active and recurring, has a price and billingCycleDays
+// above zero, and was created on or before the date. It is charged its price for the cycle the
+// date falls in, counted from the day it was created: cycle n covers [created + n * days,
+// created + (n + 1) * days). Charges go to billing_charge (db/runs/billing_charge.sql), unique
+// per module and cycle, so a resumed run, a second run of the same date or a run on another
+// date of the same cycle charges nothing twice. A cycle no run falls in is not charged: runs
+// are meant to be daily.
+// Due modules are read in id keyset pages from the partial index billing_module_due_idx, as
+// plain columns; no entity is loaded. A unit's charges are one INSERT ... SELECT FROM unnest()
+// ON CONFLICT DO NOTHING, whose row count is exactly the charges that were new (a JDBC batch
+// sent through reWriteBatchedInserts only reports SUCCESS_NO_INFO).
+@Service
+public class BillingRunService {
+    static final String RUN = "billing";
+
+    // A due module as the run reads it
+    record Due(long id, BigDecimal price, int cycleDays, LocalDate createdOn) {
+    }
+
+    // periodEnd is exclusive
+    record Charge(long moduleId, int cycle, LocalDate periodStart, LocalDate periodEnd, BigDecimal amount) {
+    }
+
+    private static final String DUE = "SELECT id, price, billing_cycle_days, created_at FROM billing_module "
+            + "WHERE is_recurring AND is_active AND price > 0 AND billing_cycle_days > 0 "
+            + "AND created_at < ? AND id > ? ORDER BY id LIMIT ?";
+    private static final String INSERT = "INSERT INTO billing_charge "
+            + "(billing_module_id, cycle, period_start, period_end, amount, run_date) "
+            + "SELECT c.*, ?::date FROM unnest(?::bigint[], ?::int[], ?::date[], ?::date[], ?::numeric[]) "
+            + "AS c(billing_module_id, cycle, period_start, period_end, amount) "
+            + "ON CONFLICT (billing_module_id, cycle) DO NOTHING";
+
+    private final BatchRunner runner;
+    private final JdbcTemplate jdbcTemplate;
+
+    public BillingRunService(BatchRunner runner, JdbcTemplate jdbcTemplate) {
+        this.runner = runner;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Starts or resumes the run of date; see BatchRunner.start
+    public BatchRunner.Progress start(LocalDate date) {
+        return runner.start(new Run(date));
+    }
+
+    public Optional<BatchRunner.Progress> progress(LocalDate date) {
+        return Optional.ofNullable(runner.progress(RUN, date.toString()));
+    }
+
+    static Charge charge(Due due, LocalDate date) {
+        int cycle = (int) (ChronoUnit.DAYS.between(due.createdOn(), date) / due.cycleDays());
+        LocalDate periodStart = due.createdOn().plusDays((long) cycle * due.cycleDays());
+        return new Charge(due.id(), cycle, periodStart, periodStart.plusDays(due.cycleDays()),
+                due.price().setScale(2, RoundingMode.HALF_EVEN));
+    }
+
+    private final class Run implements BatchRunner.Job<Due, Charge> {
+        private final LocalDate date;
+
+        Run(LocalDate date) {
+            this.date = date;
+        }
+
+        @Override
+        public String run() {
+            return RUN;
+        }
+
+        @Override
+        public String key() {
+            return date.toString();
+        }
+
+        @Override
+        public List<Due> page(long after, int limit) {
+            // created_at before the day after the date
+            return jdbcTemplate.query(DUE, (rs, rowNum) -> new Due(rs.getLong("id"), rs.getBigDecimal("price"),
+                            rs.getInt("billing_cycle_days"), rs.getTimestamp("created_at").toLocalDateTime()
+                            .toLocalDate()),
+                    Timestamp.valueOf(date.plusDays(1).atStartOfDay()), after, limit);
+        }
+
+        @Override
+        public long id(Due row) {
+            return row.id();
+        }
+
+        @Override
+        public Charge compute(Due row) {
+            return charge(row, date);
+        }
+
+        @Override
+        public int write(List<Charge> charges) {
+            return jdbcTemplate.update(INSERT, statement -> {
+                Connection connection = statement.getConnection();
+                statement.setObject(1, date);
+                statement.setArray(2, array(connection, "int8", charges.stream().map(Charge::moduleId)));
+                statement.setArray(3, array(connection, "int4", charges.stream().map(Charge::cycle)));
+                // Dates as ISO strings, cast to date[] by the statement
+                statement.setArray(4, array(connection, "text",
+                        charges.stream().map(charge -> charge.periodStart().toString())));
+                statement.setArray(5, array(connection, "text",
+                        charges.stream().map(charge -> charge.periodEnd().toString())));
+                statement.setArray(6, array(connection, "numeric", charges.stream().map(Charge::amount)));
+            });
+        }
+    }
+
+    private static Array array(Connection connection, String type, Stream<?> values) throws SQLException {
+        return connection.createArrayOf(type, values.toArray());
+    }
+}
@@ -0,0 +1,19 @@
+-- Charges written by the billing runs (BillingRunService), one per module and billing cycle;
+-- the unique key is what makes a run safe to resume or repeat. No foreign key: charges are
+-- kept when their module is deleted.
+CREATE TABLE IF NOT EXISTS billing_charge (
+    id                BIGSERIAL     PRIMARY KEY,
+    billing_module_id BIGINT        NOT NULL,
+    cycle             INTEGER       NOT NULL,
+    period_start      DATE          NOT NULL,
+    period_end        DATE          NOT NULL,
+    amount            NUMERIC(10,2) NOT NULL,
+    run_date          DATE          NOT NULL,
+    created_at        TIMESTAMP     NOT NULL DEFAULT now(),
+    CONSTRAINT billing_charge_module_cycle_key UNIQUE (billing_module_id, cycle)
+);
+
+-- The modules a run reads, in id order, answered from the index alone
+CREATE INDEX IF NOT EXISTS billing_module_due_idx ON "billing_module" (id)
+    INCLUDE (price, billing_cycle_days, created_at)
+    WHERE is_recurring AND is_active AND price > 0 AND billing_cycle_days > 0;
@@ -0,0 +1,17 @@
+-- Search indexes of BillingModule (see TextSearch). Adding the generated column rewrites the
+-- table once; on large tables run this script by hand in a maintenance window first, after
+-- which every start finds everything in place. CREATE EXTENSION needs a role allowed to
+-- create it (pg_trgm is a trusted extension from PostgreSQL 13 on).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Word prefixes: to_tsquery('simple', 'w1:* & w2:*') against the GIN index
+ALTER TABLE "billing_module" ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(module_name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS billing_module_search_vector_idx ON "billing_module" USING gin (search_vector);
+
+-- Typo-tolerant matches: lower(:term) <% lower(column)
+CREATE INDEX IF NOT EXISTS billing_module_module_name_trgm_idx ON "billing_module" USING gin (lower(module_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS billing_module_description_trgm_idx ON "billing_module" USING gin (lower(description) gin_trgm_ops);
@@ -0,0 +1,8 @@
+-- Id sequence of BillingModule. INCREMENT BY must equal the entity's allocationSize:
+-- Hibernate's pooled optimizer hands out the 50 ids up to each value nextval returns.
+CREATE SEQUENCE IF NOT EXISTS billing_module_seq START WITH 1 INCREMENT BY 50;
+
+-- Moves the sequence past ids the former identity column already handed out. It only ever
+-- moves forward, so running this on every start is safe while other nodes hold id blocks.
+SELECT setval('billing_module_seq', (SELECT MAX(id) FROM billing_module))
+WHERE (SELECT MAX(id) FROM billing_module) >= (SELECT last_value FROM billing_module_seq);
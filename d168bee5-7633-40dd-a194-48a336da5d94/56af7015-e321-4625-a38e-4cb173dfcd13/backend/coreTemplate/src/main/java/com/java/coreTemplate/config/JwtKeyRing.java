@@ -0,0 +1,102 @@
+package com.java.coreTemplate.config;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Signing keys shared by every node. Tokens carry the kid of the key that signed them,
+// so verification is a single map lookup and old keys can stay in the ring while
+// tokens signed with them are still alive.
+@Slf4j
+public class JwtKeyRing {
+    private static final String EPHEMERAL_KID = "ephemeral";
+
+    private final Map<String, SecretKey> keys;
+    private final String activeKid;
+    private final JwtParser parser;
+
+    public JwtKeyRing(Map<String, SecretKey> keys, String activeKid) {
+        if (!keys.containsKey(activeKid)) {
+            throw new IllegalArgumentException("Active JWT key '" + activeKid + "' is not in the key ring " + keys.keySet());
+        }
+        this.keys = Map.copyOf(keys);
+        this.activeKid = activeKid;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String kid = header.getKeyId();
+                        return kid != null ? JwtKeyRing.this.keys.get(kid) : null;
+                    }
+                })
+                .build();
+    }
+
+    // Random single-key ring; tokens only survive as long as this JVM
+    public static JwtKeyRing ephemeral() {
+        return new JwtKeyRing(Map.of(EPHEMERAL_KID, Jwts.SIG.HS256.key().build()), EPHEMERAL_KID);
+    }
+
+    public static JwtKeyRing load(JwtKeyProperties properties) throws IOException {
+        Map<String, String> encoded = new LinkedHashMap<>(properties.getKeys());
+        String activeKid = properties.getActiveKid();
+
+        if (properties.getKeyFile() != null && !properties.getKeyFile().isBlank()) {
+            Properties file = new Properties();
+            try (Reader reader = Files.newBufferedReader(Path.of(properties.getKeyFile()))) {
+                file.load(reader);
+            }
+            for (String kid : file.stringPropertyNames()) {
+                if ("active-kid".equals(kid)) {
+                    activeKid = file.getProperty(kid).trim();
+                } else {
+                    encoded.put(kid, file.getProperty(kid));
+                }
+            }
+        }
+
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        encoded.forEach((kid, secret) -> {
+            if (secret != null && !secret.isBlank()) {
+                keys.put(kid, Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret.trim())));
+            }
+        });
+
+        if (keys.isEmpty()) {
+            log.warn("No JWT signing keys configured (jwt.signing.keys / jwt.signing.key-file); "
+                    + "using an ephemeral key, tokens will not be accepted by other nodes or after a restart");
+            return ephemeral();
+        }
+        return new JwtKeyRing(keys, activeKid);
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public SecretKey getActiveKey() {
+        return keys.get(activeKid);
+    }
+
+    public JwtParser getParser() {
+        return parser;
+    }
+
+    public boolean contains(String kid) {
+        return keys.containsKey(kid);
+    }
+}
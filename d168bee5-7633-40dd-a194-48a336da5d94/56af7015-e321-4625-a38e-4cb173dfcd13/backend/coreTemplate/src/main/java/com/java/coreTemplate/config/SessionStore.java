@@ -0,0 +1,11 @@
+package com.java.coreTemplate.config;
+
+// Where SessionAuthService keeps its sessions; selected with session.store (memory | jdbc)
+public interface SessionStore {
+    void put(String sessionId, String userId);
+
+    // Returns the user of a live session and refreshes its idle deadline, or null
+    String touch(String sessionId);
+
+    void remove(String sessionId);
+}
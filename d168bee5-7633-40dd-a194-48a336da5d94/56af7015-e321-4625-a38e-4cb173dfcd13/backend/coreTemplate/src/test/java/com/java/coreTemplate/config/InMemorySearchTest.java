@@ -0,0 +1,201 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InMemorySearchTest {
+	private static final TextSearch.Index INDEX = new TextSearch.Index(Widget.class, "widget",
+			List.of("widget_name", "description"));
+
+	private EntityManager entityManager;
+	private EntityManager databaseEntityManager;
+	private Query ranking;
+	private TypedQuery<Widget> load;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private InMemorySearch search;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		@Column(name = "widget_name")
+		private String name;
+		private String description;
+		@Version
+		private Long version;
+
+		Widget(Long id, String name, Long version) {
+			this.id = id;
+			this.name = name;
+			this.version = version;
+		}
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		load = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Widget.class))).thenReturn(load);
+		databaseEntityManager = mock(EntityManager.class);
+		ranking = mock(Query.class, RETURNS_SELF);
+		when(databaseEntityManager.createNativeQuery(anyString())).thenReturn(ranking);
+		TextSearch textSearch = new TextSearch(databaseEntityManager, new ObjectMapper(), registry, 200);
+		search = new InMemorySearch(textSearch, entityManager, mock(EntityManagerFactory.class),
+				mock(PlatformTransactionManager.class), new EntityVersionStamps(), registry, Set.of("Widget"), 100,
+				Duration.ofMinutes(10));
+		search.register(INDEX, "widgets");
+	}
+
+	@AfterEach
+	void tearDown() {
+		search.shutdown();
+	}
+
+	private double served(String where) {
+		return registry.get("search.in-memory").tag("served", where).counter().count();
+	}
+
+	@Test
+	void anIndexThatIsNotBuiltYetFallsBackToTheDatabase() {
+		search.search(INDEX, "wid", null, 20);
+
+		verify(databaseEntityManager).createNativeQuery(anyString());
+		assertEquals(1, served("database"));
+	}
+
+	@Test
+	void afterWarmUpSearchesAreAnsweredFromMemoryWithKeysetPages() {
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget one", 0L),
+				new Widget(2L, "Widget two", 0L), new Widget(3L, "Gadget", 0L)));
+
+		assertEquals(3, search.warmUp(100));
+		CursorPage<Widget> first = search.search(INDEX, "widg", null, 1);
+		CursorPage<Widget> second = search.search(INDEX, "widg", first.next(), 1);
+
+		assertEquals(1L, first.content().get(0).id);
+		assertTrue(first.hasNext());
+		assertEquals(2L, second.content().get(0).id);
+		assertFalse(second.hasNext());
+		assertEquals(2, served("memory"));
+		verifyNoInteractions(databaseEntityManager);
+	}
+
+	@Test
+	void committedEntityEventsUpdateTheIndex() {
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget", 0L)));
+		search.warmUp(100);
+
+		search.written(Widget.class, new Widget(1L, "Sprocket", 1L));
+		search.written(Widget.class, new Widget(2L, "Widget", 0L));
+		search.deleted(Widget.class, 2L);
+
+		assertTrue(search.search(INDEX, "widget", null, 20).content().isEmpty());
+		assertEquals(1, search.search(INDEX, "sprock", null, 20).content().size());
+	}
+
+	@Test
+	void refreshedRowsAreReloadedAndMissingOnesDropped() throws InterruptedException {
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget", 0L), new Widget(2L, "Widget", 0L)))
+				.thenReturn(List.of(new Widget(1L, "Renamed", 1L)));
+		search.warmUp(100);
+
+		search.refresh(Widget.class, List.of(1L, 2L));
+
+		for (int i = 0; i < 100 && search.search(INDEX, "renamed", null, 20).content().isEmpty(); i++) {
+			Thread.sleep(50);
+		}
+		verify(load).setParameter("ids", List.of(1L, 2L));
+		assertEquals(1, search.search(INDEX, "renamed", null, 20).content().size());
+		assertTrue(search.search(INDEX, "widget", null, 20).content().isEmpty());
+	}
+
+	@Test
+	void changesAreOnlyJournaledWhileARebuildIsPending() throws InterruptedException {
+		CountDownLatch reloading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget", 0L)))
+				.thenAnswer(invocation -> {
+					reloading.countDown();
+					release.await();
+					return List.of(new Widget(1L, "Widget", 1L));
+				});
+		search.warmUp(100);
+		search.refresh(Widget.class, List.of(1L));
+		assertTrue(reloading.await(5, TimeUnit.SECONDS));
+
+		// A reload is outstanding, but nothing would ever replay these
+		search.written(Widget.class, new Widget(2L, "Gadget", 0L));
+		search.deleted(Widget.class, 2L);
+		assertEquals(0, search.journaled(Widget.class));
+		release.countDown();
+
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget", 1L)));
+		search.warmUp(100);
+		assertEquals(0, search.journaled(Widget.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void aDatabaseCursorStaysOnTheDatabaseOnceTheIndexIsBuilt() {
+		when(ranking.getResultList()).thenReturn(List.of(new Object[] {1L, 0.9f}, new Object[] {2L, 0.8f}));
+		TypedQuery<Widget> rows = mock(TypedQuery.class, RETURNS_SELF);
+		when(databaseEntityManager.createQuery(anyString(), eq(Widget.class))).thenReturn(rows);
+		when(rows.getResultList()).thenReturn(List.of(new Widget(1L, "Widget one", 0L)));
+		CursorPage<Widget> first = search.search(INDEX, "widg", null, 1);
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget one", 0L),
+				new Widget(2L, "Widget two", 0L)));
+		search.warmUp(100);
+
+		search.search(INDEX, "widg", first.next(), 1);
+
+		verify(ranking).setParameter("rank", 0.9f);
+		verify(ranking).setParameter("id", 1L);
+		assertEquals(2, served("database"));
+		// Fresh searches move over to the index
+		search.search(INDEX, "widg", null, 1);
+		assertEquals(1, served("memory"));
+	}
+
+	@Test
+	void aMemoryCursorIsRefusedOnceTheIndexIsGone() {
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "Widget one", 0L),
+				new Widget(2L, "Widget two", 0L)));
+		search.warmUp(100);
+		CursorPage<Widget> first = search.search(INDEX, "widg", null, 1);
+		// The table grows past max-rows; its searches go back to the database
+		when(load.getResultList()).thenReturn(LongStream.rangeClosed(1, 101)
+				.mapToObj(id -> new Widget(id, "Widget " + id, 0L)).toList());
+		search.warmUp(100);
+
+		ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+				() -> search.search(INDEX, "widg", first.next(), 1));
+
+		assertEquals(400, refused.getStatusCode().value());
+		verify(databaseEntityManager, never()).createNativeQuery(anyString());
+	}
+}
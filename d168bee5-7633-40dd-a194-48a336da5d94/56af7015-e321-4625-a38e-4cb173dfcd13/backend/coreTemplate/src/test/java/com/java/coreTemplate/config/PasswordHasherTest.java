@@ -0,0 +1,106 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+	@Test
+	void hashedPasswordsVerify() {
+		PasswordHasher hasher = newHasher(4, 2, 8);
+
+		String hash = hasher.hash("secret");
+
+		assertNotEquals("secret", hash);
+		assertTrue(hasher.matches("secret", hash));
+		assertFalse(hasher.matches("wrong", hash));
+		assertFalse(hasher.needsRehash(hash));
+		hasher.shutdown();
+	}
+
+	@Test
+	void legacyPlaintextMatchesButNeedsRehash() {
+		PasswordHasher hasher = newHasher(4, 2, 8);
+
+		assertTrue(hasher.matches("secret", "secret"));
+		assertFalse(hasher.matches("secret", "Secret"));
+		assertTrue(hasher.needsRehash("secret"));
+		hasher.shutdown();
+	}
+
+	@Test
+	void raisingTheCostMarksOlderHashesForRehash() {
+		PasswordHasher cheap = newHasher(4, 1, 1);
+		PasswordHasher stronger = newHasher(5, 1, 1);
+
+		String hash = cheap.hash("secret");
+
+		assertTrue(stronger.matches("secret", hash));
+		assertTrue(stronger.needsRehash(hash));
+		cheap.shutdown();
+		stronger.shutdown();
+	}
+
+	@Test
+	void saturatedPoolRejectsInsteadOfQueueing() {
+		PasswordHasher hasher = newHasher(12, 1, 1);
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<String>> calls = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			calls.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				return hasher.hash("secret");
+			}));
+		}
+		start.countDown();
+
+		long rejected = calls.stream().filter(call -> {
+			try {
+				call.join();
+				return false;
+			} catch (CompletionException e) {
+				return e.getCause() instanceof RejectedExecutionException;
+			}
+		}).count();
+
+		// one running, one queued, the rest turned away
+		assertTrue(rejected >= 3, "rejected " + rejected);
+		hasher.shutdown();
+	}
+
+	@Test
+	void aBatchIsHashedWithinTheQueueCapacity() {
+		// Two threads and a queue of one: ten at once would be turned away, two at a time are not
+		PasswordHasher hasher = newHasher(4, 2, 1);
+		List<String> passwords = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			passwords.add("secret" + i);
+		}
+
+		String[] hashes = hasher.hashAll(passwords);
+
+		assertEquals(10, hashes.length);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(hasher.matches("secret" + i, hashes[i]));
+		}
+		hasher.shutdown();
+	}
+
+	private static PasswordHasher newHasher(int cost, int threads, int queueCapacity) {
+		return new PasswordHasher(cost, threads, queueCapacity, Duration.ofSeconds(30), new SimpleMeterRegistry());
+	}
+}
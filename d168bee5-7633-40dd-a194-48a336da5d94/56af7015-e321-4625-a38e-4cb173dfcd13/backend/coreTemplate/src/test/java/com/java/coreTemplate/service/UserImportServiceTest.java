@@ -0,0 +1,137 @@
+package com.java.coreTemplate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.coreTemplate.config.PasswordHasher;
+import com.java.coreTemplate.model.dto.UserImportResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+	private JdbcTemplate jdbcTemplate;
+	private PasswordHasher passwordHasher;
+	private UserImportService importService;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		passwordHasher = new PasswordHasher(4, 1, 8, Duration.ofSeconds(30), new SimpleMeterRegistry());
+		importService = new UserImportService(jdbcTemplate, mock(PlatformTransactionManager.class),
+				passwordHasher, new ObjectMapper(), 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		passwordHasher.shutdown();
+	}
+
+	@Test
+	void csvRowsAreInsertedInBatchesWithPerRowErrors() throws Exception {
+		when(jdbcTemplate.query(startsWith("INSERT INTO users"), any(RowMapper.class), any(Object[].class)))
+				.thenReturn(List.of(List.of("alice", "alice@example.com"), List.of("bob", "bob@example.com")))
+				.thenReturn(List.of());
+		when(jdbcTemplate.queryForList(startsWith("SELECT username"), eq(String.class), any(Object[].class)))
+				.thenReturn(List.of("alice"));
+
+		UserImportResult result = importService.importUsers(stream("""
+				email,username,password
+				alice@example.com,alice,secret
+				"bob@example.com",bob,"pa,ss"
+				carol@example.com,carol,
+				alice2@example.com,alice,secret
+				"""), UserImportService.Format.CSV);
+
+		assertEquals(4, result.received());
+		assertEquals(2, result.imported());
+		assertEquals(2, result.failed());
+		assertEquals(List.of(
+				new UserImportResult.RowError(4, "username, password and email are required"),
+				new UserImportResult.RowError(5, "Username already exists")), result.errors());
+		verify(jdbcTemplate, times(2)).query(startsWith("INSERT INTO users"), any(RowMapper.class),
+				any(Object[].class));
+	}
+
+	@Test
+	void ndjsonKeepsExistingHashesAndReportsTakenEmails() throws Exception {
+		String hash = passwordHasher.hash("secret");
+		when(jdbcTemplate.query(startsWith("INSERT INTO users"), any(RowMapper.class), any(Object[].class)))
+				.thenReturn(List.of(List.of("alice", "a@example.com")));
+		when(jdbcTemplate.queryForList(startsWith("SELECT username"), eq(String.class), any(Object[].class)))
+				.thenReturn(List.of());
+
+		UserImportResult result = importService.importUsers(stream(
+				"{\"username\":\"alice\",\"password\":\"" + hash + "\",\"email\":\"a@example.com\"}\n"
+						+ "{\"username\":\"bob\",\"password\":\"" + hash + "\",\"email\":\"a@example.com\"}\n"
+						+ "not json\n"), UserImportService.Format.NDJSON);
+
+		assertEquals(1, result.imported());
+		assertEquals(List.of(
+				new UserImportResult.RowError(2, "Email already exists"),
+				new UserImportResult.RowError(3, "Malformed JSON")), result.errors());
+		verify(jdbcTemplate).query(startsWith("INSERT INTO users"), any(RowMapper.class),
+				eq(new Object[]{"alice", hash, "a@example.com", "bob", hash, "a@example.com"}));
+	}
+
+	@Test
+	void aRowSkippedForItsEmailIsNotCreditedWithALaterRowOfTheSameUsername() throws Exception {
+		// taken@example.com belongs to an existing user; the second bob goes in
+		when(jdbcTemplate.query(startsWith("INSERT INTO users"), any(RowMapper.class), any(Object[].class)))
+				.thenReturn(List.of(List.of("bob", "bob@example.com")));
+		when(jdbcTemplate.queryForList(startsWith("SELECT username"), eq(String.class), any(Object[].class)))
+				.thenReturn(List.of("bob"));
+
+		UserImportResult result = importService.importUsers(stream("""
+				username,password,email
+				bob,secret,taken@example.com
+				bob,secret,bob@example.com
+				"""), UserImportService.Format.CSV);
+
+		assertEquals(1, result.imported());
+		assertEquals(List.of(new UserImportResult.RowError(2, "Email already exists")), result.errors());
+	}
+
+	@Test
+	void plaintextPasswordsOfABatchAreHashedOnThePool() throws Exception {
+		PasswordHasher pool = spy(passwordHasher);
+		importService = new UserImportService(jdbcTemplate, mock(PlatformTransactionManager.class), pool,
+				new ObjectMapper(), 10);
+		when(jdbcTemplate.query(startsWith("INSERT INTO users"), any(RowMapper.class), any(Object[].class)))
+				.thenReturn(List.of());
+
+		importService.importUsers(stream("""
+				username,password,email
+				a,one,a@example.com
+				b,two,b@example.com
+				c,three,c@example.com
+				"""), UserImportService.Format.CSV);
+
+		verify(pool).hashAll(List.of("one", "two", "three"));
+		verify(pool, never()).hash(anyString());
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).query(startsWith("INSERT INTO users"), any(RowMapper.class), args.capture());
+		assertTrue(passwordHasher.matches("three", (String) args.getValue()[7]));
+	}
+
+	@Test
+	void quotedCsvFields() {
+		assertArrayEquals(new String[]{"a,b", "say \"hi\"", ""}, UserImportService.splitCsv("\"a,b\",\"say \"\"hi\"\"\","));
+	}
+
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,202 @@
+package com.java.coreTemplate.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Array POST/PUT for the module endpoints. Rows are written in chunks of bulk.chunk-size,
+// each chunk in its own transaction, so a large load neither holds one long transaction nor
+// grows one persistence context without bound.
+// Inserts rely on ids assigned without a round trip per row: the Long-keyed entities use pooled
+// sequences (allocationSize 50), UUID-keyed ones (Storagepy) generate theirs in memory, so
+// persist() needs no INSERT to learn the id and Hibernate can group the INSERTs
+// into JDBC batches of hibernate.jdbc.batch_size, which PgJDBC's reWriteBatchedInserts then
+// sends as multi-row INSERTs. The persistence context is flushed and cleared every batch.
+// Updates load a chunk with one SELECT ... WHERE id IN (...), copy the basic updatable
+// columns onto the managed rows (same columns as ConditionalWrites) and let the flush send
+// batched, version-checked UPDATEs. A row whose id is unknown is reported as missing; one
+// carrying a version other than the current one as a conflict. Neither is written.
+// Chunks that committed stay committed: a failing chunk is answered with 409 saying how many
+// rows were written before it. A chunk that lost an optimistic-lock race is retried once.
+// committed is called with the written rows after every chunk commit, so callers can
+// invalidate caches for exactly what was written, including when a later chunk fails.
+@Component
+public class BulkWriter {
+    public record Result(int applied, List<Object> ids, List<Object> missing, List<Object> conflicts) {
+    }
+
+    private record Chunk<T>(List<T> applied, List<Object> missing, List<Object> conflicts) {
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxRows;
+    private final int batchSize;
+    private final Map<Class<?>, ConditionalWrites.Mapping> mappings = new ConcurrentHashMap<>();
+
+    public BulkWriter(EntityManager entityManager,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${bulk.chunk-size:1000}") int chunkSize,
+                      @Value("${bulk.max-rows:100000}") int maxRows,
+                      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        this.batchSize = batchSize;
+    }
+
+    public <T> Result insert(Class<T> type, List<T> rows, Consumer<List<T>> committed) {
+        ConditionalWrites.Mapping mapping = checked(type, rows);
+        for (int i = 0; i < rows.size(); i++) {
+            if (read(mapping.id(), rows.get(i)) != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Row " + i + " has an id; ids of new rows are assigned by the server");
+            }
+        }
+        List<Object> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            try {
+                insertChunk(chunk);
+            } catch (PersistenceException | DataAccessException e) {
+                throw failed(from, e);
+            }
+            chunk.forEach(row -> ids.add(read(mapping.id(), row)));
+            committed.accept(chunk);
+        }
+        return new Result(ids.size(), ids, List.of(), List.of());
+    }
+
+    public <T> Result update(Class<T> type, List<T> rows, Consumer<List<T>> committed) {
+        ConditionalWrites.Mapping mapping = checked(type, rows);
+        for (int i = 0; i < rows.size(); i++) {
+            if (read(mapping.id(), rows.get(i)) == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Row " + i + " has no id");
+            }
+        }
+        List<Object> ids = new ArrayList<>();
+        List<Object> missing = new ArrayList<>();
+        List<Object> conflicts = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            Chunk<T> result;
+            try {
+                result = updateChunk(type, mapping, chunk);
+            } catch (OptimisticLockingFailureException | jakarta.persistence.OptimisticLockException e) {
+                // A row changed between the SELECT and the UPDATE; the retry sees its new version
+                try {
+                    result = updateChunk(type, mapping, chunk);
+                } catch (PersistenceException | DataAccessException retryFailure) {
+                    throw failed(ids.size(), retryFailure);
+                }
+            } catch (PersistenceException | DataAccessException e) {
+                throw failed(ids.size(), e);
+            }
+            result.applied().forEach(row -> ids.add(read(mapping.id(), row)));
+            missing.addAll(result.missing());
+            conflicts.addAll(result.conflicts());
+            if (!result.applied().isEmpty()) {
+                committed.accept(result.applied());
+            }
+        }
+        return new Result(ids.size(), ids, missing, conflicts);
+    }
+
+    // One chunk in its own transaction, as insert() writes them; also used by EntityImporter
+    void insertChunk(List<?> chunk) {
+        transactionTemplate.executeWithoutResult(status -> persist(chunk));
+    }
+
+    private <T> void persist(List<T> chunk) {
+        for (int i = 0; i < chunk.size(); i++) {
+            entityManager.persist(chunk.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+    }
+
+    private <T> Chunk<T> updateChunk(Class<T> type, ConditionalWrites.Mapping mapping, List<T> chunk) {
+        return transactionTemplate.execute(status -> {
+            List<Object> chunkIds = new ArrayList<>(chunk.size());
+            chunk.forEach(row -> chunkIds.add(read(mapping.id(), row)));
+            Map<Object, T> current = new HashMap<>();
+            for (T row : entityManager.createQuery("SELECT e FROM " + mapping.entityName() + " e WHERE e."
+                            + mapping.id().getName() + " IN :ids", type)
+                    .setParameter("ids", chunkIds)
+                    .getResultList()) {
+                current.put(read(mapping.id(), row), row);
+            }
+            List<T> applied = new ArrayList<>();
+            List<Object> missing = new ArrayList<>();
+            List<Object> conflicts = new ArrayList<>();
+            for (T row : chunk) {
+                Object id = read(mapping.id(), row);
+                T managed = current.get(id);
+                Object version = read(mapping.version(), row);
+                if (managed == null) {
+                    missing.add(id);
+                } else if (version != null && !Objects.equals(version, read(mapping.version(), managed))) {
+                    conflicts.add(id);
+                } else {
+                    for (Field column : mapping.columns()) {
+                        write(column, managed, read(column, row));
+                    }
+                    applied.add(row);
+                }
+            }
+            return new Chunk<>(applied, missing, conflicts);
+        });
+    }
+
+    private ConditionalWrites.Mapping checked(Class<?> type, List<?> rows) {
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No rows");
+        }
+        if (rows.size() > maxRows) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    rows.size() + " rows; at most " + maxRows + " per request");
+        }
+        return mappings.computeIfAbsent(type, ConditionalWrites.Mapping::of);
+    }
+
+    private static ResponseStatusException failed(int written, RuntimeException cause) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, written + " rows were written before the chunk "
+                + "that failed; it and the rows after it were not", cause);
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+
+    private static void write(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot write " + field, e);
+        }
+    }
+}
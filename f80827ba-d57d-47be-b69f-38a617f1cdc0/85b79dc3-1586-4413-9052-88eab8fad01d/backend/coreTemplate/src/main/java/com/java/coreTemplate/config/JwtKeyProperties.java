@@ -0,0 +1,24 @@
+package com.java.coreTemplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "jwt.signing")
+@Getter
+@Setter
+public class JwtKeyProperties {
+    // kid used to sign new tokens; every other key in the ring is verify-only
+    private String activeKid;
+
+    // Optional properties file of kid=base64-secret lines, merged over the keys below
+    private String keyFile;
+
+    // kid -> base64 encoded HS256 secret (at least 256 bits)
+    private Map<String, String> keys = new LinkedHashMap<>();
+}
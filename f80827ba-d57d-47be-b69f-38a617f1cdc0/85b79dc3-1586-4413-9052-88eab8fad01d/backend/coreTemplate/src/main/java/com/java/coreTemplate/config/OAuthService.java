@@ -1,42 +1,173 @@
 package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import java.util.HashMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
+// Talks to the OAuth provider over the shared HttpClient, which keeps connections
+// (HTTP/2 where the provider offers it) alive between callbacks. Every call has a
+// response timeout and an async variant, so callers do not have to hold a request
+// thread while the provider answers. When issuer-uri is set, the token and user-info
+// endpoints come from the provider's discovery document, cached for metadata-ttl.
+@Slf4j
 @Service
 public class OAuthService {
-    @Value("${oauth2.provider.token-uri}")
-    private String tokenUri;
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
 
-    @Value("${oauth2.provider.user-info-uri}")
-    private String userInfoUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String tokenUri;
+    private final String userInfoUri;
+    private final String issuerUri;
+    private final String clientId;
+    private final String clientSecret;
+    private final String redirectUri;
+    private final Duration readTimeout;
+    private final long metadataTtlMillis;
 
-    @Value("${oauth2.client.id}")
-    private String clientId;
+    private volatile ProviderMetadata metadata;
 
-    @Value("${oauth2.client.secret}")
-    private String clientSecret;
+    public OAuthService(HttpClient oauthHttpClient,
+                        ObjectMapper objectMapper,
+                        @Value("${oauth2.provider.token-uri}") String tokenUri,
+                        @Value("${oauth2.provider.user-info-uri}") String userInfoUri,
+                        @Value("${oauth2.provider.issuer-uri:}") String issuerUri,
+                        @Value("${oauth2.provider.metadata-ttl:1h}") Duration metadataTtl,
+                        @Value("${oauth2.client.id}") String clientId,
+                        @Value("${oauth2.client.secret}") String clientSecret,
+                        @Value("${oauth2.client.redirect-uri}") String redirectUri,
+                        @Value("${oauth2.http.read-timeout:5s}") Duration readTimeout) {
+        this.httpClient = oauthHttpClient;
+        this.objectMapper = objectMapper;
+        this.tokenUri = tokenUri;
+        this.userInfoUri = userInfoUri;
+        this.issuerUri = issuerUri;
+        this.metadataTtlMillis = metadataTtl.toMillis();
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.redirectUri = redirectUri;
+        this.readTimeout = readTimeout;
+    }
 
-    @Value("${oauth2.client.redirect-uri}")
-    private String redirectUri;
+    public String getAccessToken(String code) {
+        return join(getAccessTokenAsync(code));
+    }
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    public Map<String, Object> getUserInfo(String accessToken) {
+        return join(getUserInfoAsync(accessToken));
+    }
 
-    public String getAccessToken(String code) {
-        Map<String, String> params = new HashMap<>();
+    public CompletableFuture<String> getAccessTokenAsync(String code) {
+        Map<String, String> params = new LinkedHashMap<>();
         params.put("code", code);
         params.put("client_id", clientId);
         params.put("client_secret", clientSecret);
         params.put("redirect_uri", redirectUri);
         params.put("grant_type", "authorization_code");
+        String form = params.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
 
-        Map<String, Object> response = restTemplate.postForObject(tokenUri, params, Map.class);
-        return (String) response.get("access_token");
+        return providerMetadata()
+                .thenCompose(provider -> send(HttpRequest.newBuilder(URI.create(provider.tokenUri()))
+                        .timeout(readTimeout)
+                        .header("Accept", "application/json")
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build()))
+                .thenApply(response -> {
+                    Object token = response.get("access_token");
+                    if (token == null) {
+                        throw new IllegalStateException("No access_token in token response: " + response.get("error"));
+                    }
+                    return token.toString();
+                });
     }
 
-    public Map<String, Object> getUserInfo(String accessToken) {
-        return restTemplate.getForObject(userInfoUri + "?access_token=" + accessToken, Map.class);
+    public CompletableFuture<Map<String, Object>> getUserInfoAsync(String accessToken) {
+        return providerMetadata()
+                .thenCompose(provider -> send(HttpRequest.newBuilder(URI.create(provider.userInfoUri()))
+                        .timeout(readTimeout)
+                        .header("Accept", "application/json")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .GET()
+                        .build()));
+    }
+
+    // Code exchange followed by the user-info fetch, without blocking the caller
+    public CompletableFuture<Map<String, Object>> exchangeCodeAsync(String code) {
+        return getAccessTokenAsync(code).thenCompose(this::getUserInfoAsync);
+    }
+
+    private CompletableFuture<ProviderMetadata> providerMetadata() {
+        if (issuerUri == null || issuerUri.isBlank()) {
+            return CompletableFuture.completedFuture(new ProviderMetadata(tokenUri, userInfoUri, Long.MAX_VALUE));
+        }
+        ProviderMetadata cached = metadata;
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String discoveryUri = issuerUri.replaceAll("/+$", "") + "/.well-known/openid-configuration";
+        return send(HttpRequest.newBuilder(URI.create(discoveryUri)).timeout(readTimeout).GET().build())
+                .handle((document, failure) -> {
+                    if (failure != null) {
+                        // Keep using the last known endpoints, or the configured ones, while discovery is down
+                        log.warn("Could not refresh OAuth provider metadata from {}", discoveryUri, failure);
+                        return cached != null ? cached : new ProviderMetadata(tokenUri, userInfoUri, 0);
+                    }
+                    ProviderMetadata fresh = new ProviderMetadata(
+                            String.valueOf(document.getOrDefault("token_endpoint", tokenUri)),
+                            String.valueOf(document.getOrDefault("userinfo_endpoint", userInfoUri)),
+                            System.currentTimeMillis() + metadataTtlMillis);
+                    metadata = fresh;
+                    return fresh;
+                });
+    }
+
+    private CompletableFuture<Map<String, Object>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("OAuth provider returned " + response.statusCode()
+                                + " for " + request.uri());
+                    }
+                    try {
+                        return objectMapper.readValue(response.body(), JSON_OBJECT);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record ProviderMetadata(String tokenUri, String userInfoUri, long expiresAt) {
     }
-}
\ No newline at end of file
+}
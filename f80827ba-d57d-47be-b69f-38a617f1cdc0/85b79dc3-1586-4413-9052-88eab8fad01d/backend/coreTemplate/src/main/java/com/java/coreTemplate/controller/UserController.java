@@ -0,0 +1,31 @@
+package com.java.coreTemplate.controller;
+
+import com.java.coreTemplate.model.dto.UserImportResult;
+import com.java.coreTemplate.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    // Body is streamed from the request; rejected rows are reported by line number
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON})
+    public ResponseEntity<UserImportResult> importUsers(HttpServletRequest request) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? UserImportService.Format.NDJSON : UserImportService.Format.CSV;
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream(), format));
+    }
+}
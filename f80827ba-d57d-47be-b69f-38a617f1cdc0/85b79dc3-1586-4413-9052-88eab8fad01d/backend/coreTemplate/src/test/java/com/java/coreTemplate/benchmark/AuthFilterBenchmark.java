@@ -0,0 +1,77 @@
+package com.java.coreTemplate.benchmark;
+
+import com.java.coreTemplate.config.AuthFilter;
+import com.java.coreTemplate.config.InMemorySessionStore;
+import com.java.coreTemplate.config.JwtTokenUtil;
+import com.java.coreTemplate.config.SessionAuthService;
+import com.java.coreTemplate.config.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cost of AuthFilter for a bearer token: "cold" verifies the signature on every call,
+// "warm" is answered from VerifiedTokenCache.
+// Run main() from the IDE, or org.openjdk.jmh.Main AuthFilterBenchmark on the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthFilterBenchmark {
+	private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+	private InMemorySessionStore sessionStore;
+	private AuthFilter coldFilter;
+	private AuthFilter warmFilter;
+	private String authorization;
+
+	@Setup
+	public void setUp() throws Exception {
+		sessionStore = new InMemorySessionStore(Duration.ofMinutes(30), Duration.ofHours(12), 1000, 10,
+				Duration.ofSeconds(1), new SimpleMeterRegistry());
+		SessionAuthService sessionAuthService = new SessionAuthService(sessionStore, Duration.ofMinutes(30));
+		coldFilter = new AuthFilter(sessionAuthService, new VerifiedTokenCache(0, new SimpleMeterRegistry()));
+		warmFilter = new AuthFilter(sessionAuthService, new VerifiedTokenCache(10_000, new SimpleMeterRegistry()));
+		authorization = "Bearer " + JwtTokenUtil.generateToken("benchmark-user", Map.of("role", "user"));
+		warmFilter.doFilter(request(), new MockHttpServletResponse(), NO_OP_CHAIN);
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionStore.shutdown();
+	}
+
+	@Benchmark
+	public int cold() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		coldFilter.doFilter(request(), response, NO_OP_CHAIN);
+		return response.getStatus();
+	}
+
+	@Benchmark
+	public int warm() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		warmFilter.doFilter(request(), response, NO_OP_CHAIN);
+		return response.getStatus();
+	}
+
+	private MockHttpServletRequest request() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/protected");
+		request.addHeader("Authorization", authorization);
+		return request;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(AuthFilterBenchmark.class.getSimpleName()).build()).run();
+	}
+}
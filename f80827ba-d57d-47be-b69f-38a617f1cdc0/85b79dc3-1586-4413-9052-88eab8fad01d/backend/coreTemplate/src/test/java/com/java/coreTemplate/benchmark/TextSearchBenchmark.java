@@ -0,0 +1,140 @@
+package com.java.coreTemplate.benchmark;
+
+import com.java.coreTemplate.config.TextSearch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The module /search query against a generated table of search.rows rows (5M by default) in
+// a real PostgreSQL: "like" is what the old findByNameContainingIgnoreCase pages sent (UPPER(name)
+// LIKE UPPER('%term%') plus the COUNT(*) of the Page), "prefix" and "fuzzy" the TextSearch ranking
+// query for a word prefix and for a misspelt word. The table gets the same column and indexes as
+// db/search/*.sql; setUp generates it once and keeps it for later runs (drop search_benchmark to
+// regenerate). Names are three of 64 words plus the row number, so a word is in ~5% of the names.
+// -Dsearch.url, -Dsearch.user and -Dsearch.password select the database (local postgres by default).
+// Run main() from the IDE, or org.openjdk.jmh.Main TextSearchBenchmark on the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextSearchBenchmark {
+	private static final int PAGE = 20;
+	private static final String[] WORDS = {"account", "admin", "alert", "archive", "audit", "backup", "balance",
+			"batch", "billing", "budget", "cache", "catalog", "client", "config", "contract", "credit", "customer",
+			"dashboard", "data", "delivery", "device", "discount", "document", "email", "export", "feature", "finance",
+			"form", "gateway", "import", "inventory", "invoice", "ledger", "license", "logistics", "member", "message",
+			"module", "network", "notice", "order", "partner", "payment", "payroll", "policy", "portal", "pricing",
+			"product", "profile", "project", "purchase", "quote", "receipt", "refund", "report", "schedule", "security",
+			"service", "shipment", "storage", "supplier", "ticket", "validator", "workflow"};
+	private static final TextSearch.Index INDEX = new TextSearch.Index(Object.class, "search_benchmark",
+			List.of("name", "description"));
+
+	private Connection connection;
+	private PreparedStatement likePage;
+	private PreparedStatement likeCount;
+	private PreparedStatement ranking;
+
+	@Setup
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection(
+				System.getProperty("search.url", "jdbc:postgresql://localhost:5432/postgres"),
+				System.getProperty("search.user", "postgres"), System.getProperty("search.password", "postgres"));
+		int rows = Integer.getInteger("search.rows", 5_000_000);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+			statement.execute("CREATE TABLE IF NOT EXISTS search_benchmark (id bigint PRIMARY KEY, "
+					+ "name varchar(100) NOT NULL, description varchar(500))");
+			try (ResultSet count = statement.executeQuery("SELECT count(*) FROM search_benchmark")) {
+				count.next();
+				if (count.getLong(1) != rows) {
+					statement.execute("TRUNCATE search_benchmark");
+					statement.execute("INSERT INTO search_benchmark SELECT g, "
+							+ "w[1 + g % 64] || ' ' || w[1 + (g / 64) % 64] || ' ' || w[1 + (g / 4096) % 64] || ' ' || g, "
+							+ "'Module ' || w[1 + (g * 7) % 64] || ' for ' || w[1 + (g * 13) % 64] "
+							+ "FROM generate_series(1, " + rows + ") g, "
+							+ "(SELECT ARRAY['" + String.join("','", WORDS) + "'] AS w) words");
+				}
+			}
+			statement.execute("ALTER TABLE search_benchmark ADD COLUMN IF NOT EXISTS search_vector tsvector "
+					+ "GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(name, '')), 'A') || "
+					+ "setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED");
+			statement.execute("CREATE INDEX IF NOT EXISTS search_benchmark_search_vector_idx "
+					+ "ON search_benchmark USING gin (search_vector)");
+			statement.execute("CREATE INDEX IF NOT EXISTS search_benchmark_name_trgm_idx "
+					+ "ON search_benchmark USING gin (lower(name) gin_trgm_ops)");
+			statement.execute("CREATE INDEX IF NOT EXISTS search_benchmark_description_trgm_idx "
+					+ "ON search_benchmark USING gin (lower(description) gin_trgm_ops)");
+			statement.execute("ANALYZE search_benchmark");
+		}
+		likePage = connection.prepareStatement("SELECT * FROM search_benchmark WHERE upper(name) LIKE upper(?) "
+				+ "ORDER BY id LIMIT " + PAGE);
+		likeCount = connection.prepareStatement(
+				"SELECT count(*) FROM search_benchmark WHERE upper(name) LIKE upper(?)");
+		// JDBC placeholders for the named parameters, in order of appearance
+		ranking = connection.prepareStatement(INDEX.rankingQuery(false).replaceAll(":\\w+", "?"));
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Benchmark
+	public long like() throws SQLException {
+		likePage.setString(1, "%invoice%");
+		long found = drain(likePage);
+		likeCount.setString(1, "%invoice%");
+		return found + drain(likeCount);
+	}
+
+	@Benchmark
+	public long prefix() throws SQLException {
+		return rank("invo");
+	}
+
+	@Benchmark
+	public long fuzzy() throws SQLException {
+		return rank("invocie");
+	}
+
+	private long rank(String term) throws SQLException {
+		// words, term per column, words, term per column, limit
+		int i = 1;
+		ranking.setString(i++, TextSearch.prefixQuery(term));
+		for (int c = 0; c < INDEX.columns().size(); c++) {
+			ranking.setString(i++, term);
+		}
+		ranking.setString(i++, TextSearch.prefixQuery(term));
+		for (int c = 0; c < INDEX.columns().size(); c++) {
+			ranking.setString(i++, term);
+		}
+		ranking.setInt(i, PAGE + 1);
+		return drain(ranking);
+	}
+
+	private static long drain(PreparedStatement statement) throws SQLException {
+		long rows = 0;
+		try (ResultSet resultSet = statement.executeQuery()) {
+			while (resultSet.next()) {
+				rows++;
+			}
+		}
+		return rows;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TextSearchBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,57 @@
+package com.java.coreTemplate.config;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+	@Test
+	void repeatedTokenIsServedFromCache() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(10, new SimpleMeterRegistry());
+		String token = JwtTokenUtil.generateToken("alice", Map.of("role", "user"));
+
+		Claims first = cache.verify(token);
+		Claims second = cache.verify(token);
+
+		assertEquals("alice", first.getSubject());
+		assertSame(first, second);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	void invalidTokenIsRejectedAndNotCached() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(10, new SimpleMeterRegistry());
+		String token = JwtTokenUtil.generateToken("alice", Map.of());
+		String tampered = token.substring(0, token.length() - 2) + "xx";
+
+		assertNull(cache.verify(tampered));
+		assertNull(cache.verify("not-a-jwt"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void cacheStaysWithinMaxEntries() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(5, new SimpleMeterRegistry());
+		for (int i = 0; i < 50; i++) {
+			assertNotNull(cache.verify(JwtTokenUtil.generateToken("user" + i, Map.of())));
+		}
+		assertTrue(cache.size() <= 5);
+	}
+
+	@Test
+	void zeroMaxEntriesDisablesCaching() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(0, new SimpleMeterRegistry());
+		String token = JwtTokenUtil.generateToken("alice", Map.of());
+
+		assertNotNull(cache.verify(token));
+		assertNotNull(cache.verify(token));
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.size());
+	}
+}
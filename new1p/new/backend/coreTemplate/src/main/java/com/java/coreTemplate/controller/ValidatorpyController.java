@@ -1,23 +1,43 @@
 package com.java.coreTemplate.controller;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
 import com.java.coreTemplate.service.ValidatorpyService;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.BulkMaintenance;
+import com.java.coreTemplate.config.EntityTags;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.EntityExporter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.JsonResponseCache;
 import com.java.coreTemplate.model.dto.Validatorpy;
 
+import jakarta.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/validators")
 public class ValidatorpyController {
     private final ValidatorpyService service;
+    private final JsonResponseCache responseCache;
+    private final EntityExporter exporter;
     
-    public ValidatorpyController(ValidatorpyService service) {
+    public ValidatorpyController(ValidatorpyService service, JsonResponseCache responseCache,
+                                 EntityExporter exporter) {
         this.service = service;
+        this.responseCache = responseCache;
+        this.exporter = exporter;
     }
     
     @PostMapping
@@ -26,41 +46,107 @@ public class ValidatorpyController {
         return ResponseEntity.created(URI.create("/api/v1/validators/" + savedEntity.getId()))
                 .body(savedEntity);
     }
+
+    // Arrays of rows; ids of new rows come from the pooled sequence. The response lists the
+    // written ids, and for PUT the ids not found and those sent with a stale version
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkWriter.Result> createAll(@RequestBody List<Validatorpy> entities) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.createAll(entities));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkWriter.Result> updateAll(@RequestBody List<Validatorpy> entities) {
+        return ResponseEntity.ok(service.updateAll(entities));
+    }
+
+    // Chunked set-based maintenance, answered 202 once queued; /actuator/maintenance reports
+    // progress until the job is done
+    @DeleteMapping("/inactive")
+    public ResponseEntity<BulkMaintenance.Progress> purgeInactive() {
+        return ResponseEntity.accepted().body(service.purgeInactive());
+    }
     
+    // 304 when If-None-Match still holds the current version's tag; otherwise the body is
+    // served from the serialized-body cache while the row's version is unchanged
     @GetMapping("/{id}")
-    public ResponseEntity<Validatorpy> getById(@PathVariable Long id) {
-        return service.findById(id)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getById(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.get("validatorpy", id, ifNoneMatch,
+            () -> service.findVersion(id), () -> service.findById(id), Validatorpy::getVersion);
     }
     
+    // ?fields=id,name,isActive reads and returns only those columns, here and in the cursor and
+    // search modes; see SparseFields
     @GetMapping
-    public ResponseEntity<Page<Validatorpy>> getAll(
-            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+    public ResponseEntity<Page<?>> getAll(
+            @PageableDefault(size = 20, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.findAll(pageable, fields));
+        }
         return ResponseEntity.ok(service.findAll(pageable));
     }
     
+    // Cursor mode, selected by limit: ?limit=20[&sort=createdAt,desc], then ?after=<next>&limit=20
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<?>> getAllByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @SortDefault(sort = "id") Sort sort,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.findPage(after, limit, sort, fields));
+        }
+        return ResponseEntity.ok(service.findPage(after, limit, sort));
+    }
+
+    // Every row, streamed from a server-side cursor: ?format=ndjson (default) or ?format=csv
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        exporter.export(Validatorpy.class, "validatorpy", format, response);
+    }
+
+    // Rows streamed from the body: ?format=ndjson (default; a JSON array works too) or ?format=csv
+    // with a header of field names. Answered with the counts and a per-row error report
+    @PostMapping("/import")
+    public ResponseEntity<EntityImporter.Report> importRows(@RequestParam(defaultValue = "ndjson") String format,
+                                                            InputStream body) throws IOException {
+        return ResponseEntity.ok(service.importRows(format, body));
+    }
+    
+    // With If-Match: one UPDATE ... WHERE id = ? AND version = ?, answered 204/404/412
     @PutMapping("/{id}")
     public ResponseEntity<Validatorpy> update(
-            @PathVariable Long id, 
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody Validatorpy entity) {
+        if (ifMatch != null) {
+            return service.conditionalUpdate(id, EntityTags.versionOf(ifMatch, id), entity).toResponse(id);
+        }
         return service.update(id, entity)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
     
+    // One DELETE ... WHERE id = ? [AND version = ?]; 404/412 come from the affected row count
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (service.deleteById(id)) {
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<Void> delete(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatch != null ? EntityTags.versionOf(ifMatch, id) : null;
+        return service.conditionalDelete(id, expectedVersion).toResponse(id);
     }
     
+    // Ranked by relevance, prefix and typo tolerant; ?query=&limit=, then ?query=&after=<next>&limit=
     @GetMapping("/search")
-    public ResponseEntity<Page<Validatorpy>> search(
+    public ResponseEntity<CursorPage<?>> search(
             @RequestParam(required = false) String query,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(service.search(query, pageable));
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(service.search(query, after, limit, fields));
+        }
+        return ResponseEntity.ok(service.search(query, after, limit));
     }
 }
\ No newline at end of file
@@ -13,9 +13,6 @@ public interface ValidatorpyRepository extends JpaRepository<Validatorpy, Long>
     // Find by exact name match using derived query
     Optional<Validatorpy> findByName(String name);
 
-    // Find by name containing string (case-insensitive)
-    List<Validatorpy> findByNameContainingIgnoreCase(String namePart);
-
     // Find by active status using derived query
     List<Validatorpy> findByIsActive(boolean isActive);
 
@@ -34,6 +31,7 @@ public interface ValidatorpyRepository extends JpaRepository<Validatorpy, Long>
     // Exists check using derived query
     boolean existsByNameAndVersion(String name, String version);
 
-    // Delete by status using derived query
-    long deleteByIsActiveFalse();
+    // Version only, for conditional requests; leaves the rest of the row unread
+    @Query("SELECT v.version FROM Validatorpy v WHERE v.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
\ No newline at end of file
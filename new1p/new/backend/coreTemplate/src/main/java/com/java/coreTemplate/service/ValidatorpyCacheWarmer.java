@@ -0,0 +1,58 @@
+package com.java.coreTemplate.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import com.java.coreTemplate.config.CacheWarmer;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.model.dto.Validatorpy;
+import com.java.coreTemplate.repository.ValidatorpyRepository;
+
+import java.util.List;
+
+// Startup warm-up: active and recently updated rows go into validatorpyCache, and the first page
+// of /api/v1/validators is cached the way the list endpoint requests it.
+// findAllActive() goes through the service, so the cached active list is filled as well.
+@Component
+public class ValidatorpyCacheWarmer implements CacheWarmer {
+    // Matches @PageableDefault(size = 20, sort = "id") on the controller
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    private final ValidatorpyService service;
+    private final ValidatorpyRepository repository;
+    private final ModuleCacheManager cacheManager;
+
+    public ValidatorpyCacheWarmer(ValidatorpyService service,
+                                  ValidatorpyRepository repository,
+                                  ModuleCacheManager cacheManager) {
+        this.service = service;
+        this.repository = repository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String name() {
+        return "validatorpy";
+    }
+
+    @Override
+    public int warmUp(int recentRows) {
+        Cache cache = cacheManager.getCache("validatorpyCache");
+        int loaded = CacheWarmer.putAll(cache, service.findAllActive(), Validatorpy::getId);
+        if (recentRows > 0) {
+            List<Validatorpy> recent = repository
+                    .findAll(PageRequest.of(0, recentRows, Sort.by(Sort.Direction.DESC, "updatedAt")))
+                    .getContent();
+            loaded += CacheWarmer.putAll(cache, recent, Validatorpy::getId);
+        }
+        loaded += service.findAll(FIRST_PAGE).getNumberOfElements();
+        return loaded;
+    }
+
+    @Override
+    public List<String> warmUpRequests() {
+        return List.of("/api/v1/validators?page=0&size=20&sort=id");
+    }
+}
\ No newline at end of file
@@ -1,31 +1,84 @@
 package com.java.coreTemplate.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.java.coreTemplate.repository.ValidatorpyRepository;
 import com.java.coreTemplate.model.dto.Validatorpy;
+import com.java.coreTemplate.config.CursorPage;
+import com.java.coreTemplate.config.SparseFields;
+import com.java.coreTemplate.config.BulkMaintenance;
+import com.java.coreTemplate.config.BulkWriter;
+import com.java.coreTemplate.config.EntityImporter;
+import com.java.coreTemplate.config.ConditionalWrites;
+import com.java.coreTemplate.config.EntityVersionStamps;
+import com.java.coreTemplate.config.KeysetPager;
+import com.java.coreTemplate.config.ModuleCacheManager;
+import com.java.coreTemplate.config.InMemorySearch;
+import com.java.coreTemplate.config.TextSearch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+// Cache regions: validatorpyCache (by id), validatorpyByName (by name),
+// validatorpyLists (all/active/count, keyed with the entity's version stamp) and
+// pages (findAll(Pageable), see PageCacheKeys).
+// Writes evict only the touched id and names and bump the stamp.
 @Service
 @Transactional(readOnly = true)
 public class ValidatorpyService {
+    private static final String ENTITY = "validatorpy";
+    // Sort fields the cursor mode accepts besides the id; non-null columns only
+    private static final Set<String> SORTABLE = Set.of("name", "createdAt", "updatedAt");
+    // Columns indexed by db/search/*.sql for the /search endpoint
+    private static final TextSearch.Index SEARCH = new TextSearch.Index(Validatorpy.class,
+            "validator.py", List.of("name"));
 
     private final ValidatorpyRepository repository;
+    private final ModuleCacheManager cacheManager;
+    private final EntityVersionStamps versionStamps;
+    private final ConditionalWrites writes;
+    private final KeysetPager pager;
+    private final BulkWriter bulk;
+    private final BulkMaintenance maintenance;
+    private final InMemorySearch inMemorySearch;
+    private final SparseFields sparseFields;
+    private final EntityImporter importer;
 
-    public ValidatorpyService(ValidatorpyRepository repository) {
+    public ValidatorpyService(ValidatorpyRepository repository,
+                              ModuleCacheManager cacheManager,
+                              EntityVersionStamps versionStamps,
+                              ConditionalWrites writes,
+                              KeysetPager pager,
+                              BulkWriter bulk,
+                              BulkMaintenance maintenance,
+                              InMemorySearch inMemorySearch,
+                              SparseFields sparseFields,
+                              EntityImporter importer) {
         this.repository = repository;
+        this.cacheManager = cacheManager;
+        this.versionStamps = versionStamps;
+        this.writes = writes;
+        this.pager = pager;
+        this.bulk = bulk;
+        this.maintenance = maintenance;
+        this.inMemorySearch = inMemorySearch;
+        this.sparseFields = sparseFields;
+        this.importer = importer;
+        inMemorySearch.register(SEARCH, ENTITY);
     }
 
     @Transactional
-    @CacheEvict(value = "validatorpyCache", allEntries = true)
     public Validatorpy save(Validatorpy entity) {
-        return repository.save(entity);
+        return saveAndInvalidate(entity);
     }
 
     @Cacheable(value = "validatorpyCache", key = "#id")
@@ -33,39 +86,184 @@ public class ValidatorpyService {
         return repository.findById(id);
     }
 
-    @Cacheable(value = "validatorpyCache")
+    // Version for conditional requests: taken from validatorpyCache when the row is cached there,
+    // otherwise from a single-column query
+    public Optional<Long> findVersion(Long id) {
+        Validatorpy cached = cacheManager.peek("validatorpyCache", id, Validatorpy.class);
+        return cached != null ? Optional.ofNullable(cached.getVersion()) : repository.findVersionById(id);
+    }
+
+    // PUT/PATCH/DELETE as one conditional statement, see ConditionalWrites. expectedVersion
+    // comes from If-Match; null accepts any version. Evictions apply once the transaction commits.
+    @Transactional
+    public ConditionalWrites.Result conditionalUpdate(Long id, Long expectedVersion, Validatorpy values) {
+        return invalidated(id, values.getName(), writes.update(Validatorpy.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalPatch(Long id, Long expectedVersion, Validatorpy values) {
+        return invalidated(id, values.getName(), writes.patch(Validatorpy.class, id, expectedVersion, values));
+    }
+
+    @Transactional
+    public ConditionalWrites.Result conditionalDelete(Long id, Long expectedVersion) {
+        return invalidated(id, null, writes.delete(Validatorpy.class, id, expectedVersion));
+    }
+
+    // Array POST/PUT in chunked transactions, see BulkWriter. Not run inside the class's
+    // read-only transaction, so every chunk commits on its own; caches are invalidated after
+    // each commit
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result createAll(List<Validatorpy> entities) {
+        return bulk.insert(Validatorpy.class, entities, rows -> {
+            cacheManager.evictAll("validatorpyByName", rows.stream().map(Validatorpy::getName).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriter.Result updateAll(List<Validatorpy> entities) {
+        return bulk.update(Validatorpy.class, entities, rows -> {
+            // The old names are not known here
+            cacheManager.clear("validatorpyByName");
+            cacheManager.evictAll("validatorpyCache", rows.stream().map(Validatorpy::getId).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    // See EntityImporter; every committed batch is handled as a createAll() chunk
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EntityImporter.Report importRows(String format, InputStream body) throws IOException {
+        return importer.importRows(Validatorpy.class, "validatorpy", format, body, rows -> {
+            cacheManager.evictAll("validatorpyByName", rows.stream().map(Validatorpy::getName).toList());
+            versionStamps.bump(ENTITY);
+        });
+    }
+
+    // Deletes inactive rows in chunks on the maintenance thread, see BulkMaintenance
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkMaintenance.Progress purgeInactive() {
+        return maintenance.start("validatorpy.purgeInactive", Validatorpy.class,
+                BulkMaintenance.Operation.delete("e.isActive = false", Map.of()),
+                this::chunkCommitted);
+    }
+
+    @Cacheable(value = "validatorpyLists", key = "'all:' + @entityVersionStamps.current('validatorpy')")
     public List<Validatorpy> findAll() {
         return repository.findAll();
     }
 
+    @Cacheable(value = "pages", key = "@pageCacheKeys.of('validatorpy', #pageable)",
+            condition = "@pageCacheKeys.cacheable(#pageable)")
     public Page<Validatorpy> findAll(Pageable pageable) {
         return repository.findAll(pageable);
     }
 
-    @Cacheable(value = "validatorpyCache", key = "'active'")
+    // Cursor mode of the list endpoint: a keyset query without COUNT(*), see KeysetPager
+    public CursorPage<Validatorpy> findPage(String after, int limit, Sort sort) {
+        return pager.page(Validatorpy.class, after, limit, sort, SORTABLE);
+    }
+
+    // Prefix and fuzzy matches ranked by relevance, keyset paged; from memory when the table is
+    // opted in to InMemorySearch, otherwise see TextSearch
+    public CursorPage<Validatorpy> search(String query, String after, int limit) {
+        return inMemorySearch.search(SEARCH, query, after, limit);
+    }
+
+    // ?fields= variants of findAll, findPage and search: only the selected columns are read and
+    // returned, see SparseFields
+    public Page<SparseFields.Row> findAll(Pageable pageable, String fields) {
+        return sparseFields.page(sparseFields.select(Validatorpy.class, fields), pageable);
+    }
+
+    public CursorPage<SparseFields.Row> findPage(String after, int limit, Sort sort, String fields) {
+        return pager.page(Validatorpy.class, after, limit, sort, SORTABLE,
+                sparseFields.select(Validatorpy.class, fields));
+    }
+
+    public CursorPage<SparseFields.Row> search(String query, String after, int limit, String fields) {
+        return inMemorySearch.search(SEARCH, query, after, limit, sparseFields.select(Validatorpy.class, fields));
+    }
+
+    @Cacheable(value = "validatorpyLists", key = "'active:' + @entityVersionStamps.current('validatorpy')")
     public List<Validatorpy> findAllActive() {
         return repository.findByIsActiveTrue();
     }
 
     @Transactional
-    @CacheEvict(value = "validatorpyCache", key = "#id")
     public void deleteById(Long id) {
+        // A row read before the delete must not be cached again
+        Validatorpy existing = repository.findById(id).orElse(null);
+        Long version = existing != null ? nextVersion(existing) : null;
+        if (existing != null) {
+            cacheManager.evict("validatorpyByName", existing.getName(), version);
+        }
         repository.deleteById(id);
+        cacheManager.evict("validatorpyCache", id, version);
+        versionStamps.bump(ENTITY);
     }
 
     @Transactional
-    @CacheEvict(value = "validatorpyCache", allEntries = true)
     public Validatorpy update(Validatorpy entity) {
-        return repository.save(entity);
+        return saveAndInvalidate(entity);
     }
 
-    @Cacheable(value = "validatorpyCache", key = "'count'")
+    @Cacheable(value = "validatorpyLists", key = "'count:' + @entityVersionStamps.current('validatorpy')")
     public long count() {
         return repository.count();
     }
 
-    @Cacheable(value = "validatorpyCache", key = "#name")
+    @Cacheable(value = "validatorpyByName", key = "#name")
     public Optional<Validatorpy> findByName(String name) {
         return repository.findByName(name);
     }
+
+    // Evictions and the stamp bump are applied once the transaction commits
+    private Validatorpy saveAndInvalidate(Validatorpy entity) {
+        Long version = null;
+        if (entity.getId() != null) {
+            // A rename must also drop the entry cached under the old name
+            Validatorpy existing = repository.findById(entity.getId()).orElse(null);
+            if (existing != null) {
+                version = nextVersion(existing);
+                cacheManager.evict("validatorpyByName", existing.getName(), version);
+            }
+        }
+        Validatorpy saved = repository.save(entity);
+        cacheManager.evict("validatorpyCache", saved.getId(), version);
+        cacheManager.evict("validatorpyByName", saved.getName(), version);
+        versionStamps.bump(ENTITY);
+        return saved;
+    }
+
+    private ConditionalWrites.Result invalidated(Long id, String name, ConditionalWrites.Result result) {
+        if (result.applied()) {
+            // The old name is only known when the row is cached; otherwise the by-name region goes
+            Validatorpy cached = cacheManager.peek("validatorpyCache", id, Validatorpy.class);
+            if (cached != null) {
+                cacheManager.evict("validatorpyByName", cached.getName());
+            } else {
+                cacheManager.clear("validatorpyByName");
+            }
+            cacheManager.evict("validatorpyByName", name, result.version());
+            cacheManager.evict("validatorpyCache", id, result.version());
+            versionStamps.bump(ENTITY);
+            inMemorySearch.refresh(Validatorpy.class, List.of(id));
+        }
+        return result;
+    }
+
+    // The version the row is left at once the write flushes; read before the save merges into it
+    private static Long nextVersion(Validatorpy existing) {
+        return existing.getVersion() != null ? existing.getVersion() + 1 : null;
+    }
+
+    // After every committed maintenance chunk
+    private void chunkCommitted(List<Object> ids) {
+        // Names of the affected rows are not known
+        cacheManager.clear("validatorpyByName");
+        cacheManager.evictAll("validatorpyCache", ids);
+        versionStamps.bump(ENTITY);
+        inMemorySearch.refresh(Validatorpy.class, ids);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Set-based DELETE/UPDATE over a whole table, in chunks of maintenance.chunk-size rows. Each
+// chunk is one transaction:
+//   SELECT e.id FROM <Entity> e WHERE e.id > :after AND (<condition>) ORDER BY e.id LIMIT <chunk-size>
+//   DELETE FROM <Entity> e WHERE e.id IN (:ids) AND (<condition>)
+// or UPDATE <Entity> e SET <assignments>, e.version = e.version + 1 WHERE ... likewise.
+// The id keyset walks the primary key, so a chunk only locks its own rows and no statement
+// scans the table in one go; the condition is checked again in the write so rows changed
+// since the SELECT are left alone. Nothing is loaded into the persistence context.
+// maintenance.pause is slept between chunks to leave room for regular traffic. Updates bump
+// @Version so ETags and the serialized-body cache see the change.
+// Jobs run one at a time on the maintenance thread; starting a job that is already running
+// is a 409. Progress is kept per job name (see MaintenanceEndpoint, /actuator/maintenance),
+// logged every chunk at debug and counted as maintenance.rows{job}. committed receives the
+// ids of every committed chunk, for cache invalidation.
+@Slf4j
+@Component
+public class BulkMaintenance {
+    public enum State { RUNNING, DONE, FAILED }
+
+    public record Progress(String job, State state, long affected, int chunks, Instant startedAt,
+                           Instant finishedAt, String error) {
+    }
+
+    // assignments is null for a delete; both are JPQL over the alias e
+    public record Operation(String assignments, String condition, Map<String, Object> parameters) {
+        public static Operation delete(String condition, Map<String, Object> parameters) {
+            return new Operation(null, condition, parameters);
+        }
+
+        public static Operation update(String assignments, String condition, Map<String, Object> parameters) {
+            return new Operation(assignments, condition, parameters);
+        }
+    }
+
+    // ids selected for the chunk, written the rows that still matched
+    private record Chunk(List<Object> ids, int written) {
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Map<String, Progress> jobs = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ConditionalWrites.Mapping> mappings = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BulkMaintenance(EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${maintenance.chunk-size:5000}") int chunkSize,
+                           @Value("${maintenance.pause:100ms}") Duration pause) {
+        this(entityManager, transactionManager, meterRegistry, Clock.systemUTC(), chunkSize, pause);
+    }
+
+    BulkMaintenance(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                    MeterRegistry meterRegistry, Clock clock, int chunkSize, Duration pause) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+    }
+
+    // Queues the job on the maintenance thread and returns its initial progress
+    public Progress start(String job, Class<?> type, Operation operation, Consumer<List<Object>> committed) {
+        Progress started = new Progress(job, State.RUNNING, 0, 0, clock.instant(), null, null);
+        Progress previous = jobs.compute(job, (name, current) ->
+                current != null && current.state() == State.RUNNING ? current : started);
+        if (previous != started) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Maintenance job " + job + " is already running");
+        }
+        executor.execute(() -> run(job, type, operation, committed));
+        return started;
+    }
+
+    public Collection<Progress> progress() {
+        return List.copyOf(jobs.values());
+    }
+
+    public Progress progress(String job) {
+        return jobs.get(job);
+    }
+
+    Progress run(String job, Class<?> type, Operation operation, Consumer<List<Object>> committed) {
+        Instant startedAt = clock.instant();
+        Counter rows = Counter.builder("maintenance.rows").tag("job", job).register(meterRegistry);
+        ConditionalWrites.Mapping mapping = mappings.computeIfAbsent(type, ConditionalWrites.Mapping::of);
+        long affected = 0;
+        int chunks = 0;
+        Object after = null;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Object from = after;
+                Chunk chunk = transactionTemplate.execute(status -> chunk(mapping, operation, from));
+                if (chunk.ids().isEmpty()) {
+                    break;
+                }
+                committed.accept(chunk.ids());
+                affected += chunk.written();
+                chunks++;
+                rows.increment(chunk.written());
+                after = chunk.ids().get(chunk.ids().size() - 1);
+                jobs.put(job, new Progress(job, State.RUNNING, affected, chunks, startedAt, null, null));
+                log.debug("Maintenance {}: chunk {} wrote {} rows, {} so far", job, chunks, chunk.written(), affected);
+                if (chunk.ids().size() < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Maintenance {} failed after {} rows", job, affected, e);
+            return finish(new Progress(job, State.FAILED, affected, chunks, startedAt, clock.instant(), e.getMessage()));
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return finish(new Progress(job, State.FAILED, affected, chunks, startedAt, clock.instant(), "Interrupted"));
+        }
+        log.info("Maintenance {} finished: {} rows in {} chunks", job, affected, chunks);
+        return finish(new Progress(job, State.DONE, affected, chunks, startedAt, clock.instant(), null));
+    }
+
+    private Progress finish(Progress progress) {
+        jobs.put(progress.job(), progress);
+        return progress;
+    }
+
+    private Chunk chunk(ConditionalWrites.Mapping mapping, Operation operation, Object after) {
+        String id = "e." + mapping.id().getName();
+        String condition = "(" + operation.condition() + ")";
+        TypedQuery<Object> select = entityManager.createQuery("SELECT " + id + " FROM " + mapping.entityName()
+                        + " e WHERE " + (after != null ? id + " > :after AND " : "") + condition + " ORDER BY " + id,
+                Object.class);
+        if (after != null) {
+            select.setParameter("after", after);
+        }
+        operation.parameters().forEach(select::setParameter);
+        List<Object> ids = select.setMaxResults(chunkSize).getResultList();
+        if (ids.isEmpty()) {
+            return new Chunk(ids, 0);
+        }
+        String version = "e." + mapping.version().getName();
+        String jpql = operation.assignments() == null
+                ? "DELETE FROM " + mapping.entityName() + " e"
+                : "UPDATE " + mapping.entityName() + " e SET " + operation.assignments() + ", "
+                        + version + " = " + version + " + 1";
+        Query write = entityManager.createQuery(jpql + " WHERE " + id + " IN :ids AND " + condition)
+                .setParameter("ids", ids);
+        operation.parameters().forEach(write::setParameter);
+        return new Chunk(ids, write.executeUpdate());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,26 @@
+package com.java.coreTemplate.config;
+
+// Tells other nodes about cache evictions and version stamp bumps made on this one.
+// Called from inside the writing transaction; implementations must only deliver once it commits.
+public interface CacheInvalidationPublisher {
+    CacheInvalidationPublisher NONE = new CacheInvalidationPublisher() {
+        @Override
+        public void evicted(String cacheName, Object key, Long version) {
+        }
+
+        @Override
+        public void cleared(String cacheName) {
+        }
+
+        @Override
+        public void stampBumped(String entity) {
+        }
+    };
+
+    // version is the row's version after the write, null when the caller does not know it
+    void evicted(String cacheName, Object key, Long version);
+
+    void cleared(String cacheName);
+
+    void stampBumped(String entity);
+}
@@ -0,0 +1,261 @@
+package com.java.coreTemplate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded in-JVM session registry with idle and absolute timeouts.
+// Expiry runs on a hashed timing wheel: each session sits in the bucket of its next
+// deadline, and a background tick only looks at the bucket that is due. Sessions touched
+// since they were scheduled are moved to their new bucket instead of being expired,
+// so reads stay O(1) and no full scan of the map is ever needed.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "session.store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionStore implements SessionStore {
+    // Rough per-session footprint: entry, map node, wheel and per-user queue slots
+    private static final int ENTRY_OVERHEAD_BYTES = 200;
+
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    private final Map<String, ArrayDeque<SessionEntry>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Queue<SessionEntry>[] wheel;
+    private final long tickMillis;
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    private final int maxSessions;
+    private final int maxSessionsPerUser;
+    private final AtomicLong memoryEstimate = new AtomicLong();
+    private final ScheduledExecutorService ticker;
+    private volatile long currentTick;
+
+    private final Counter idleEvictions;
+    private final Counter absoluteEvictions;
+    private final Counter capacityEvictions;
+    private final Counter userLimitEvictions;
+
+    public InMemorySessionStore(@Value("${session.idle-timeout:30m}") Duration idleTimeout,
+                        @Value("${session.absolute-timeout:12h}") Duration absoluteTimeout,
+                        @Value("${session.max-sessions:100000}") int maxSessions,
+                        @Value("${session.max-sessions-per-user:10}") int maxSessionsPerUser,
+                        @Value("${session.wheel-tick:1s}") Duration wheelTick,
+                        MeterRegistry meterRegistry) {
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.absoluteTimeoutMillis = absoluteTimeout.toMillis();
+        this.maxSessions = maxSessions;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.tickMillis = Math.max(1, wheelTick.toMillis());
+
+        // One revolution covers the idle timeout, so most sessions are looked at once per idle period
+        int slots = (int) Math.min(4096, Math.max(64, idleTimeoutMillis / tickMillis + 1));
+        @SuppressWarnings("unchecked")
+        Queue<SessionEntry>[] buckets = new Queue[slots];
+        for (int i = 0; i < slots; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.wheel = buckets;
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+
+        Gauge.builder("auth.sessions.live", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("auth.sessions.memory.estimate", memoryEstimate, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.idleEvictions = evictionCounter(meterRegistry, "idle");
+        this.absoluteEvictions = evictionCounter(meterRegistry, "absolute");
+        this.capacityEvictions = evictionCounter(meterRegistry, "capacity");
+        this.userLimitEvictions = evictionCounter(meterRegistry, "user-limit");
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(String sessionId, String userId) {
+        long now = System.currentTimeMillis();
+        SessionEntry entry = new SessionEntry(sessionId, userId, now);
+        SessionEntry previous = sessions.put(sessionId, entry);
+        if (previous != null) {
+            detach(previous);
+        }
+        memoryEstimate.addAndGet(entry.estimatedBytes());
+        schedule(entry, entry.deadline());
+
+        List<SessionEntry> overUserLimit = new ArrayList<>();
+        sessionsByUser.compute(userId, (user, entries) -> {
+            ArrayDeque<SessionEntry> userEntries = entries != null ? entries : new ArrayDeque<>();
+            userEntries.addLast(entry);
+            while (maxSessionsPerUser > 0 && userEntries.size() > maxSessionsPerUser) {
+                overUserLimit.add(userEntries.pollFirst());
+            }
+            return userEntries;
+        });
+        for (SessionEntry evicted : overUserLimit) {
+            if (sessions.remove(evicted.sessionId, evicted)) {
+                memoryEstimate.addAndGet(-evicted.estimatedBytes());
+                userLimitEvictions.increment();
+            }
+        }
+
+        while (maxSessions > 0 && sessions.size() > maxSessions && evictNearestDeadline()) {
+            capacityEvictions.increment();
+        }
+    }
+
+    @Override
+    public String touch(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (entry.deadline() <= now) {
+            expire(entry, now);
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry.userId;
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        SessionEntry entry = sessions.remove(sessionId);
+        if (entry != null) {
+            detach(entry);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getMemoryEstimate() {
+        return memoryEstimate.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // Runs on the ticker thread: drain every bucket that has come due since the last tick
+    void advance() {
+        try {
+            long now = System.currentTimeMillis();
+            long targetTick = now / tickMillis;
+            while (currentTick < targetTick) {
+                currentTick++;
+                Queue<SessionEntry> bucket = wheel[(int) (currentTick % wheel.length)];
+                int due = bucket.size();
+                for (int i = 0; i < due; i++) {
+                    SessionEntry entry = bucket.poll();
+                    if (entry == null) {
+                        break;
+                    }
+                    if (sessions.get(entry.sessionId) != entry) {
+                        continue;
+                    }
+                    long deadline = entry.deadline();
+                    if (deadline <= now) {
+                        expire(entry, now);
+                    } else {
+                        schedule(entry, deadline);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Session expiry tick failed", e);
+        }
+    }
+
+    private void schedule(SessionEntry entry, long deadline) {
+        // Deadlines past one revolution land early and are simply rescheduled when they come up
+        long tick = Math.max((deadline + tickMillis - 1) / tickMillis, currentTick + 1);
+        tick = Math.min(tick, currentTick + wheel.length);
+        wheel[(int) (tick % wheel.length)].add(entry);
+    }
+
+    private void expire(SessionEntry entry, long now) {
+        if (sessions.remove(entry.sessionId, entry)) {
+            detach(entry);
+            if (entry.createdAt + absoluteTimeoutMillis <= now) {
+                absoluteEvictions.increment();
+            } else {
+                idleEvictions.increment();
+            }
+        }
+    }
+
+    // Walk the wheel from the current tick and drop the first live session found,
+    // i.e. the one due to be checked next
+    private boolean evictNearestDeadline() {
+        long tick = currentTick;
+        for (int offset = 1; offset <= wheel.length; offset++) {
+            Queue<SessionEntry> bucket = wheel[(int) ((tick + offset) % wheel.length)];
+            SessionEntry entry;
+            while ((entry = bucket.poll()) != null) {
+                if (sessions.remove(entry.sessionId, entry)) {
+                    detach(entry);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void detach(SessionEntry entry) {
+        memoryEstimate.addAndGet(-entry.estimatedBytes());
+        sessionsByUser.computeIfPresent(entry.userId, (user, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.sessions.evicted")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private final class SessionEntry {
+        private final String sessionId;
+        private final String userId;
+        private final long createdAt;
+        private volatile long lastAccess;
+
+        private SessionEntry(String sessionId, String userId, long createdAt) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.createdAt = createdAt;
+            this.lastAccess = createdAt;
+        }
+
+        private long deadline() {
+            return Math.min(lastAccess + idleTimeoutMillis, createdAt + absoluteTimeoutMillis);
+        }
+
+        private long estimatedBytes() {
+            return ENTRY_OVERHEAD_BYTES + 2L * (sessionId.length() + userId.length());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+// Relevance-ranked search for the module /search endpoints. db/search/<table>.sql gives each
+// searched table
+//   search_vector  tsvector generated from the columns (first one weighted A, the rest B), GIN
+//   lower(<column>) GIN gin_trgm_ops, one per column
+// A row matches when every word of the query prefixes one of its words (to_tsquery
+// 'w1:* & w2:*') or when the query is close to a stretch of one of its columns (pg_trgm <%,
+// word_similarity above pg_trgm.word_similarity_threshold, 0.6 by default), which catches
+// typos. Both predicates are answered from the GIN indexes, unlike the LOWER(name) LIKE '%x%'
+// scans they replace. A row's rank is GREATEST(ts_rank_cd(search_vector, query, 32),
+// word_similarity per column), all in 0..1. Results are ordered by rank DESC, id and keyset
+// paged on (rank, id); the cursor is the last row's pair as base64url JSON, opaque to clients
+// like KeysetPager's. InMemorySearch pages with the same cursor format but ranks differently,
+// so a cursor names the source that issued it and a memory cursor is refused here.
+// A page takes two statements: the native ranking query returns (id, rank) for limit + 1 rows,
+// then the rows are loaded by primary key with JPQL so they come back as entities (or, with
+// ?fields=, as tuples of the selected columns).
+@Component
+public class TextSearch {
+    // Words of a query beyond this are ignored, so a pasted paragraph cannot build a huge tsquery
+    static final int MAX_WORDS = 8;
+
+    // table as in @Table, columns as in @Column; the first column carries weight A
+    public record Index(Class<?> type, String table, List<String> columns) {
+        public Index {
+            if (columns.isEmpty()) {
+                throw new IllegalArgumentException("No columns to search in " + table);
+            }
+            columns = List.copyOf(columns);
+        }
+
+        // :words is the prefix tsquery, :term the raw query, :limit the page size + 1; with
+        // afterCursor also :rank and :id of the last row of the previous page
+        public String rankingQuery(boolean afterCursor) {
+            String words = "to_tsquery('simple', :words)";
+            String rank = "GREATEST(ts_rank_cd(t.search_vector, " + words + ", 32)" + columns.stream()
+                    .map(column -> ", word_similarity(lower(:term), lower(t.\"" + column + "\"))")
+                    .collect(Collectors.joining()) + ")";
+            String similar = columns.stream()
+                    .map(column -> " OR lower(:term) <% lower(t.\"" + column + "\")")
+                    .collect(Collectors.joining());
+            return "SELECT r.id, r.rank FROM (SELECT t.id, " + rank + " AS rank FROM \"" + table + "\" t"
+                    + " WHERE t.search_vector @@ " + words + similar + ") r"
+                    + (afterCursor ? " WHERE r.rank < :rank OR (r.rank = :rank AND r.id > :id)" : "")
+                    + " ORDER BY r.rank DESC, r.id LIMIT :limit";
+        }
+    }
+
+    // Cursor sources; cursors without one predate InMemorySearch and come from the database
+    static final String DATABASE = "database";
+    static final String MEMORY = "memory";
+
+    record Cursor(float rank, JsonNode id, String source) {
+    }
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int maxLimit;
+    private final Map<Class<?>, ConditionalWrites.Mapping> mappings = new ConcurrentHashMap<>();
+
+    public TextSearch(EntityManager entityManager,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${pagination.cursor.max-limit:200}") int maxLimit) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxLimit = maxLimit;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CursorPage<T> search(Index index, String query, String after, int limit) {
+        return search(index, query, after, limit, (mapping, ids) -> {
+            Map<Object, T> rows = new HashMap<>();
+            for (Object row : entityManager.createQuery("SELECT e FROM " + mapping.entityName() + " e WHERE e."
+                            + mapping.id().getName() + " IN :ids", index.type())
+                    .setParameter("ids", ids)
+                    .getResultList()) {
+                rows.put(read(mapping.id(), row), (T) row);
+            }
+            return rows;
+        });
+    }
+
+    // The same page with only the selected columns, see SparseFields
+    public CursorPage<SparseFields.Row> search(Index index, String query, String after, int limit,
+                                               SparseFields.Selection fields) {
+        return search(index, query, after, limit, (mapping, ids) -> fields.byId(entityManager, ids));
+    }
+
+    // load gets the ranked ids of a page and returns the rows found, keyed by id
+    @SuppressWarnings("unchecked")
+    private <T> CursorPage<T> search(Index index, String query, String after, int limit,
+                                     BiFunction<ConditionalWrites.Mapping, List<Object>, Map<Object, T>> load) {
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        String words = prefixQuery(query);
+        if (words.isEmpty()) {
+            return new CursorPage<>(List.of(), size, false, null);
+        }
+        ConditionalWrites.Mapping mapping = mappings.computeIfAbsent(index.type(), ConditionalWrites.Mapping::of);
+        Cursor cursor = after != null && !after.isBlank() ? decode(after) : null;
+        if (cursor != null && MEMORY.equals(cursor.source())) {
+            // Its rank is an in-memory score; continuing here would skip or repeat rows
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search cursor expired, start the search again");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Query ranking = entityManager.createNativeQuery(index.rankingQuery(cursor != null))
+                .setParameter("words", words)
+                .setParameter("term", query.strip())
+                .setParameter("limit", size + 1);
+        if (cursor != null) {
+            ranking.setParameter("rank", cursor.rank()).setParameter("id", cursorId(cursor, mapping.id().getType()));
+        }
+        List<Object[]> ranked = ranking.getResultList();
+        boolean hasNext = ranked.size() > size;
+        List<Object[]> page = hasNext ? ranked.subList(0, size) : ranked;
+
+        List<T> content = new ArrayList<>(page.size());
+        if (!page.isEmpty()) {
+            List<Object> ids = page.stream().map(row -> row[0]).toList();
+            Map<Object, T> rows = load.apply(mapping, ids);
+            for (Object id : ids) {
+                // A row deleted between the two statements is left out of the page
+                T row = rows.get(id);
+                if (row != null) {
+                    content.add(row);
+                }
+            }
+        }
+        String next = null;
+        if (hasNext) {
+            Object[] last = page.get(page.size() - 1);
+            next = cursor(((Number) last[1]).floatValue(), last[0]);
+        }
+        sample.stop(meterRegistry.timer("search.query", "entity", mapping.entityName()));
+        return new CursorPage<>(content, size, hasNext, next);
+    }
+
+    // "Billing mod" -> "billing:* & mod:*"; only letters and digits reach to_tsquery
+    public static String prefixQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        return Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .limit(MAX_WORDS)
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    int maxLimit() {
+        return maxLimit;
+    }
+
+    String cursor(float rank, Object id) {
+        return cursor(rank, id, DATABASE);
+    }
+
+    String cursor(float rank, Object id, String source) {
+        return encode(new Cursor(rank, objectMapper.valueToTree(id), source));
+    }
+
+    String encode(Cursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    Cursor decode(String after) {
+        try {
+            Cursor cursor = objectMapper.readValue(Base64.getUrlDecoder().decode(after), Cursor.class);
+            if (cursor.id() == null) {
+                throw new IllegalArgumentException("incomplete cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    Object cursorId(Cursor cursor, Class<?> type) {
+        try {
+            return objectMapper.treeToValue(cursor.id(), type);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+}
@@ -7,7 +7,6 @@ import com.java.coreTemplate.model.dto.RegistrationRequest;
 import com.java.coreTemplate.model.entity.UserDetails;
 import com.java.coreTemplate.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +14,8 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -26,21 +27,23 @@ public class AuthController {
     @Autowired
     private UserService userService;
     @GetMapping("/oauth/callback")
-    public String oauthCallback(@RequestParam String code, HttpServletRequest request) {
-        String accessToken = oauthService.getAccessToken(code);
-        Map<String, Object> userInfo = oauthService.getUserInfo(accessToken);
+    public CompletableFuture<String> oauthCallback(@RequestParam String code, HttpServletRequest request) {
+        // Create session: the container session and its cookie on the request thread, which is
+        // then released while the provider exchanges the code and returns the user. The stage runs
+        // on the HttpClient's thread and only binds the user to the session id in the store
+        String sessionId = sessionAuthService.openSession(request);
+        return oauthService.exchangeCodeAsync(code).thenApply(userInfo -> {
+            String userId = (String) userInfo.get("email"); // or other unique identifier
+            sessionAuthService.bindSession(sessionId, userId);
 
-        // Create session
-        String userId = (String) userInfo.get("email"); // or other unique identifier
-        String sessionId = sessionAuthService.createSession(userId, request);
-
-        // Also generate JWT token
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("email", userId);
-        claims.put("name", userInfo.get("name"));
-        String jwtToken = JwtTokenUtil.generateToken(userId, claims);
+            // Also generate JWT token
+            Map<String, Object> claims = new HashMap<>();
+            claims.put("email", userId);
+            claims.put("name", userInfo.get("name"));
+            String jwtToken = JwtTokenUtil.generateToken(userId, claims);
 
-        return "Session ID: " + sessionId + "\nJWT Token: " + jwtToken;
+            return "Session ID: " + sessionId + "\nJWT Token: " + jwtToken;
+        });
     }
 
     @PostMapping("/login")
@@ -98,11 +101,19 @@ public class AuthController {
             return new ResponseEntity<>("Invalid Username and password", HttpStatus.BAD_REQUEST);
         }
     }
+    // Password hashing pool is saturated; fail fast instead of queueing more logins
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleHashingBusy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body("Server busy, please retry");
+    }
     @PostMapping("/logout")
     public String logout(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            sessionAuthService.invalidateSession(session.getId(), request);
+        // The id the client sent: the session may have been created on another node
+        String sessionId = request.getRequestedSessionId();
+        if (sessionId != null) {
+            sessionAuthService.invalidateSession(sessionId, request);
         }
         return "Logged out successfully";
     }
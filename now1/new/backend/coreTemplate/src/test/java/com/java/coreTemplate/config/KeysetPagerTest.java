@@ -0,0 +1,157 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class KeysetPagerTest {
+	private static final Set<String> SORTABLE = Set.of("name", "createdAt");
+
+	private EntityManager entityManager;
+	private TypedQuery<Widget> query;
+	private KeysetPager pager;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private String name;
+		private Instant createdAt;
+
+		Widget(Long id, String name, Instant createdAt) {
+			this.id = id;
+			this.name = name;
+			this.createdAt = createdAt;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		query = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Widget.class))).thenReturn(query);
+		pager = new KeysetPager(entityManager, new ObjectMapper().findAndRegisterModules(), 200);
+	}
+
+	@Test
+	void theFirstPageFetchesOneExtraRowInsteadOfCounting() {
+		Instant t = Instant.parse("2024-01-01T00:00:00Z");
+		when(query.getResultList()).thenReturn(List.of(new Widget(1L, "a", t), new Widget(2L, "b", t),
+				new Widget(3L, "c", t)));
+
+		CursorPage<Widget> page = pager.page(Widget.class, null, 2, Sort.by("createdAt"), SORTABLE);
+
+		verify(entityManager).createQuery("SELECT e FROM Widget e ORDER BY e.createdAt ASC, e.id ASC", Widget.class);
+		verify(query).setMaxResults(3);
+		assertEquals(2, page.content().size());
+		assertTrue(page.hasNext());
+		assertNotNull(page.next());
+	}
+
+	@Test
+	void theNextPageSeeksPastTheLastRowOfThePreviousOne() {
+		Instant t = Instant.parse("2024-01-01T00:00:00Z");
+		when(query.getResultList()).thenReturn(List.of(new Widget(1L, "a", t), new Widget(2L, "b", t),
+				new Widget(3L, "c", t)));
+		String next = pager.page(Widget.class, null, 2, Sort.by("createdAt").descending(), SORTABLE).next();
+		when(query.getResultList()).thenReturn(List.of(new Widget(3L, "c", t)));
+
+		CursorPage<Widget> page = pager.page(Widget.class, next, 2, Sort.by("name"), SORTABLE);
+
+		verify(entityManager).createQuery("SELECT e FROM Widget e WHERE (e.createdAt, e.id) < (:key, :id) "
+				+ "ORDER BY e.createdAt DESC, e.id DESC", Widget.class);
+		verify(query).setParameter("key", t);
+		verify(query).setParameter("id", 2L);
+		assertFalse(page.hasNext());
+		assertNull(page.next());
+	}
+
+	@Test
+	void pagingByIdNeedsNoTieBreaker() {
+		when(query.getResultList()).thenReturn(List.of(new Widget(5L, "a", null), new Widget(6L, "b", null)));
+		String next = pager.page(Widget.class, null, 1, Sort.unsorted(), SORTABLE).next();
+
+		pager.page(Widget.class, next, 1, Sort.unsorted(), SORTABLE);
+
+		verify(entityManager).createQuery("SELECT e FROM Widget e ORDER BY e.id ASC", Widget.class);
+		verify(entityManager).createQuery("SELECT e FROM Widget e WHERE e.id > :id ORDER BY e.id ASC", Widget.class);
+		verify(query).setParameter("id", 5L);
+	}
+
+	@Test
+	void unknownSortFieldsAndBrokenCursorsAreBadRequests() {
+		assertThrows(ResponseStatusException.class,
+				() -> pager.page(Widget.class, null, 20, Sort.by("secret"), SORTABLE));
+		assertThrows(ResponseStatusException.class,
+				() -> pager.page(Widget.class, "not-a-cursor", 20, Sort.unsorted(), SORTABLE));
+	}
+
+	@Test
+	void aSecondSortFieldIsABadRequestUnlessItIsTheTieBreaker() {
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> pager.page(Widget.class, null, 20, Sort.by("name", "createdAt"), SORTABLE));
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		assertThrows(ResponseStatusException.class,
+				() -> pager.page(Widget.class, null, 20, Sort.by(Sort.Order.asc("name"), Sort.Order.desc("id")),
+						SORTABLE));
+
+		pager.page(Widget.class, null, 20, Sort.by("name", "id"), SORTABLE);
+
+		verify(entityManager).createQuery("SELECT e FROM Widget e ORDER BY e.name ASC, e.id ASC", Widget.class);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void sparsePagesSelectTheSortKeyForTheCursorButDoNotReturnIt() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+		Instant t = Instant.parse("2024-01-01T00:00:00Z");
+		TypedQuery<Object[]> tuples = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(tuples);
+		when(tuples.getResultList())
+				.thenReturn(List.<Object[]>of(new Object[] {1L, "a", t}, new Object[] {2L, "b", t}));
+		when(query.getResultList()).thenReturn(List.of(new Widget(1L, "a", t), new Widget(2L, "b", t)));
+		SparseFields.Selection fields = new SparseFields(entityManager, objectMapper).select(Widget.class, "name");
+
+		CursorPage<SparseFields.Row> page = pager.page(Widget.class, null, 1, Sort.by("createdAt"), SORTABLE, fields);
+
+		verify(entityManager).createQuery("SELECT e.id, e.name, e.createdAt FROM Widget e ORDER BY e.createdAt ASC, "
+				+ "e.id ASC", Object[].class);
+		verify(tuples).setMaxResults(2);
+		assertEquals("[{\"id\":1,\"name\":\"a\"}]", objectMapper.writeValueAsString(page.content()));
+		assertEquals(pager.page(Widget.class, null, 1, Sort.by("createdAt"), SORTABLE).next(), page.next());
+	}
+
+	@Test
+	void theLimitIsCapped() {
+		when(query.getResultList()).thenReturn(List.of());
+
+		CursorPage<Widget> page = pager.page(Widget.class, null, 10_000, Sort.unsorted(), SORTABLE);
+
+		verify(query).setMaxResults(201);
+		assertEquals(200, page.limit());
+	}
+}
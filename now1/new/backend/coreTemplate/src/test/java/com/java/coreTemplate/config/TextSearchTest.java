@@ -0,0 +1,134 @@
+package com.java.coreTemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.Version;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TextSearchTest {
+	private static final TextSearch.Index INDEX = new TextSearch.Index(Widget.class, "widget",
+			List.of("name", "description"));
+
+	private EntityManager entityManager;
+	private Query ranking;
+	private TypedQuery<Widget> load;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private TextSearch search;
+
+	@Entity
+	static class Widget {
+		@Id
+		private Long id;
+		private String name;
+		@Version
+		private Long version;
+
+		Widget(Long id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		ranking = mock(Query.class, RETURNS_SELF);
+		load = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createNativeQuery(anyString())).thenReturn(ranking);
+		when(entityManager.createQuery(anyString(), eq(Widget.class))).thenReturn(load);
+		search = new TextSearch(entityManager, new ObjectMapper(), registry, 200);
+	}
+
+	@Test
+	void queriesBecomeAndedPrefixTermsOfLettersAndDigitsOnly() {
+		assertEquals("billing:* & mod:*", TextSearch.prefixQuery("  Billing mod"));
+		assertEquals("a:* & b:* & c1:*", TextSearch.prefixQuery("a'|b & !c1:*"));
+		assertEquals("", TextSearch.prefixQuery(" -- "));
+		assertEquals(TextSearch.MAX_WORDS, TextSearch.prefixQuery("w ".repeat(20)).split(" & ").length);
+	}
+
+	@Test
+	void rankingUsesBothIndexesAndOrdersByRankThenId() {
+		assertEquals("SELECT r.id, r.rank FROM (SELECT t.id, GREATEST(ts_rank_cd(t.search_vector, "
+				+ "to_tsquery('simple', :words), 32), word_similarity(lower(:term), lower(t.\"name\")), "
+				+ "word_similarity(lower(:term), lower(t.\"description\"))) AS rank FROM \"widget\" t "
+				+ "WHERE t.search_vector @@ to_tsquery('simple', :words) OR lower(:term) <% lower(t.\"name\") "
+				+ "OR lower(:term) <% lower(t.\"description\")) r ORDER BY r.rank DESC, r.id LIMIT :limit",
+				INDEX.rankingQuery(false));
+		assertTrue(INDEX.rankingQuery(true).contains(
+				" WHERE r.rank < :rank OR (r.rank = :rank AND r.id > :id) ORDER BY"));
+	}
+
+	@Test
+	void rowsComeBackInRankOrderWithACursorToTheNextPage() {
+		when(ranking.getResultList()).thenReturn(List.of(new Object[] {3L, 0.9f}, new Object[] {1L, 0.5f},
+				new Object[] {2L, 0.5f}));
+		when(load.getResultList()).thenReturn(List.of(new Widget(1L, "b"), new Widget(3L, "a")));
+
+		CursorPage<Widget> page = search.search(INDEX, "wid", null, 2);
+
+		verify(ranking).setParameter("words", "wid:*");
+		verify(ranking).setParameter("limit", 3);
+		verify(load).setParameter("ids", List.of(3L, 1L));
+		assertEquals(List.of(3L, 1L), page.content().stream().map(w -> w.id).toList());
+		assertTrue(page.hasNext());
+
+		search.search(INDEX, "wid", page.next(), 2);
+
+		verify(ranking).setParameter("rank", 0.5f);
+		verify(ranking).setParameter("id", 1L);
+		assertEquals(2, registry.get("search.query").tag("entity", "Widget").timer().count());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void sparseSearchesLoadTuplesOfTheSelectedColumnsInRankOrder() {
+		TypedQuery<Object[]> tuples = mock(TypedQuery.class, RETURNS_SELF);
+		when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(tuples);
+		when(ranking.getResultList()).thenReturn(List.of(new Object[] {3L, 0.9f}, new Object[] {1L, 0.5f}));
+		when(tuples.getResultList()).thenReturn(List.<Object[]>of(new Object[] {1L, "b"}, new Object[] {3L, "a"}));
+		SparseFields.Selection fields = new SparseFields(entityManager, new ObjectMapper())
+				.select(Widget.class, "name");
+
+		CursorPage<SparseFields.Row> page = search.search(INDEX, "wid", null, 20, fields);
+
+		verify(entityManager).createQuery("SELECT e.id, e.name FROM Widget e WHERE e.id IN :ids", Object[].class);
+		verify(entityManager, never()).createQuery(anyString(), eq(Widget.class));
+		assertEquals(List.of("a", "b"), page.content().stream().map(row -> row.get("name")).toList());
+	}
+
+	@Test
+	void blankQueriesAndBadCursorsNeverReachTheDatabase() {
+		CursorPage<Widget> empty = search.search(INDEX, " ", null, 20);
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> search.search(INDEX, "wid", "not-a-cursor", 20));
+
+		assertTrue(empty.content().isEmpty());
+		assertFalse(empty.hasNext());
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		verifyNoInteractions(entityManager);
+	}
+}